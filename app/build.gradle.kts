@@ -45,10 +45,13 @@ android {
         val sid = env["SecretId"] ?: env["TENCENT_SECRET_ID"] ?: ""
         val skey = env["SecretKey"] ?: env["TENCENT_SECRET_KEY"] ?: ""
         val region = env["Region"] ?: env["TENCENT_REGION"] ?: "ap-guangzhou"
+        // 对冲的地域（逗号分隔，如 ap-guangzhou,ap-shanghai），留空不对冲；对冲的请求同样计费
+        val hedgeRegions = env["HedgeRegions"] ?: env["TENCENT_HEDGE_REGIONS"] ?: ""
 
         buildConfigField("String", "TENCENT_SECRET_ID", "\"$sid\"")
         buildConfigField("String", "TENCENT_SECRET_KEY", "\"$skey\"")
         buildConfigField("String", "TENCENT_REGION", "\"$region\"")
+        buildConfigField("String", "TENCENT_HEDGE_REGIONS", "\"$hedgeRegions\"")
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
     }
@@ -74,9 +77,10 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.recyclerview)
 
-    // 你后面 TencentOcrClient 如果用 Gson 解析 JSON，就要加这个
-    implementation("com.google.code.gson:gson:2.11.0")
+    // 签名、请求、解析等与平台无关的部分（Gson 由 core 传递依赖）
+    implementation(project(":core"))
 
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
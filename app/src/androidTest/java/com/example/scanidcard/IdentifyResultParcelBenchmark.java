@@ -0,0 +1,118 @@
+package com.example.scanidcard;
+
+import android.os.Parcel;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * IdentifyResult 经 Parcel 传递的开销：手写 Parcelable（大字段走句柄）对比原来的 Serializable。
+ *
+ * 往返测试总是运行；耗时对比默认跳过，运行方式：
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.benchmark=true
+ * 结果输出到 logcat（tag: IdentifyResultParcelBenchmark）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class IdentifyResultParcelBenchmark {
+
+    private static final String TAG = "IdentifyResultParcelBenchmark";
+    private static final int ROUNDS = 2000;
+
+    private static IdentifyResult sample(int rawJsonChars) {
+        IdentifyResult r = new IdentifyResult();
+        r.setErrorcode(0);
+        r.setErrormsg("");
+        r.setName("李明");
+        r.setSex("男");
+        r.setNation("汉");
+        r.setBirth("1987/1/1");
+        r.setAddress("北京市石景山区高新技术园腾讯大楼");
+        r.setIdNum("440524198701010014");
+        r.setAuthority("");
+        r.setValidDate("");
+        r.setRequestId("c7c4c3e4-0d40-4ad4-8c1c-1e6cbd1d3b6e");
+        StringBuilder raw = new StringBuilder(rawJsonChars);
+        while (raw.length() < rawJsonChars) raw.append("{\"Response\":{\"IdCard\":\"/9j/4AAQSkZJRgABAQ\"}}");
+        r.setRawJson(raw.toString());
+        r.setAdvancedInfo("");
+        return r;
+    }
+
+    @Test
+    public void roundTrip() {
+        for (int size : new int[]{100, 200 * 1024}) {
+            IdentifyResult in = sample(size);
+            Parcel parcel = Parcel.obtain();
+            try {
+                parcel.writeParcelable(new IdentifyResultParcel(in), 0);
+                parcel.setDataPosition(0);
+                IdentifyResult out = ((IdentifyResultParcel) parcel.readParcelable(
+                        IdentifyResultParcel.class.getClassLoader())).getResult();
+                assertEquals(in.getName(), out.getName());
+                assertEquals(in.getIdNum(), out.getIdNum());
+                assertEquals(in.getRawJson(), out.getRawJson());
+                if (size > IdentifyResultParcel.INLINE_LIMIT) {
+                    // 大字段不进 Parcel
+                    assertTrue(parcel.dataSize() < 1024);
+                }
+            } finally {
+                parcel.recycle();
+            }
+        }
+    }
+
+    @Test
+    public void marshalCost() {
+        Assume.assumeTrue("true".equals(InstrumentationRegistry.getArguments().getString("benchmark")));
+
+        for (int size : new int[]{2 * 1024, 200 * 1024}) {
+            IdentifyResult result = sample(size);
+            long[] serializable = measure(result, true);
+            long[] parcelable = measure(result, false);
+            Log.i(TAG, String.format("rawJson %d chars: Serializable %d ns/op, %d bytes; Parcelable %d ns/op, %d bytes",
+                    size, serializable[0], serializable[1], parcelable[0], parcelable[1]));
+        }
+    }
+
+    /**
+     * @return {每次写入 + marshall + unmarshall + 读取的平均纳秒数, Parcel 字节数}
+     */
+    private static long[] measure(IdentifyResult result, boolean useSerializable) {
+        long bytes = 0;
+        // 预热
+        for (int i = 0; i < ROUNDS / 10; i++) bytes = roundTrip(result, useSerializable);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) bytes = roundTrip(result, useSerializable);
+        return new long[]{(System.nanoTime() - t0) / ROUNDS, bytes};
+    }
+
+    private static int roundTrip(IdentifyResult result, boolean useSerializable) {
+        Parcel out = Parcel.obtain();
+        Parcel in = Parcel.obtain();
+        try {
+            if (useSerializable) {
+                out.writeSerializable(result);
+            } else {
+                out.writeParcelable(new IdentifyResultParcel(result), 0);
+            }
+            byte[] data = out.marshall();
+            in.unmarshall(data, 0, data.length);
+            in.setDataPosition(0);
+            Object read = useSerializable
+                    ? in.readSerializable()
+                    : in.readParcelable(IdentifyResultParcel.class.getClassLoader());
+            assertNotNull(read);
+            return data.length;
+        } finally {
+            out.recycle();
+            in.recycle();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.scanidcard;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 大尺寸相机照片（12~50MP）的解码耗时：单次打开（ImageUtils.decodeSampled）对比改造前的两次打开。
+ *
+ * 默认跳过，运行方式：
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.benchmark=true
+ * 结果输出到 logcat（tag: ImageDecodeBenchmark）。
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageDecodeBenchmark {
+
+    private static final String TAG = "ImageDecodeBenchmark";
+    private static final int ROUNDS = 5;
+
+    // 12MP / 24MP / 48MP（4:3）
+    private static final int[][] SIZES = {{4000, 3000}, {5664, 4248}, {8000, 6000}};
+
+    @Test
+    public void decodeLargePhotos() throws Exception {
+        Assume.assumeTrue("true".equals(InstrumentationRegistry.getArguments().getString("benchmark")));
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+        for (int[] size : SIZES) {
+            File file = createPhoto(context, size[0], size[1]);
+            Uri uri = Uri.fromFile(file);
+            try {
+                // 两种方式的输出尺寸必须一致
+                Bitmap a = ImageUtils.decodeSampled(context, uri, 1280, 1280);
+                Bitmap b = legacyDecode(context, uri, 1280, 1280);
+                assertEquals(a.getWidth(), b.getWidth());
+                assertEquals(a.getHeight(), b.getHeight());
+                a.recycle();
+                b.recycle();
+
+                long[] single = new long[ROUNDS];
+                long[] legacy = new long[ROUNDS];
+                for (int i = 0; i < ROUNDS; i++) {
+                    long t0 = System.nanoTime();
+                    ImageUtils.decodeSampled(context, uri, 1280, 1280).recycle();
+                    single[i] = System.nanoTime() - t0;
+
+                    t0 = System.nanoTime();
+                    legacyDecode(context, uri, 1280, 1280).recycle();
+                    legacy[i] = System.nanoTime() - t0;
+                }
+                Log.i(TAG, String.format("%dx%d (%.1f MP, %d KB): single-open median %.1f ms, two-open median %.1f ms",
+                        size[0], size[1], size[0] * size[1] / 1e6, file.length() / 1024,
+                        median(single) / 1e6, median(legacy) / 1e6));
+            } finally {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * 生成带细节的合成照片（RGB_565 以降低生成时的内存占用）
+     */
+    private static File createPhoto(Context context, int width, int height) throws Exception {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.rgb(230, 225, 210));
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(height / 40f);
+        for (int y = 0; y < height; y += height / 40) {
+            paint.setColor(Color.rgb((y * 7) % 255, (y * 13) % 255, (y * 17) % 255));
+            canvas.drawText("姓名 张三 公民身份号码 110101199003070000 " + y, 0, y, paint);
+        }
+        File file = new File(context.getCacheDir(), "bench_" + width + "x" + height + ".jpg");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 92, out);
+        } finally {
+            bitmap.recycle();
+        }
+        return file;
+    }
+
+    /**
+     * 改造前的解码方式：先打开一次读尺寸，再打开一次解码
+     */
+    private static Bitmap legacyDecode(Context context, Uri uri, int maxWidth, int maxHeight) throws Exception {
+        ContentResolver cr = context.getContentResolver();
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream is1 = cr.openInputStream(uri)) {
+            BitmapFactory.decodeStream(is1, null, bounds);
+        }
+
+        int inSampleSize = 1;
+        if (bounds.outHeight > maxHeight || bounds.outWidth > maxWidth) {
+            int halfHeight = bounds.outHeight / 2;
+            int halfWidth = bounds.outWidth / 2;
+            while ((halfHeight / inSampleSize) >= maxHeight && (halfWidth / inSampleSize) >= maxWidth) {
+                inSampleSize *= 2;
+            }
+        }
+
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = inSampleSize;
+        opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        try (InputStream is2 = cr.openInputStream(uri)) {
+            return BitmapFactory.decodeStream(is2, null, opts);
+        }
+    }
+
+    private static double median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
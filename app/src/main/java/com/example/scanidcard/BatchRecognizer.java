@@ -0,0 +1,308 @@
+package com.example.scanidcard;
+
+import android.content.Context;
+import android.net.Uri;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量识别：解码压缩 -> 摘要签名 -> 网络请求，三个阶段各自有独立的线程数和有界队列。
+ *
+ * 第 N+1 张卡的 CPU 处理与第 N 张卡的网络等待重叠进行；某一阶段排满时，上游提交会阻塞（背压），
+ * 因此同时在内存中的图片数量是有上限的。
+ */
+public class BatchRecognizer {
+
+    public static class Config {
+        /** 解码 + 压缩并发数（每个线程同时持有一张 Bitmap，不宜过大） */
+        public int decodeThreads = 2;
+        /** Base64 摘要 + 签名并发数 */
+        public int signThreads = 1;
+        /** 同时在途的网络请求数 */
+        public int networkThreads = 4;
+        /** 每个阶段除正在执行的任务外，最多排队的任务数 */
+        public int queueCapacity = 4;
+    }
+
+    public interface Listener {
+        /**
+         * 单张图片完成（成功或失败），在工作线程中回调
+         *
+         * @param index 在输入列表中的下标
+         */
+        void onItemFinished(int index, Uri uri, IdentifyResult result);
+
+        /**
+         * 全部完成，在工作线程中回调
+         */
+        void onBatchFinished(Stats stats);
+    }
+
+    /**
+     * 整批统计。各阶段耗时为累计值，其总和大于 elapsedMs 说明阶段之间发生了重叠。
+     */
+    public static class Stats {
+        public int total;
+        public int succeeded;
+        public int failed;
+        /** 直接从结果缓存返回、未发起请求的张数 */
+        public int cacheHits;
+        public long elapsedMs;
+        public long decodeMs;
+        public long signMs;
+        public long networkMs;
+
+        public double imagesPerSecond() {
+            return elapsedMs <= 0 ? 0 : total * 1000.0 / elapsedMs;
+        }
+    }
+
+    /**
+     * 固定线程数 + 有界排队的阶段；submit 在排满时阻塞调用线程。
+     */
+    private static class Stage {
+        final ExecutorService executor;
+        final Semaphore permits;
+
+        Stage(int threads, int queueCapacity) {
+            this.executor = Executors.newFixedThreadPool(threads);
+            this.permits = new Semaphore(threads + queueCapacity);
+        }
+
+        void submit(Runnable task) throws InterruptedException {
+            permits.acquire();
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+
+    private final Context context;
+    private final String secretId;
+    private final String secretKey;
+    private final String region;
+    private final String cardSide;
+    private final ResultCache cache;
+
+    private final ExecutorService feeder = Executors.newSingleThreadExecutor();
+    private final Stage decodeStage;
+    private final Stage signStage;
+    private final Stage networkStage;
+
+    /** 尚未完成的图片，shutdown 时逐个取消（断开在途连接） */
+    private final Set<OcrCall> active = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicLong decodeNanos = new AtomicLong();
+    private final AtomicLong signNanos = new AtomicLong();
+    private final AtomicLong networkNanos = new AtomicLong();
+    private long startNanos;
+    private int total;
+
+    /**
+     * @param cache 可选：结果缓存，命中的图片不再签名和发送请求
+     */
+    public BatchRecognizer(Context context, Config config, ResultCache cache,
+                           String secretId, String secretKey, String region, String cardSide) {
+        this.context = context.getApplicationContext();
+        this.cache = cache;
+        this.secretId = secretId;
+        this.secretKey = secretKey;
+        this.region = region;
+        this.cardSide = cardSide;
+        this.decodeStage = new Stage(config.decodeThreads, config.queueCapacity);
+        this.signStage = new Stage(config.signThreads, config.queueCapacity);
+        this.networkStage = new Stage(config.networkThreads, config.queueCapacity);
+    }
+
+    /**
+     * 开始处理；立即返回，结果通过 listener 回调。一个实例只能 start 一次。
+     */
+    public void start(List<Uri> uris, Listener listener) {
+        total = uris.size();
+        remaining.set(total);
+        startNanos = System.nanoTime();
+        if (total == 0) {
+            listener.onBatchFinished(buildStats());
+            shutdown();
+            return;
+        }
+
+        feeder.execute(() -> {
+            for (int i = 0; i < uris.size(); i++) {
+                final int index = i;
+                final Uri uri = uris.get(i);
+                try {
+                    decodeStage.submit(() -> decode(index, uri, listener));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * 停止所有阶段并取消在途请求（未完成的图片不再回调）
+     */
+    public void shutdown() {
+        for (OcrCall call : active) {
+            call.cancel();
+        }
+        feeder.shutdownNow();
+        decodeStage.executor.shutdownNow();
+        signStage.executor.shutdownNow();
+        networkStage.executor.shutdownNow();
+    }
+
+    private void decode(int index, Uri uri, Listener listener) {
+        long t0 = System.nanoTime();
+        ScanTrace trace = new ScanTrace();
+        OcrCall call = new OcrCall();
+        active.add(call);
+        trace.attach();
+        call.attach();
+        // 池中的输出缓冲区直接当请求体用（不复制），请求结束后归还
+        PooledByteStream jpeg = null;
+        String cacheKey = null;
+        IdentifyResult cached = null;
+        try {
+            jpeg = ImageUtils.compressForUpload(context, uri, JpegBudget.forUpload());
+            if (cache != null) {
+                cacheKey = ResultCache.key(jpeg.array(), jpeg.size(), cardSide);
+                cached = cache.peek(cacheKey);
+            }
+        } catch (Exception e) {
+            if (jpeg != null) jpeg.close();
+            finish(index, uri, call, trace, failure("图片处理失败：" + e.getMessage()), listener);
+            return;
+        } finally {
+            ScanTrace.detach();
+            OcrCall.detach();
+            decodeNanos.addAndGet(System.nanoTime() - t0);
+        }
+
+        if (cached != null) {
+            jpeg.close();
+            cacheHits.incrementAndGet();
+            finish(index, uri, call, trace, cached, listener);
+            return;
+        }
+
+        final PooledByteStream body = jpeg;
+        final String key = cacheKey;
+        try {
+            signStage.submit(() -> sign(index, uri, call, trace, body, key, listener));
+        } catch (InterruptedException e) {
+            body.close();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sign(int index, Uri uri, OcrCall call, ScanTrace trace, PooledByteStream jpeg, String cacheKey,
+                      Listener listener) {
+        long t0 = System.nanoTime();
+        trace.attach();
+        call.attach();
+        TencentOcrClient.PreparedRequest request;
+        try {
+            call.throwIfCancelled();
+            request = TencentOcrClient.prepare(secretId, secretKey, region,
+                    new OcrRequestBody(jpeg.array(), jpeg.size(), cardSide));
+        } catch (Exception e) {
+            jpeg.close();
+            finish(index, uri, call, trace, failure("签名失败：" + e.getMessage()), listener);
+            return;
+        } finally {
+            ScanTrace.detach();
+            OcrCall.detach();
+            signNanos.addAndGet(System.nanoTime() - t0);
+        }
+
+        try {
+            networkStage.submit(() -> send(index, uri, call, trace, request, jpeg, cacheKey, listener));
+        } catch (InterruptedException e) {
+            jpeg.close();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(int index, Uri uri, OcrCall call, ScanTrace trace, TencentOcrClient.PreparedRequest request,
+                      PooledByteStream jpeg, String cacheKey, Listener listener) {
+        long t0 = System.nanoTime();
+        trace.attach();
+        call.attach();
+        IdentifyResult result;
+        try {
+            // 排在单张识别之后，并受账号 QPS 限制
+            result = OcrScheduler.getDefault().call(OcrScheduler.Priority.BATCH,
+                    () -> TencentOcrClient.execute(request));
+            if (cache != null) cache.put(cacheKey, result);
+        } catch (Exception e) {
+            result = failure("识别失败：" + e.getMessage());
+        } finally {
+            jpeg.close();
+            ScanTrace.detach();
+            OcrCall.detach();
+            networkNanos.addAndGet(System.nanoTime() - t0);
+        }
+        finish(index, uri, call, trace, result, listener);
+    }
+
+    private void finish(int index, Uri uri, OcrCall call, ScanTrace trace, IdentifyResult result,
+                        Listener listener) {
+        active.remove(call);
+        // 已取消的图片不计入统计，也不回调
+        if (call.isCancelled()) return;
+        trace.finish(ScanMetrics.global());
+        if (result.getErrorcode() == 0) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        listener.onItemFinished(index, uri, result);
+
+        if (remaining.decrementAndGet() == 0) {
+            listener.onBatchFinished(buildStats());
+            shutdown();
+        }
+    }
+
+    private Stats buildStats() {
+        Stats stats = new Stats();
+        stats.total = total;
+        stats.succeeded = succeeded.get();
+        stats.failed = failed.get();
+        stats.cacheHits = cacheHits.get();
+        stats.elapsedMs = (System.nanoTime() - startNanos) / 1_000_000L;
+        stats.decodeMs = decodeNanos.get() / 1_000_000L;
+        stats.signMs = signNanos.get() / 1_000_000L;
+        stats.networkMs = networkNanos.get() / 1_000_000L;
+        return stats;
+    }
+
+    private static IdentifyResult failure(String msg) {
+        IdentifyResult result = new IdentifyResult();
+        result.setErrorcode(1);
+        result.setErrormsg(msg);
+        return result;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.scanidcard;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 复用 Bitmap 的像素内存：解码时通过 inBitmap 写进旧 Bitmap，缩放时画进旧 Bitmap，连续扫描不再每张分配几十 MB。
+ *
+ * 按分配字节数匹配（API 19 起 inBitmap 只要求容量足够），取出后由解码器 / {@link Bitmap#reconfigure} 改成需要的尺寸。
+ * 超过数量或总字节上限时回收最小的一张。
+ */
+public class BitmapPool {
+
+    public static class Config {
+        /** 池中最多保留的 Bitmap 张数 */
+        public int maxBitmaps = 3;
+        /** 池中 Bitmap 的总字节数上限（1280 像素的 ARGB_8888 约 6.5MB）；应用里按 {@link #forMemoryClass} 设置 */
+        public long maxBytes = 8 * 1024 * 1024L;
+
+        /**
+         * 按应用的堆上限（ActivityManager#getMemoryClass，单位 MB）取八分之一，最多 32MB
+         * （采样解码的原图最多约为 1280 像素缩放图的四倍）
+         */
+        public static Config forMemoryClass(int memoryClassMb) {
+            Config config = new Config();
+            config.maxBytes = Math.min(memoryClassMb * 1024 * 1024L / 8, 32 * 1024 * 1024L);
+            return config;
+        }
+    }
+
+    private final Config config;
+    private final List<Bitmap> free = new ArrayList<>();
+    private long freeBytes;
+    private long hits;
+    private long misses;
+
+    public BitmapPool(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * 分配字节数不小于 byteCount 的可复用 Bitmap；没有时返回 null（调用方自己分配）
+     */
+    public synchronized Bitmap get(long byteCount) {
+        int best = -1;
+        for (int i = 0; i < free.size(); i++) {
+            long size = free.get(i).getAllocationByteCount();
+            if (size >= byteCount && (best < 0 || size < free.get(best).getAllocationByteCount())) best = i;
+        }
+        if (best < 0) {
+            misses++;
+            return null;
+        }
+        hits++;
+        Bitmap bitmap = free.remove(best);
+        freeBytes -= bitmap.getAllocationByteCount();
+        return bitmap;
+    }
+
+    /**
+     * w x h 的 ARGB_8888 可变 Bitmap：优先复用，否则新建。内容未清空
+     */
+    public Bitmap getArgb(int width, int height) {
+        Bitmap bitmap = get(4L * width * height);
+        if (bitmap == null) return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+        return bitmap;
+    }
+
+    /**
+     * 用完归还；不可变或放不下的直接 recycle。归还后调用方不能再使用它
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) return;
+        long size = bitmap.getAllocationByteCount();
+        if (!bitmap.isMutable() || config.maxBitmaps <= 0 || size > config.maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        // 满了先挤掉最小的，留下能容纳更多尺寸的大 Bitmap
+        while (!free.isEmpty() && (free.size() >= config.maxBitmaps || freeBytes + size > config.maxBytes)) {
+            int smallest = 0;
+            for (int i = 1; i < free.size(); i++) {
+                if (free.get(i).getAllocationByteCount() < free.get(smallest).getAllocationByteCount()) smallest = i;
+            }
+            if (free.get(smallest).getAllocationByteCount() >= size) {
+                bitmap.recycle();
+                return;
+            }
+            Bitmap evicted = free.remove(smallest);
+            freeBytes -= evicted.getAllocationByteCount();
+            evicted.recycle();
+        }
+        free.add(bitmap);
+        freeBytes += size;
+    }
+
+    /**
+     * 回收池中全部 Bitmap（例如 onTrimMemory）
+     */
+    public synchronized void clear() {
+        for (Bitmap b : free) b.recycle();
+        free.clear();
+        freeBytes = 0;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+}
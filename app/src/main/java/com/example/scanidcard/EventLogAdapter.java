@@ -0,0 +1,140 @@
+package com.example.scanidcard;
+
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 把 {@link EventLog} 显示在 RecyclerView 中。
+ *
+ * 任意线程追加日志只会安排一次延迟刷新；刷新在主线程上把这段时间内的新事件一次性拉过来，
+ * 只通知新增 / 被挤掉的条目。界面侧也是同样容量的环形数组，条目数量不会无限增长。
+ */
+public class EventLogAdapter extends RecyclerView.Adapter<EventLogAdapter.Holder> implements EventLog.Listener {
+
+    // 合并这段时间内的日志，一次刷新（最多每秒约 20 次）
+    private static final long FLUSH_DELAY_MS = 50;
+
+    static class Holder extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        Holder(View itemView) {
+            super(itemView);
+            text = itemView.findViewById(R.id.tvLogLine);
+        }
+    }
+
+    private final EventLog log;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final Runnable flushTask = this::flush;
+
+    // 以下只在主线程访问
+    private final EventLog.Event[] items;
+    private final List<EventLog.Event> batch = new ArrayList<>();
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss", Locale.ROOT);
+    private final Date date = new Date();
+    private int start;
+    private int count;
+    private long lastSeq = -1;
+    private RecyclerView recyclerView;
+
+    public EventLogAdapter(EventLog log) {
+        this.log = log;
+        this.items = new EventLog.Event[log.capacity()];
+    }
+
+    /**
+     * 绑定到列表并开始接收日志（主线程调用）
+     */
+    public void attach(RecyclerView view) {
+        recyclerView = view;
+        view.setLayoutManager(new LinearLayoutManager(view.getContext()));
+        view.setAdapter(this);
+        log.addListener(this);
+        flush();
+    }
+
+    /**
+     * 停止接收日志（主线程调用，例如 onDestroy）
+     */
+    public void detach() {
+        log.removeListener(this);
+        mainHandler.removeCallbacks(flushTask);
+        recyclerView = null;
+    }
+
+    @Override
+    public void onAppended(EventLog log) {
+        if (flushPending.compareAndSet(false, true)) {
+            mainHandler.postDelayed(flushTask, FLUSH_DELAY_MS);
+        }
+    }
+
+    private void flush() {
+        // 先清标记再读：读的过程中新追加的日志会安排下一次刷新
+        flushPending.set(false);
+        batch.clear();
+        log.readSince(lastSeq, batch);
+        if (batch.isEmpty()) return;
+
+        // 停在底部时跟随新日志；用户往上翻看时不打扰
+        boolean follow = recyclerView != null && !recyclerView.canScrollVertically(1);
+
+        int before = count;
+        int added = batch.size();
+        for (EventLog.Event e : batch) {
+            items[(start + count) % items.length] = e;
+            if (count == items.length) {
+                start = (start + 1) % items.length;
+            } else {
+                count++;
+            }
+            lastSeq = e.seq;
+        }
+        batch.clear();
+
+        int removed = before + added - count;
+        if (removed > 0 && removed >= before) {
+            notifyDataSetChanged();
+        } else {
+            if (removed > 0) notifyItemRangeRemoved(0, removed);
+            notifyItemRangeInserted(count - added, added);
+        }
+
+        if (follow) recyclerView.scrollToPosition(count - 1);
+    }
+
+    @Override
+    public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_log, parent, false);
+        return new Holder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(Holder holder, int position) {
+        EventLog.Event e = items[(start + position) % items.length];
+        date.setTime(e.timeMs);
+        holder.text.setText(timeFormat.format(date) + "  " + e);
+        holder.text.setTextColor(e.level == EventLog.Level.INFO ? Color.BLACK : Color.RED);
+    }
+
+    @Override
+    public int getItemCount() {
+        return count;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.scanidcard;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 识别历史：输入即查，分页加载，点开看完整结果。
+ *
+ * 查询在后台线程执行；输入停顿 {@link #QUERY_DELAY_MS} 后才查，过期的查询结果直接丢弃。
+ * 全是数字（末位可为 X）按身份证号前缀查，单个字按姓氏查，其余按姓名 / 号码 / 住址片段查。
+ */
+public class HistoryActivity extends AppCompatActivity {
+
+    private static final long QUERY_DELAY_MS = 150;
+    private static final int PAGE_SIZE = 30;
+    // 距离列表末尾还有这么多条时加载下一页
+    private static final int PREFETCH = 10;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable queryTask = () -> load(true);
+    private final Adapter adapter = new Adapter();
+
+    private EditText etQuery;
+    private TextView tvStatus;
+
+    private volatile ResultHistory history;
+
+    // 以下只在主线程访问
+    private int generation;
+    private int next = -1;
+    private boolean loading;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_history);
+
+        etQuery = findViewById(R.id.etHistoryQuery);
+        tvStatus = findViewById(R.id.tvHistoryStatus);
+        RecyclerView rv = findViewById(R.id.rvHistory);
+        LinearLayoutManager layout = new LinearLayoutManager(this);
+        rv.setLayoutManager(layout);
+        rv.setAdapter(adapter);
+        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView view, int dx, int dy) {
+                if (!loading && next >= 0
+                        && layout.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH) {
+                    load(false);
+                }
+            }
+        });
+
+        etQuery.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                mainHandler.removeCallbacks(queryTask);
+                mainHandler.postDelayed(queryTask, QUERY_DELAY_MS);
+            }
+        });
+
+        tvStatus.setText("正在加载历史...");
+        executor.execute(() -> {
+            try {
+                history = ResultHistories.get(this);
+                runOnUiThread(() -> load(true));
+            } catch (Exception e) {
+                runOnUiThread(() -> tvStatus.setText("历史不可用：" + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * @param reset true 表示新查询（从第一页开始），false 表示加载下一页
+     */
+    private void load(boolean reset) {
+        ResultHistory h = history;
+        if (h == null) return;
+        if (reset) {
+            generation++;
+            next = -1;
+        }
+        int gen = generation;
+        int before = reset ? -1 : next;
+        String text = etQuery.getText() != null ? etQuery.getText().toString().trim() : "";
+        ResultHistory.Match match = matchFor(text);
+        loading = true;
+
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            ResultHistory.Page page = h.query(match, text, before, PAGE_SIZE);
+            long micros = (System.nanoTime() - start) / 1000;
+            int total = h.size();
+            runOnUiThread(() -> {
+                // 输入已经变了：这页结果作废
+                if (gen != generation) return;
+                loading = false;
+                next = page.next;
+                if (reset) {
+                    adapter.set(page.entries);
+                } else {
+                    adapter.append(page.entries);
+                }
+                tvStatus.setText(String.format(Locale.ROOT, "共 %d 条历史，显示 %d 条（查询 %.1f ms）",
+                        total, adapter.getItemCount(), micros / 1000.0));
+            });
+        });
+    }
+
+    private static ResultHistory.Match matchFor(String text) {
+        if (text.isEmpty()) return ResultHistory.Match.TEXT;
+        boolean digits = true;
+        for (int i = 0; i < text.length() && digits; i++) {
+            char c = text.charAt(i);
+            digits = (c >= '0' && c <= '9') || (i == 17 && (c == 'X' || c == 'x'));
+        }
+        if (digits) return ResultHistory.Match.ID_PREFIX;
+        return text.length() == 1 ? ResultHistory.Match.NAME_PREFIX : ResultHistory.Match.TEXT;
+    }
+
+    private void open(ResultHistory.Entry entry) {
+        ResultHistory h = history;
+        if (h == null) return;
+        executor.execute(() -> {
+            try {
+                IdentifyResult result = h.load(entry);
+                runOnUiThread(() -> {
+                    Intent intent = new Intent(this, ResultActivity.class);
+                    intent.putExtra(ResultActivity.EXTRA_RESULT, new IdentifyResultParcel(result));
+                    startActivity(intent);
+                });
+            } catch (Exception e) {
+                runOnUiThread(() -> tvStatus.setText("读取历史失败：" + e.getMessage()));
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mainHandler.removeCallbacks(queryTask);
+        // 不能 shutdownNow：中断正在读历史的线程会关闭共享的历史文件
+        executor.shutdown();
+    }
+
+    static class Holder extends RecyclerView.ViewHolder {
+        final TextView title;
+        final TextView detail;
+
+        Holder(View itemView) {
+            super(itemView);
+            title = itemView.findViewById(R.id.tvHistoryTitle);
+            detail = itemView.findViewById(R.id.tvHistoryDetail);
+        }
+    }
+
+    private class Adapter extends RecyclerView.Adapter<Holder> {
+        private final List<ResultHistory.Entry> items = new ArrayList<>();
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.ROOT);
+        private final Date date = new Date();
+
+        void set(List<ResultHistory.Entry> entries) {
+            items.clear();
+            items.addAll(entries);
+            notifyDataSetChanged();
+        }
+
+        void append(List<ResultHistory.Entry> entries) {
+            int start = items.size();
+            items.addAll(entries);
+            notifyItemRangeInserted(start, entries.size());
+        }
+
+        @Override
+        public Holder onCreateViewHolder(ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_history, parent, false);
+            return new Holder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(Holder holder, int position) {
+            ResultHistory.Entry e = items.get(position);
+            date.setTime(e.timeMs);
+            holder.title.setText(e.name + "  " + e.idNum);
+            holder.detail.setText(timeFormat.format(date) + "  " + e.address);
+            holder.itemView.setOnClickListener(v -> open(e));
+        }
+
+        @Override
+        public int getItemCount() {
+            return items.size();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.scanidcard;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Objects;
+
+/**
+ * {@link IdentifyResult} 的手写 Parcelable 形式，用于放进 Intent。
+ *
+ * 小字段逐个写入 Parcel（无反射）；超过 {@link #INLINE_LIMIT} 的大字段不随 Parcel 传递，
+ * 而是通过 {@link ResultStore} 的句柄在同一进程内取回。
+ */
+public class IdentifyResultParcel implements Parcelable {
+
+    /** 大字段内联的字符数上限 */
+    static final int INLINE_LIMIT = 8 * 1024;
+
+    private final IdentifyResult result;
+    private final long handle;
+
+    public IdentifyResultParcel(IdentifyResult result) {
+        this.result = result;
+        boolean large = length(result.getRawJson()) > INLINE_LIMIT || length(result.getAdvancedInfo()) > INLINE_LIMIT;
+        this.handle = large ? ResultStore.put(result) : 0;
+    }
+
+    private IdentifyResultParcel(Parcel in) {
+        IdentifyResult r = new IdentifyResult();
+        r.setErrorcode(in.readInt());
+        r.setErrormsg(in.readString());
+        r.setName(in.readString());
+        r.setSex(in.readString());
+        r.setNation(in.readString());
+        r.setBirth(in.readString());
+        r.setAddress(in.readString());
+        r.setIdNum(in.readString());
+        r.setAuthority(in.readString());
+        r.setValidDate(in.readString());
+        r.setRequestId(in.readString());
+        r.setCheckFlags(in.readInt());
+        handle = in.readLong();
+        if (handle == 0) {
+            r.setAdvancedInfo(in.readString());
+            r.setRawJson(in.readString());
+            result = r;
+        } else {
+            // 同一进程内直接取回完整结果；取不到（进程已重建）或不是同一条结果时只用小字段
+            IdentifyResult stored = ResultStore.get(handle);
+            boolean same = stored != null
+                    && Objects.equals(stored.getRequestId(), r.getRequestId())
+                    && Objects.equals(stored.getIdNum(), r.getIdNum());
+            result = same ? stored : r;
+        }
+    }
+
+    public IdentifyResult getResult() {
+        return result;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(result.getErrorcode());
+        dest.writeString(result.getErrormsg());
+        dest.writeString(result.getName());
+        dest.writeString(result.getSex());
+        dest.writeString(result.getNation());
+        dest.writeString(result.getBirth());
+        dest.writeString(result.getAddress());
+        dest.writeString(result.getIdNum());
+        dest.writeString(result.getAuthority());
+        dest.writeString(result.getValidDate());
+        dest.writeString(result.getRequestId());
+        dest.writeInt(result.getCheckFlags());
+        dest.writeLong(handle);
+        if (handle == 0) {
+            dest.writeString(result.getAdvancedInfo());
+            dest.writeString(result.getRawJson());
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<IdentifyResultParcel> CREATOR = new Creator<IdentifyResultParcel>() {
+        @Override
+        public IdentifyResultParcel createFromParcel(Parcel in) {
+            return new IdentifyResultParcel(in);
+        }
+
+        @Override
+        public IdentifyResultParcel[] newArray(int size) {
+            return new IdentifyResultParcel[size];
+        }
+    };
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+}
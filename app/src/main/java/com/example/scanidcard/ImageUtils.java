@@ -1,20 +1,69 @@
 package com.example.scanidcard;
 
+import android.app.ActivityManager;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
 import android.net.Uri;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
 /**
  * 读取 Uri 图片并压缩成 JPEG，避免身份证图片过大导致请求失败或内存溢出。
+ *
+ * 解码 / 缩放用的 Bitmap 来自 {@link BitmapPool}，JPEG 输出缓冲区来自 {@link BytePool}，
+ * 连续扫描时稳定状态下基本不再分配大块内存。
  */
 public class ImageUtils {
 
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    // 读尺寸时最多回退的字节数；JPEG 的 SOF 一般在前几十 KB（EXIF 缩略图之后）
+    private static final int HEADER_MARK_LIMIT = 1024 * 1024;
+    // 固定质量压缩时输出缓冲区的初始容量
+    private static final int DEFAULT_OUTPUT_BYTES = 256 * 1024;
+    private static final Paint SCALE_PAINT = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private static volatile BitmapPool bitmapPool = new BitmapPool(new BitmapPool.Config());
+    private static volatile BytePool bytePool = new BytePool(new BytePool.Config());
+    private static boolean poolsSized;
+
+    /**
+     * 按本机给应用的内存上限设置 Bitmap 池大小；只有第一次调用生效（Activity 重建时不清空池）
+     */
+    public static synchronized void configurePools(Context context) {
+        if (poolsSized) return;
+        poolsSized = true;
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        configurePools(BitmapPool.Config.forMemoryClass(am.getMemoryClass()), new BytePool.Config());
+    }
+
+    /**
+     * 修改 Bitmap 池和输出缓冲区池的数量 / 内存上限；旧池中的 Bitmap 立即回收
+     */
+    public static void configurePools(BitmapPool.Config bitmaps, BytePool.Config buffers) {
+        BitmapPool old = bitmapPool;
+        bitmapPool = new BitmapPool(bitmaps);
+        bytePool = new BytePool(buffers);
+        old.clear();
+    }
+
+    /**
+     * 释放池中缓存的 Bitmap（内存紧张时调用）
+     */
+    public static void trimPools() {
+        bitmapPool.clear();
+    }
+
+    static BitmapPool bitmapPool() {
+        return bitmapPool;
+    }
+
     /**
      * 将 Uri 图片压缩成 JPEG 的 byte[]（默认 max 1280x1280, quality=90）
      */
@@ -25,43 +74,180 @@ public class ImageUtils {
     public static byte[] readAndCompressJpeg(Context context, Uri uri, int maxWidth, int maxHeight, int quality)
             throws IOException {
 
-        ContentResolver cr = context.getContentResolver();
+        Bitmap bitmap = decodeForUpload(context, uri, maxWidth, maxHeight);
 
-        // 1) 先读尺寸
-        BitmapFactory.Options bounds = new BitmapFactory.Options();
-        bounds.inJustDecodeBounds = true;
-        InputStream is1 = cr.openInputStream(uri);
-        if (is1 == null) throw new IOException("无法打开图片输入流");
-        try {
-            BitmapFactory.decodeStream(is1, null, bounds);
+        // 3) 压缩成 JPEG
+        long t0 = System.nanoTime();
+        try (PooledByteStream out = new PooledByteStream(bytePool, DEFAULT_OUTPUT_BYTES)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+            ScanTrace.record(ScanMetrics.Stage.COMPRESS, t0, out.size());
+            return out.toByteArray();
         } finally {
-            try { is1.close(); } catch (Exception ignored) {}
+            bitmapPool.put(bitmap);
         }
+    }
 
-        int inSampleSize = calculateInSampleSize(bounds, maxWidth, maxHeight);
+    /**
+     * 按字节预算压缩：在 budget 约束下找出不超过 budget.maxBytes 的最高质量 / 最大尺寸（默认 max 1280x1280）。
+     *
+     * 若降到最低质量和最小分辨率仍超出预算，返回尝试过的最小结果。
+     * 返回大小正好的副本，可以长期持有；用完即弃的调用方用 {@link #compressForUpload} 省掉这次复制。
+     */
+    public static byte[] readAndCompressJpeg(Context context, Uri uri, JpegBudget budget) throws IOException {
+        try (PooledByteStream out = compressForUpload(context, uri, budget)) {
+            return out.toByteArray();
+        }
+    }
 
-        // 2) 重新按采样率解码
-        BitmapFactory.Options opts = new BitmapFactory.Options();
-        opts.inSampleSize = inSampleSize;
-        opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+    /**
+     * 同 {@link #readAndCompressJpeg(Context, Uri, JpegBudget)}，但直接返回池中的输出缓冲区：
+     * JPEG 是 array() 的前 size() 个字节。用完（请求发送完成）必须 close，把缓冲区还回池里。
+     */
+    public static PooledByteStream compressForUpload(Context context, Uri uri, JpegBudget budget) throws IOException {
+        Bitmap bitmap = decodeForUpload(context, uri, 1280, 1280);
+        BitmapPool pool = bitmapPool;
 
-        InputStream is2 = cr.openInputStream(uri);
-        if (is2 == null) throw new IOException("无法打开图片输入流");
-        Bitmap bitmap;
+        // 所有尝试共用一个输出缓冲区；同一尺寸下的多次质量尝试共用一张缩放后的 Bitmap
+        final PooledByteStream out = new PooledByteStream(bytePool, budget.maxBytes + budget.maxBytes / 4);
+        final Bitmap[] scaled = {bitmap};
+        final float[] scaledAt = {1f};
+        long t0 = System.nanoTime();
+        boolean done = false;
         try {
-            bitmap = BitmapFactory.decodeStream(is2, null, opts);
+            budget.search(Math.min(bitmap.getWidth(), bitmap.getHeight()), (scale, quality) -> {
+                // 每次压缩尝试之前检查是否已取消
+                OcrCall.checkCancelled();
+                if (scale != scaledAt[0]) {
+                    if (scaled[0] != bitmap) pool.put(scaled[0]);
+                    int w = Math.max(1, Math.round(bitmap.getWidth() * scale));
+                    int h = Math.max(1, Math.round(bitmap.getHeight() * scale));
+                    scaled[0] = scale == 1f ? bitmap : scale(pool, bitmap, w, h);
+                    scaledAt[0] = scale;
+                }
+                out.reset();
+                if (!scaled[0].compress(Bitmap.CompressFormat.JPEG, quality, out)) {
+                    throw new IOException("JPEG 压缩失败");
+                }
+                return out.size();
+            });
+            done = true;
         } finally {
-            try { is2.close(); } catch (Exception ignored) {}
+            if (scaled[0] != bitmap) pool.put(scaled[0]);
+            pool.put(bitmap);
+            if (!done) out.close();
+        }
+        ScanTrace.record(ScanMetrics.Stage.COMPRESS, t0, out.size());
+        return out;
+    }
+
+    /**
+     * 缩放到池中的 Bitmap 上（代替 createScaledBitmap，每次缩放不再新分配）
+     */
+    private static Bitmap scale(BitmapPool pool, Bitmap src, int width, int height) {
+        Bitmap dst = pool.getArgb(width, height);
+        new Canvas(dst).drawBitmap(src, null, new Rect(0, 0, width, height), SCALE_PAINT);
+        return dst;
+    }
+
+    /**
+     * 解码并做质量检查：模糊、过暗 / 过亮、反光的图片抛出 {@link FrameQuality.RejectedException}，不再上传
+     */
+    static Bitmap decodeForUpload(Context context, Uri uri, int maxWidth, int maxHeight) throws IOException {
+        Bitmap bitmap = decodeSampled(context, uri, maxWidth, maxHeight);
+        try {
+            QualityGate.check(bitmap);
+        } catch (IOException | RuntimeException e) {
+            bitmapPool.put(bitmap);
+            throw e;
         }
+        return bitmap;
+    }
 
-        if (bitmap == null) throw new IOException("图片解码失败（可能不是有效的图片文件）");
+    /**
+     * 按 inSampleSize 解码，使结果不小于 maxWidth x maxHeight 的一半。
+     *
+     * Uri 只打开一次：读尺寸前 mark，读完 reset 后在同一个流上正式解码。
+     * 云端 / 文档类 content:// 不会因此重复读取或重复下载。
+     *
+     * 结果是可变 Bitmap，尽量解码进池中的旧 Bitmap（inBitmap）；用完应还给 {@link #bitmapPool()}。
+     */
+    static Bitmap decodeSampled(Context context, Uri uri, int maxWidth, int maxHeight) throws IOException {
+        long t0 = System.nanoTime();
+        ContentResolver cr = context.getContentResolver();
 
-        // 3) 压缩成 JPEG
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, baos);
-        bitmap.recycle();
+        InputStream raw = cr.openInputStream(uri);
+        if (raw == null) throw new IOException("无法打开图片输入流");
+        BufferedInputStream is = new BufferedInputStream(raw, STREAM_BUFFER_BYTES);
+        try {
+            // 1) 先读尺寸（只消耗文件头部，之后回到开头）
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            is.mark(HEADER_MARK_LIMIT);
+            BitmapFactory.decodeStream(is, null, bounds);
+
+            int inSampleSize = calculateInSampleSize(bounds, maxWidth, maxHeight);
+            OcrCall.checkCancelled();
+
+            // 2) 按采样率解码
+            BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inSampleSize = inSampleSize;
+            opts.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            opts.inMutable = true;
+            BitmapPool pool = bitmapPool;
+            if (bounds.outWidth > 0 && bounds.outHeight > 0) {
+                // 采样后的尺寸按向上取整估计，容量宁大勿小
+                long w = (bounds.outWidth + inSampleSize - 1) / inSampleSize;
+                long h = (bounds.outHeight + inSampleSize - 1) / inSampleSize;
+                opts.inBitmap = pool.get(4 * w * h);
+            }
 
-        return baos.toByteArray();
+            Bitmap bitmap = tryReset(is) ? decodeInto(is, opts) : null;
+            if (bitmap == null) {
+                // 文件头超过 mark 上限（极少见，例如超大的 EXIF/XMP）、inBitmap 不可用或复用流解码失败：
+                // 不复用 Bitmap，重新打开一次
+                if (opts.inBitmap != null) {
+                    pool.put(opts.inBitmap);
+                    opts.inBitmap = null;
+                }
+                InputStream is2 = cr.openInputStream(uri);
+                if (is2 == null) throw new IOException("无法打开图片输入流");
+                try {
+                    bitmap = BitmapFactory.decodeStream(is2, null, opts);
+                } finally {
+                    try { is2.close(); } catch (Exception ignored) {}
+                }
+            }
+
+            if (bitmap == null) throw new IOException("图片解码失败（可能不是有效的图片文件）");
+            if (OcrCall.current() != null && OcrCall.current().isCancelled()) {
+                pool.put(bitmap);
+                OcrCall.checkCancelled();
+            }
+            ScanTrace.record(ScanMetrics.Stage.DECODE, t0, bitmap.getByteCount());
+            return bitmap;
+        } finally {
+            try { is.close(); } catch (Exception ignored) {}
+        }
+    }
+
+    /**
+     * inBitmap 与图片不匹配时 decodeStream 抛 IllegalArgumentException；按解码失败处理，由调用方不复用重试
+     */
+    private static Bitmap decodeInto(InputStream is, BitmapFactory.Options opts) {
+        try {
+            return BitmapFactory.decodeStream(is, null, opts);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean tryReset(InputStream is) {
+        try {
+            is.reset();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
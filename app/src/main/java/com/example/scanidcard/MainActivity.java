@@ -12,12 +12,15 @@ import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
-import android.widget.TextView;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import android.util.Log;
@@ -34,25 +37,46 @@ public class MainActivity extends AppCompatActivity {
     private static final String KEY_SECRET_ID = "secret_id";
     private static final String KEY_SECRET_KEY = "secret_key";
     private static final String KEY_REGION = "region";
+    /** 地域填 auto（或留空）时不指定地域：启用对冲时由延迟排名选择 */
+    private static final String AUTO_REGION = "auto";
+    // 界面日志最多保留的条数，更早的被覆盖
+    private static final int LOG_CAPACITY = 500;
 
     private EditText etSecretId;
     private EditText etSecretKey;
     private EditText etRegion;
 
     private Button btnPickImage;
+    private Button btnPickBack;
     private Button btnRecognize;
+    private Button btnBatch;
+    private Button btnHistory;
     private ProgressBar progress;
-    private TextView tvLog;
+    private final EventLog eventLog = new EventLog(LOG_CAPACITY);
+    private EventLogAdapter logAdapter;
     private ImageView ivPreview;
+    private ImageView ivPreviewBack;
 
     private RadioGroup rgCardSide;
     private RadioButton rbAuto;
     private RadioButton rbFront;
     private RadioButton rbBack;
+    private RadioButton rbDual;
 
     private Uri selectedImageUri;
+    private Uri selectedBackUri;
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // 第二个线程供正反面模式处理国徽面
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private BatchRecognizer batchRecognizer;
+    // 选图后立即在后台预处理，点击识别时直接取结果
+    private SpeculativePreparer frontPreparer;
+    private SpeculativePreparer backPreparer;
+    private OcrCall currentCall;
+    // 断网时保存压缩好的图片，网络恢复后补发；打开时要校验磁盘上的队列，在后台初始化
+    private volatile OfflineQueue offlineQueue;
+    private volatile ResultHistory history;
 
     private final ActivityResultLauncher<String> pickImageLauncher =
             registerForActivityResult(new ActivityResultContracts.GetContent(), uri -> {
@@ -60,6 +84,28 @@ public class MainActivity extends AppCompatActivity {
                     selectedImageUri = uri;
                     ivPreview.setImageURI(uri);
                     appendLog("已选择图片: " + uri);
+                    frontPreparer.start(uri, frontCardSide());
+                } else {
+                    appendLog("未选择图片");
+                }
+            });
+
+    private final ActivityResultLauncher<String> pickBackLauncher =
+            registerForActivityResult(new ActivityResultContracts.GetContent(), uri -> {
+                if (uri != null) {
+                    selectedBackUri = uri;
+                    ivPreviewBack.setImageURI(uri);
+                    appendLog("已选择国徽面图片: " + uri);
+                    backPreparer.start(uri, DualSideSession.BACK);
+                } else {
+                    appendLog("未选择图片");
+                }
+            });
+
+    private final ActivityResultLauncher<String> pickBatchLauncher =
+            registerForActivityResult(new ActivityResultContracts.GetMultipleContents(), uris -> {
+                if (uris != null && !uris.isEmpty()) {
+                    doBatchRecognize(uris);
                 } else {
                     appendLog("未选择图片");
                 }
@@ -70,27 +116,54 @@ public class MainActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        ImageUtils.configurePools(this);
+        frontPreparer = new SpeculativePreparer(this);
+        backPreparer = new SpeculativePreparer(this);
+
         // 安全日志（避免空指针）
         Log.d("ENV", "sidLen=" + (BuildConfig.TENCENT_SECRET_ID == null ? -1 : BuildConfig.TENCENT_SECRET_ID.length()));
 
+        // 调试包在结果页显示原始返回 JSON
+        TencentOcrClient.setDebug(BuildConfig.DEBUG);
+
+        // 配置了对冲地域时，慢请求在另一个地域对冲，避免一次卡顿让操作员等满超时（多发的请求同样计费）
+        if (!BuildConfig.TENCENT_HEDGE_REGIONS.trim().isEmpty()) {
+            try {
+                enableHedging(BuildConfig.TENCENT_HEDGE_REGIONS);
+            } catch (IOException e) {
+                Log.w("OCR", "对冲未启用：" + e.getMessage());
+            }
+        }
+
         etSecretId = findViewById(R.id.etSecretId);
         etSecretKey = findViewById(R.id.etSecretKey);
         etRegion = findViewById(R.id.etRegion);
 
         btnPickImage = findViewById(R.id.btnPickImage);
+        btnPickBack = findViewById(R.id.btnPickBack);
         btnRecognize = findViewById(R.id.btnRecognize);
+        btnBatch = findViewById(R.id.btnBatch);
+        btnHistory = findViewById(R.id.btnHistory);
         progress = findViewById(R.id.progress);
-        tvLog = findViewById(R.id.tvLog);
+        logAdapter = new EventLogAdapter(eventLog);
+        logAdapter.attach(findViewById(R.id.rvLog));
+
+        executor.execute(this::openHistory);
+        executor.execute(this::openOfflineQueue);
         ivPreview = findViewById(R.id.ivPreview);
+        ivPreviewBack = findViewById(R.id.ivPreviewBack);
 
         rgCardSide = findViewById(R.id.rgCardSide);
         rbAuto = findViewById(R.id.rbAuto);
         rbFront = findViewById(R.id.rbFront);
         rbBack = findViewById(R.id.rbBack);
+        rbDual = findViewById(R.id.rbDual);
 
         // 读取上次输入：只保留 region（密钥不再本地保存/回填）
         SharedPreferences sp = getSharedPreferences(SP_NAME, MODE_PRIVATE);
-        etRegion.setText(sp.getString(KEY_REGION, "ap-guangzhou"));
+        // 配置了对冲地域时默认由延迟排名选地域
+        etRegion.setText(sp.getString(KEY_REGION,
+                BuildConfig.TENCENT_HEDGE_REGIONS.trim().isEmpty() ? "ap-guangzhou" : AUTO_REGION));
 
         // 密钥从 BuildConfig 读取，不需要用户输入（禁用输入框避免误操作）
         etSecretId.setText("已从.env加载");
@@ -104,21 +177,68 @@ public class MainActivity extends AppCompatActivity {
             pickImageLauncher.launch("image/*");
         });
 
+        btnPickBack.setOnClickListener(v -> {
+            appendLog("点击：选择国徽面图片");
+            pickBackLauncher.launch("image/*");
+        });
+
+        // 正反面模式才显示国徽面的选择按钮和预览
+        rgCardSide.setOnCheckedChangeListener((group, checkedId) -> {
+            int visibility = checkedId == R.id.rbDual ? View.VISIBLE : View.GONE;
+            btnPickBack.setVisibility(visibility);
+            ivPreviewBack.setVisibility(visibility);
+            // 证件面是请求体的一部分：按新的证件面重新预处理（JPEG 复用）
+            if (selectedImageUri != null) frontPreparer.start(selectedImageUri, frontCardSide());
+        });
+
         btnRecognize.setOnClickListener(v -> {
             appendLog("点击：开始识别");
             doRecognize();
         });
 
+        btnBatch.setOnClickListener(v -> {
+            appendLog("点击：批量识别");
+            pickBatchLauncher.launch("image/*");
+        });
+
+        btnHistory.setOnClickListener(v -> startActivity(new Intent(this, HistoryActivity.class)));
+
         // ✅放最后：确保按钮可点
         setLoading(false);
     }
 
 
+    /**
+     * 传输层是进程级的，Activity 重建时不要重复包装
+     *
+     * @param regions 逗号分隔的地域
+     */
+    private static synchronized void enableHedging(String regions) throws IOException {
+        OcrTransport transport = TencentOcrClient.getTransport();
+        if (!(transport instanceof HedgingTransport)) {
+            HedgingTransport.Config config = new HedgingTransport.Config();
+            List<String> list = new ArrayList<>();
+            for (String r : regions.split(",")) {
+                if (!r.trim().isEmpty()) list.add(r.trim());
+            }
+            config.regions = list;
+            TencentOcrClient.setTransport(new HedgingTransport(transport, config));
+        }
+    }
+
+    /**
+     * 输入框中的地域；auto 返回空串（请求不带 X-TC-Region）
+     */
+    private String region() {
+        String region = etRegion.getText() != null ? etRegion.getText().toString().trim() : "";
+        return AUTO_REGION.equalsIgnoreCase(region) ? "" : region;
+    }
+
     private void doRecognize() {
         String secretId = BuildConfig.TENCENT_SECRET_ID;
         String secretKey = BuildConfig.TENCENT_SECRET_KEY;
 
-        String region = etRegion.getText() != null ? etRegion.getText().toString().trim() : "";
+        String region = region();
 
             if (TextUtils.isEmpty(secretId) || TextUtils.isEmpty(secretKey)) {
                 appendLog("未读取到 .env 中的 SecretId/SecretKey，请检查根目录 .env 是否存在且已填写");
@@ -130,10 +250,16 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
+        final boolean dual = rbDual.isChecked();
+        if (dual && selectedBackUri == null) {
+            appendLog("正反面模式请再选择国徽面图片");
+            return;
+        }
+
         // 保存到 SharedPreferences（仅为便捷，真实项目不建议明文保存）
             getSharedPreferences(SP_NAME, MODE_PRIVATE)
                     .edit()
-                    .putString(KEY_REGION, region)
+                    .putString(KEY_REGION, region.isEmpty() ? AUTO_REGION : region)
                     .apply();
 
 
@@ -145,37 +271,230 @@ public class MainActivity extends AppCompatActivity {
         appendLog("开始识别，正在压缩图片并构造请求...");
 
         final String finalCardSide = cardSide;
-        executor.execute(() -> {
-            IdentifyResult result;
+        final Uri frontUri = selectedImageUri;
+        final Uri backUri = selectedBackUri;
+        // 退出页面时取消：断开进行中的连接，压缩 / 编码在下一个检查点停止
+        currentCall = OcrCall.submit(executor, call -> {
+            ScanTrace trace = new ScanTrace();
+            trace.attach();
             try {
-                // 1) 图片压缩 + Base64
-                String base64 = ImageUtils.readAsBase64(this, selectedImageUri);
+                // 调用腾讯云 OCR（同一张图片已识别过则直接取缓存结果）；与批量任务共用 QPS 配额，单张识别优先
+                DualSideSession.SideRecognizer direct = (jpeg, side) -> OcrScheduler.getDefault().call(
+                        OcrScheduler.Priority.INTERACTIVE, () -> TencentOcrClient.execute(TencentOcrClient.prepare(
+                                secretId, secretKey, region, bodyFor(jpeg, side))));
+                // 缓存只是加速手段：打不开（KeyStore、磁盘出错）时直接识别，不让整次识别失败
+                ResultCache cache;
+                try {
+                    cache = ResultCaches.get(this);
+                } catch (Exception e) {
+                    cache = null;
+                    appendLog("结果缓存不可用：" + e.getMessage());
+                }
+                final ResultCache finalCache = cache;
+                DualSideSession.SideRecognizer online = cache == null ? direct
+                        : (jpeg, side) -> finalCache.get(ResultCache.key(jpeg, side), () -> direct.recognize(jpeg, side));
+                // 网络错误时把已压缩的 JPEG 放进离线队列，不用重新选图
+                DualSideSession.SideRecognizer recognizer = (jpeg, side) -> {
+                    try {
+                        return online.recognize(jpeg, side);
+                    } catch (IOException e) {
+                        OfflineQueue queue = offlineQueue;
+                        if (call.isCancelled() || queue == null) throw e;
+                        int queued = queue.enqueue(jpeg, side, region);
+                        IdentifyResult r = new IdentifyResult();
+                        r.setErrorcode(1);
+                        r.setErrormsg("网络不可用（" + e.getMessage() + "），已加入离线队列（排队 " + queued
+                                + " 张），恢复后自动补发");
+                        return r;
+                    }
+                };
+
+                IdentifyResult result;
+                if (dual) {
+                    // 两面同时压缩、签名、请求，合并成一条结果（耗时记录的是人像面）
+                    appendLog("正反面同时识别...");
+                    result = DualSideSession.recognize(executor,
+                            () -> loadJpeg(frontPreparer, frontUri, DualSideSession.FRONT),
+                            () -> loadJpeg(backPreparer, backUri, DualSideSession.BACK),
+                            recognizer);
+                } else {
+                    // 图片压缩（Base64 在发送时流式编码，不再生成完整字符串）
+                    byte[] jpeg = loadJpeg(frontPreparer, frontUri, finalCardSide);
+                    call.throwIfCancelled();
 
-                appendLogOnUi("图片 Base64 已生成（长度=" + base64.length() + "），开始请求腾讯云 OCR...");
+                    appendLog("图片已压缩（JPEG " + jpeg.length + " 字节），开始请求腾讯云 OCR...");
+                    result = recognizer.recognize(jpeg, finalCardSide);
+                }
 
-                // 2) 调用腾讯云 OCR
-                result = TencentOcrClient.idCardOcr(secretId, secretKey, region, base64, finalCardSide);
+                if (cache != null) {
+                    ResultCache.Stats stats = cache.stats();
+                    appendLog("结果缓存：命中 " + stats.hits() + "，未命中 " + stats.misses
+                            + "，合并请求 " + stats.coalesced);
+                }
 
-            } catch (Exception e) {
-                result = new IdentifyResult();
-                result.setErrorcode(1);
-                result.setErrormsg("识别失败：" + e.getMessage());
+                OcrTransport transport = TencentOcrClient.getTransport();
+                if (transport instanceof HedgingTransport) {
+                    HedgingTransport.Stats hs = ((HedgingTransport) transport).stats();
+                    appendLog("对冲：阈值 " + hs.delayMs + " ms，已对冲 " + hs.hedged + "/" + hs.requests
+                            + "，对冲胜出 " + hs.hedgeWins + "，限流未对冲 " + hs.skipped);
+                }
+                return result;
+
+            } finally {
+                ScanTrace.detach();
+                if (!call.isCancelled()) {
+                    // 分阶段耗时；汇总的分位数见 logcat（ScanMetrics）
+                    trace.finish(ScanMetrics.global());
+                    appendLog("耗时：" + trace);
+                    Log.d("ScanMetrics", ScanMetrics.global().dump());
+                }
+            }
+        }, result -> runOnUiThread(() -> {
+            setLoading(false);
+            saveToHistory(result);
+
+            if (result.getErrorcode() == 0 && result.getCheckFlags() != 0) {
+                // 号码校验不通过基本是识别错了字，提示立即重拍
+                eventLog.add(EventLog.Level.WARN, "识别结果校验未通过（"
+                        + IdCardValidator.describe(result.getCheckFlags()) + "），请重新拍摄清晰的人像面");
+            } else if (result.getErrorcode() == 0) {
+                appendLog("识别成功，跳转结果页");
+            } else {
+                appendLog("识别失败：" + result.getErrormsg());
             }
 
-            IdentifyResult finalResult = result;
-            runOnUiThread(() -> {
-                setLoading(false);
+            Intent intent = new Intent(MainActivity.this, ResultActivity.class);
+            intent.putExtra(ResultActivity.EXTRA_RESULT, new IdentifyResultParcel(result));
+            startActivity(intent);
+        }));
+    }
 
-                if (finalResult.getErrorcode() == 0) {
-                    appendLog("识别成功，跳转结果页");
+    private void openOfflineQueue() {
+        try {
+            OfflineQueue queue = OfflineQueue.get(this);
+            queue.setCredentials(BuildConfig.TENCENT_SECRET_ID, BuildConfig.TENCENT_SECRET_KEY);
+            queue.setListener((job, result) -> {
+                saveToHistory(result);
+                if (result.getErrorcode() == 0) {
+                    appendLog("离线补发成功：" + result.getName() + " " + result.getIdNum());
                 } else {
-                    appendLog("识别失败：" + finalResult.getErrormsg());
+                    appendLog("离线补发失败：" + result.getErrormsg());
                 }
-
-                Intent intent = new Intent(MainActivity.this, ResultActivity.class);
-                intent.putExtra(ResultActivity.EXTRA_RESULT, finalResult);
-                startActivity(intent);
             });
+            offlineQueue = queue;
+            if (queue.size() > 0) {
+                appendLog("离线队列中有 " + queue.size() + " 张待补发");
+                queue.drainNow();
+            }
+        } catch (Exception e) {
+            Log.w("OCR", "离线队列不可用：" + e.getMessage());
+        }
+    }
+
+    private void openHistory() {
+        try {
+            history = ResultHistories.get(this);
+        } catch (Exception e) {
+            Log.w("OCR", "识别历史不可用：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 写入识别历史（不阻塞；失败和校验未通过的结果不保存）
+     */
+    private void saveToHistory(IdentifyResult result) {
+        ResultHistory h = history;
+        if (h != null) h.append(result);
+    }
+
+    /**
+     * 正反面模式下人像面固定为 FRONT，其他模式取单选框
+     */
+    private String frontCardSide() {
+        if (rbDual.isChecked() || rbFront.isChecked()) return DualSideSession.FRONT;
+        if (rbBack.isChecked()) return DualSideSession.BACK;
+        return null;
+    }
+
+    /**
+     * 优先用选图时预处理好的 JPEG（还在处理时等它完成），没有再现场解码压缩
+     */
+    private byte[] loadJpeg(SpeculativePreparer preparer, Uri uri, String cardSide) throws Exception {
+        SpeculativePreparer.Prepared prepared = preparer.take(uri, cardSide);
+        if (prepared != null) {
+            appendLog("使用选图时的预处理结果（JPEG " + prepared.jpeg.length + " 字节）");
+            return prepared.jpeg;
+        }
+        return ImageUtils.readAndCompressJpeg(this, uri, JpegBudget.forUpload());
+    }
+
+    /**
+     * 预处理时已算好摘要的请求体；否则新建（发送前计算摘要）
+     */
+    private OcrRequestBody bodyFor(byte[] jpeg, String cardSide) {
+        OcrRequestBody body = frontPreparer.bodyFor(jpeg, cardSide);
+        if (body == null) body = backPreparer.bodyFor(jpeg, cardSide);
+        return body != null ? body : new OcrRequestBody(jpeg, cardSide);
+    }
+
+    /**
+     * 批量识别：多张图片流水线处理，只记录日志，不逐张跳转结果页
+     */
+    private void doBatchRecognize(List<Uri> uris) {
+        String secretId = BuildConfig.TENCENT_SECRET_ID;
+        String secretKey = BuildConfig.TENCENT_SECRET_KEY;
+        String region = region();
+
+        if (TextUtils.isEmpty(secretId) || TextUtils.isEmpty(secretKey)) {
+            appendLog("未读取到 .env 中的 SecretId/SecretKey，请检查根目录 .env 是否存在且已填写");
+            return;
+        }
+
+        String cardSide = null;
+        if (rbFront.isChecked()) cardSide = "FRONT";
+        else if (rbBack.isChecked()) cardSide = "BACK";
+
+        setLoading(true);
+        appendLog("开始批量识别，共 " + uris.size() + " 张");
+
+        final int total = uris.size();
+        ResultCache cache;
+        try {
+            cache = ResultCaches.get(this);
+        } catch (Exception e) {
+            cache = null;
+            appendLog("结果缓存不可用：" + e.getMessage());
+        }
+        batchRecognizer = new BatchRecognizer(this, new BatchRecognizer.Config(), cache,
+                secretId, secretKey, region, cardSide);
+        batchRecognizer.start(uris, new BatchRecognizer.Listener() {
+            @Override
+            public void onItemFinished(int index, Uri uri, IdentifyResult result) {
+                saveToHistory(result);
+                String prefix = "[" + (index + 1) + "/" + total + "] ";
+                if (result.getErrorcode() == 0 && result.getCheckFlags() != 0) {
+                    eventLog.add(EventLog.Level.WARN, prefix + result.getName() + " " + result.getIdNum()
+                            + "，校验未通过：" + IdCardValidator.describe(result.getCheckFlags()) + "，需重拍");
+                } else if (result.getErrorcode() == 0) {
+                    appendLog(prefix + result.getName() + " " + result.getIdNum());
+                } else {
+                    appendLog(prefix + "失败：" + result.getErrormsg());
+                }
+            }
+
+            @Override
+            public void onBatchFinished(BatchRecognizer.Stats stats) {
+                Log.d("ScanMetrics", ScanMetrics.global().dump());
+                runOnUiThread(() -> {
+                    setLoading(false);
+                    appendLog(String.format(Locale.ROOT,
+                            "批量识别完成：成功 %d（缓存命中 %d），失败 %d，总耗时 %d ms，吞吐 %.2f 张/秒"
+                                    + "（累计：解码压缩 %d ms，签名 %d ms，网络 %d ms）",
+                            stats.succeeded, stats.cacheHits, stats.failed, stats.elapsedMs,
+                            stats.imagesPerSecond(),
+                            stats.decodeMs, stats.signMs, stats.networkMs));
+                });
+            }
         });
     }
 
@@ -183,22 +502,35 @@ public class MainActivity extends AppCompatActivity {
         progress.setVisibility(loading ? View.VISIBLE : View.GONE);
         btnRecognize.setEnabled(!loading);
         btnPickImage.setEnabled(!loading);
+        btnPickBack.setEnabled(!loading);
+        btnBatch.setEnabled(!loading);
     }
 
 
+    /**
+     * 任意线程可调用；界面按批刷新
+     */
     private void appendLog(String msg) {
-        String old = tvLog.getText() != null ? tvLog.getText().toString() : "";
-        tvLog.setText(old + "\n" + msg);
+        eventLog.add(msg);
     }
 
-    private void appendLogOnUi(String msg) {
-        runOnUiThread(() -> appendLog(msg));
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        // 退到后台或内存紧张时不再留着复用的 Bitmap
+        if (level >= TRIM_MEMORY_RUNNING_LOW) ImageUtils.trimPools();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        // 防止线程泄漏
+        logAdapter.detach();
+        if (offlineQueue != null) offlineQueue.setListener(null);
+        // 防止线程泄漏：先取消进行中的识别（断开连接），再停线程池
+        if (currentCall != null) currentCall.cancel();
+        frontPreparer.shutdown();
+        backPreparer.shutdown();
         executor.shutdownNow();
+        if (batchRecognizer != null) batchRecognizer.shutdown();
     }
 }
@@ -0,0 +1,145 @@
+package com.example.scanidcard;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内共享的离线队列（{@link JobQueue}）：目录在 filesDir 下（不会被系统当缓存清掉），密钥保存在 AndroidKeyStore。
+ *
+ * 网络恢复（NetworkCallback）时立即在后台线程补发；网络在但仍然失败（超时、限流）时按指数退避重试。
+ * 队列里不保存 SecretId / SecretKey，补发使用 {@link #setCredentials} 设置的当前密钥。
+ */
+public class OfflineQueue {
+
+    private static final String KEY_ALIAS = "scanidcard_job_queue";
+    private static final long MIN_RETRY_MS = 30_000L;
+    private static final long MAX_RETRY_MS = 10 * 60_000L;
+
+    private static OfflineQueue instance;
+
+    private final JobQueue queue;
+    private final ResultCache cache;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor();
+
+    private volatile String secretId;
+    private volatile String secretKey;
+    private volatile JobQueue.Listener listener;
+
+    // 以下只在 worker 线程访问
+    private long retryMs = MIN_RETRY_MS;
+    private ScheduledFuture<?> retry;
+
+    public static synchronized OfflineQueue get(Context context) throws Exception {
+        if (instance == null) {
+            Context app = context.getApplicationContext();
+            ResultCache cache;
+            try {
+                cache = ResultCaches.get(app);
+            } catch (Exception e) {
+                cache = null;
+            }
+            JobQueue queue = new JobQueue(new JobQueue.Config(), new File(app.getFilesDir(), "ocr_jobs"),
+                    ResultCaches.getOrCreateKey(KEY_ALIAS));
+            instance = new OfflineQueue(app, queue, cache);
+        }
+        return instance;
+    }
+
+    private OfflineQueue(Context context, JobQueue queue, ResultCache cache) {
+        this.queue = queue;
+        this.cache = cache;
+
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm != null) {
+            cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    drainNow();
+                }
+            });
+        }
+    }
+
+    public void setCredentials(String secretId, String secretKey) {
+        this.secretId = secretId;
+        this.secretKey = secretKey;
+    }
+
+    /**
+     * 补发结果的回调（在后台线程）；传 null 取消
+     */
+    public void setListener(JobQueue.Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 保存压缩好的 JPEG，稍后补发
+     *
+     * @return 入队后的排队张数
+     */
+    public int enqueue(byte[] jpeg, String cardSide, String region) throws IOException {
+        queue.enqueue(jpeg, cardSide, region);
+        worker.execute(this::scheduleRetry);
+        return queue.size();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * 立即在后台补发（有排队时）
+     */
+    public void drainNow() {
+        worker.execute(() -> {
+            retryMs = MIN_RETRY_MS;
+            drain();
+        });
+    }
+
+    private void drain() {
+        if (retry != null) {
+            retry.cancel(false);
+            retry = null;
+        }
+        String id = secretId;
+        String key = secretKey;
+        if (queue.size() == 0 || id == null || key == null) return;
+
+        try {
+            int done = queue.drain(job -> send(id, key, job), (job, result) -> {
+                JobQueue.Listener l = listener;
+                if (l != null) l.onJobFinished(job, result);
+            });
+            if (done > 0) retryMs = MIN_RETRY_MS;
+        } catch (InterruptedException e) {
+            return;
+        } catch (IOException e) {
+            Log.w("OCR", "离线队列补发失败：" + e.getMessage());
+        }
+        if (queue.size() > 0) scheduleRetry();
+    }
+
+    private IdentifyResult send(String id, String key, JobQueue.Job job) throws Exception {
+        // 补发排在单张识别之后；成功结果写入缓存，重新扫同一张图时直接命中
+        JobQueue.Sender direct = j -> OcrScheduler.getDefault().call(OcrScheduler.Priority.BATCH,
+                () -> TencentOcrClient.idCardOcr(id, key, j.region, j.jpeg, j.cardSide));
+        if (cache == null) return direct.send(job);
+        return cache.get(ResultCache.key(job.jpeg, job.cardSide), () -> direct.send(job));
+    }
+
+    private void scheduleRetry() {
+        if (retry != null && !retry.isDone()) return;
+        retry = worker.schedule(this::drain, retryMs, TimeUnit.MILLISECONDS);
+        retryMs = Math.min(MAX_RETRY_MS, retryMs * 2);
+    }
+}
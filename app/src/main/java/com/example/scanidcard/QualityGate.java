@@ -0,0 +1,54 @@
+package com.example.scanidcard;
+
+import android.graphics.Bitmap;
+
+/**
+ * 解码后、压缩前的质量检查（{@link FrameQuality} 的 Bitmap 适配）。
+ *
+ * 每个线程复用一个分析器：像素用 getPixels 逐行读进分析器的行缓冲区，不复制整张图。
+ */
+public class QualityGate implements FrameQuality.RowSource {
+
+    private static volatile FrameQuality.Config config = new FrameQuality.Config();
+    private static final ThreadLocal<QualityGate> LOCAL = new ThreadLocal<>();
+
+    private final FrameQuality analyzer;
+    private Bitmap bitmap;
+
+    private QualityGate(FrameQuality.Config config) {
+        this.analyzer = new FrameQuality(config);
+    }
+
+    /**
+     * 修改阈值；传 null 关闭检查
+     */
+    public static void setConfig(FrameQuality.Config config) {
+        QualityGate.config = config;
+    }
+
+    /**
+     * 不合格时抛出 {@link FrameQuality.RejectedException}，消息里带原因，可直接展示给用户
+     */
+    public static void check(Bitmap bitmap) throws FrameQuality.RejectedException {
+        FrameQuality.Config cfg = config;
+        if (cfg == null) return;
+
+        QualityGate gate = LOCAL.get();
+        if (gate == null || gate.analyzer.config() != cfg) {
+            gate = new QualityGate(cfg);
+            LOCAL.set(gate);
+        }
+
+        gate.bitmap = bitmap;
+        try {
+            gate.analyzer.analyze(bitmap.getWidth(), bitmap.getHeight(), gate).throwIfRejected();
+        } finally {
+            gate.bitmap = null;
+        }
+    }
+
+    @Override
+    public void readRow(int y, int[] dst) {
+        bitmap.getPixels(dst, 0, bitmap.getWidth(), 0, y, bitmap.getWidth(), 1);
+    }
+}
@@ -45,13 +45,18 @@ public class ResultActivity extends AppCompatActivity {
         tvRequestId = findViewById(R.id.tvRequestId);
         tvRawJson = findViewById(R.id.tvRawJson);
 
-        IdentifyResult result = (IdentifyResult) getIntent().getSerializableExtra(EXTRA_RESULT);
-        if (result == null) {
+        IdentifyResultParcel parcel = getIntent().getParcelableExtra(EXTRA_RESULT);
+        if (parcel == null) {
             tvStatus.setText("未获取到识别结果");
             return;
         }
+        IdentifyResult result = parcel.getResult();
 
-        if (result.getErrorcode() == 0) {
+        if (result.getErrorcode() == 0 && result.getCheckFlags() != 0) {
+            tvStatus.setText("识别成功，但校验未通过");
+            tvError.setVisibility(View.VISIBLE);
+            tvError.setText(IdCardValidator.describe(result.getCheckFlags()) + "，请返回重新拍摄");
+        } else if (result.getErrorcode() == 0) {
             tvStatus.setText("识别成功");
             tvError.setVisibility(View.GONE);
         } else {
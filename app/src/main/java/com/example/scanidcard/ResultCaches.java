@@ -0,0 +1,51 @@
+package com.example.scanidcard;
+
+import android.content.Context;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import java.io.File;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * 进程内共享的 {@link ResultCache}：目录在 cacheDir 下，密钥保存在 AndroidKeyStore 中（不落盘）。
+ */
+public class ResultCaches {
+
+    private static final String KEY_ALIAS = "scanidcard_result_cache";
+    private static final String KEYSTORE = "AndroidKeyStore";
+
+    private static ResultCache instance;
+
+    public static synchronized ResultCache get(Context context) throws Exception {
+        if (instance == null) {
+            File dir = new File(context.getApplicationContext().getCacheDir(), "ocr_results");
+            instance = new ResultCache(new ResultCache.Config(), dir, getOrCreateKey(KEY_ALIAS));
+        }
+        return instance;
+    }
+
+    /**
+     * AndroidKeyStore 中的 AES-256 密钥，不存在时生成（离线队列也用它，别名不同）
+     */
+    static SecretKey getOrCreateKey(String alias) throws Exception {
+        KeyStore ks = KeyStore.getInstance(KEYSTORE);
+        ks.load(null);
+        KeyStore.Entry entry = ks.getEntry(alias, null);
+        if (entry instanceof KeyStore.SecretKeyEntry) {
+            return ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+        }
+
+        KeyGenerator gen = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, KEYSTORE);
+        gen.init(new KeyGenParameterSpec.Builder(alias,
+                KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                .setKeySize(256)
+                .build());
+        return gen.generateKey();
+    }
+}
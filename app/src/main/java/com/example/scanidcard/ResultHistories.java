@@ -0,0 +1,29 @@
+package com.example.scanidcard;
+
+import android.content.Context;
+
+import java.io.File;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 进程内共享的 {@link ResultHistory}：目录在 filesDir 下。AndroidKeyStore 中的密钥只用来解开数据密钥
+ * （见 {@link ResultHistory#dataKey}），每条记录用数据密钥加解密，不会逐条调用 KeyStore。
+ *
+ * 第一次打开要解密全部历史重建索引（十万条约一秒），只在后台线程调用 {@link #get}。
+ */
+public class ResultHistories {
+
+    private static final String KEY_ALIAS = "scanidcard_history";
+
+    private static ResultHistory instance;
+
+    public static synchronized ResultHistory get(Context context) throws Exception {
+        if (instance == null) {
+            File dir = new File(context.getApplicationContext().getFilesDir(), "history");
+            SecretKey key = ResultHistory.dataKey(dir, ResultCaches.getOrCreateKey(KEY_ALIAS));
+            instance = new ResultHistory(new ResultHistory.Config(), dir, key);
+        }
+        return instance;
+    }
+}
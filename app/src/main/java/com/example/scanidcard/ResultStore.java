@@ -0,0 +1,42 @@
+package com.example.scanidcard;
+
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内的结果暂存区：Activity 之间只传一个 long 句柄，大字段（原始 JSON、AdvancedInfo）留在内存里，
+ * 不经过 Binder，避免 TransactionTooLargeException。
+ *
+ * 只保留最近的若干条；进程被杀后句柄失效，取不到时由调用方降级处理。
+ * 句柄是随机 64 位数：进程重建后的新句柄不会和 Intent 里残留的旧句柄撞上，旧句柄取不到别人的结果。
+ */
+public class ResultStore {
+
+    private static final int MAX_ENTRIES = 8;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private static final Map<Long, IdentifyResult> results = new LinkedHashMap<Long, IdentifyResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, IdentifyResult> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public static synchronized long put(IdentifyResult result) {
+        long handle;
+        do {
+            handle = random.nextLong();
+        } while (handle == 0 || results.containsKey(handle));
+        results.put(handle, result);
+        return handle;
+    }
+
+    /**
+     * @return 句柄对应的结果；已被淘汰或进程重建后返回 null
+     */
+    public static synchronized IdentifyResult get(long handle) {
+        return results.get(handle);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.scanidcard;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 选图后的预处理：用户点击"开始识别"之前，后台先完成解码、压缩和请求体摘要（完整的一遍 Base64 编码），
+ * 同时预热到 OCR 服务器的连接。点击之后只剩签名和网络往返。
+ *
+ * 图片或证件面变化时取消正在进行的预处理；只有证件面变化时复用已压缩的 JPEG，只重算摘要。
+ * 预处理发生在点击之前，不计入 {@link ScanTrace} 的耗时。
+ */
+public class SpeculativePreparer {
+
+    /**
+     * 与 (uri, cardSide) 对应的预处理结果
+     */
+    public static class Prepared {
+        public final Uri uri;
+        public final String cardSide;
+        public final byte[] jpeg;
+        /** 摘要已算好的请求体 */
+        public final OcrRequestBody body;
+
+        Prepared(Uri uri, String cardSide, byte[] jpeg, OcrRequestBody body) {
+            this.uri = uri;
+            this.cardSide = cardSide;
+            this.jpeg = jpeg;
+            this.body = body;
+        }
+    }
+
+    // 连接池里的空闲连接几分钟后才回收，间隔内不重复预热
+    private static final long WARM_UP_INTERVAL_MS = 60_000L;
+    private static volatile long lastWarmUpMs;
+
+    private final Context context;
+    // 一个线程预热连接，一个线程解码压缩，两者同时进行
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    private Uri uri;
+    private String cardSide;
+    private OcrCall call;
+    private Future<Prepared> future;
+    private volatile Prepared last;
+
+    public SpeculativePreparer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * 开始预处理；与正在进行的目标相同时什么也不做，不同则先取消旧的
+     */
+    public synchronized void start(Uri uri, String cardSide) {
+        if (future != null && matches(uri, cardSide)) return;
+        cancel();
+        this.uri = uri;
+        this.cardSide = cardSide;
+
+        warmUpIfIdle();
+
+        OcrCall c = new OcrCall();
+        Prepared previous = last;
+        call = c;
+        future = executor.submit(() -> {
+            c.attach();
+            try {
+                byte[] jpeg = previous != null && previous.uri.equals(uri)
+                        ? previous.jpeg
+                        : ImageUtils.readAndCompressJpeg(context, uri, JpegBudget.forUpload());
+                OcrRequestBody body = new OcrRequestBody(jpeg, cardSide);
+                body.sha256Hex();
+                Prepared p = new Prepared(uri, cardSide, jpeg, body);
+                last = p;
+                return p;
+            } finally {
+                OcrCall.detach();
+            }
+        });
+    }
+
+    /**
+     * 取 (uri, cardSide) 的预处理结果，还在进行时等它完成。
+     *
+     * @return 目标不匹配或预处理失败时返回 null，由调用方重新处理；图片质量不合格时直接抛出原因
+     */
+    public Prepared take(Uri uri, String cardSide) throws InterruptedException, IOException {
+        Future<Prepared> f;
+        synchronized (this) {
+            if (future == null || !matches(uri, cardSide)) return null;
+            f = future;
+        }
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FrameQuality.RejectedException) {
+                throw (FrameQuality.RejectedException) e.getCause();
+            }
+            return null;
+        } catch (CancellationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 预处理好的请求体；jpeg 不是预处理得到的那一份时返回 null
+     */
+    public OcrRequestBody bodyFor(byte[] jpeg, String cardSide) {
+        Prepared p = last;
+        return p != null && p.jpeg == jpeg && Objects.equals(p.cardSide, cardSide) ? p.body : null;
+    }
+
+    /**
+     * 取消正在进行的预处理（已完成的结果保留，供复用 JPEG）
+     */
+    public synchronized void cancel() {
+        if (call != null) call.cancel();
+        if (future != null) future.cancel(true);
+        call = null;
+        future = null;
+        uri = null;
+        cardSide = null;
+    }
+
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    private boolean matches(Uri uri, String cardSide) {
+        return uri.equals(this.uri) && Objects.equals(cardSide, this.cardSide);
+    }
+
+    private void warmUpIfIdle() {
+        long now = System.currentTimeMillis();
+        if (now - lastWarmUpMs < WARM_UP_INTERVAL_MS) return;
+        lastWarmUpMs = now;
+        executor.execute(() -> {
+            try {
+                TencentOcrClient.warmUp();
+            } catch (IOException e) {
+                // 预热失败不影响识别，正式请求时再建连
+                Log.w("OCR", "连接预热失败：" + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,27 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":core"))
+    // 仅 PayloadBenchmark.legacyJsonObjectOnly 用来对比早期的 JSONObject 拼接方式
+    implementation(libs.json)
+}
+
+// 用法：./gradlew :benchmark:jmh [-PjmhIncludes=ParseBenchmark]
+// 结果（吞吐 + gc profiler 的分配速率）写入 build/results/jmh/results.json
+jmh {
+    jmhVersion.set(libs.versions.jmh.get())
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
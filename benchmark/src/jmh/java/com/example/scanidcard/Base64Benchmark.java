@@ -0,0 +1,64 @@
+package com.example.scanidcard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64Util：整段编码成 String、编码进复用缓冲区、以及发送时使用的分块流式编码；
+ * 以 java.util.Base64 编码进同一缓冲区作为参照。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Base64Benchmark {
+
+    @Param({"102400", "1048576", "5242880"})
+    public int size;
+
+    private byte[] jpeg;
+    private byte[] dst;
+    private byte[] chunk;
+
+    @Setup
+    public void setUp() {
+        jpeg = Fixtures.jpeg(size);
+        dst = new byte[Base64Util.encodedLength(size)];
+        chunk = new byte[4096];
+    }
+
+    @Benchmark
+    public String encodeToString() {
+        return Base64Util.encode(jpeg);
+    }
+
+    @Benchmark
+    public int encodeIntoBuffer() {
+        return Base64Util.encode(jpeg, 0, jpeg.length, dst, 0);
+    }
+
+    @Benchmark
+    public int jdkEncodeIntoBuffer() {
+        return Base64.getEncoder().encode(jpeg, dst);
+    }
+
+    /**
+     * 与 OcrRequestBody.writeTo 相同的 3KB 分块编码，只产生固定大小的中间缓冲
+     */
+    @Benchmark
+    public int encodeChunked() {
+        int written = 0;
+        for (int off = 0; off < jpeg.length; off += 3072) {
+            written += Base64Util.encode(jpeg, off, Math.min(3072, jpeg.length - off), chunk, 0);
+        }
+        return written;
+    }
+}
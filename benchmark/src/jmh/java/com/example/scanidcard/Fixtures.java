@@ -0,0 +1,82 @@
+package com.example.scanidcard;
+
+import java.util.Random;
+
+/**
+ * 基准用的固定数据：随机字节的“JPEG”（压缩后的图片基本不可再压缩，随机数据足够接近）以及接口返回样例。
+ */
+final class Fixtures {
+
+    static final String SECRET_ID = "AKIDz8krbsJ5yKBZQpn74WFkmLPx3EXAMPLE";
+    static final String SECRET_KEY = "Gu5t9xGARNpq86cd98joQYCN3EXAMPLE";
+    static final long TIMESTAMP = 1551113065L;
+
+    private Fixtures() {
+    }
+
+    static byte[] jpeg(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        // JPEG SOI / EOI
+        data[0] = (byte) 0xFF;
+        data[1] = (byte) 0xD8;
+        data[size - 2] = (byte) 0xFF;
+        data[size - 1] = (byte) 0xD9;
+        return data;
+    }
+
+    /**
+     * 正面识别成功的返回；advancedInfoBytes > 0 时带上对应大小的裁剪图（Base64）
+     */
+    static String successResponse(int advancedInfoBytes) {
+        String advanced = advancedInfoBytes > 0
+                ? "{\\\"IdCard\\\":\\\"" + Base64Util.encode(jpeg(advancedInfoBytes)) + "\\\",\\\"WarnInfos\\\":[]}"
+                : "{\\\"WarnInfos\\\":[]}";
+        return "{\"Response\":{\"Name\":\"李明\",\"Sex\":\"男\",\"Nation\":\"汉\","
+                + "\"Birth\":\"1987/1/1\",\"Address\":\"北京市石景山区高新技术园腾讯大楼\","
+                + "\"IdNum\":\"440524198701010014\",\"Authority\":\"\",\"ValidDate\":\"\","
+                + "\"AdvancedInfo\":\"" + advanced + "\","
+                + "\"ReflectDetailInfos\":[],\"RequestId\":\"c2a7f0f1-7d1a-4c5e-9d2b-3f1e5a6b7c8d\"}}";
+    }
+
+    private static final String SURNAMES = "王李张刘陈杨赵黄周吴徐孙胡朱高林何郭马罗梁宋郑谢韩唐冯于董萧程曹袁邓许傅沈曾彭吕";
+    private static final String GIVEN = "伟芳娜秀敏静丽强磊军洋勇艳杰娟涛明超霞平刚桂英华建国志红文斌辉鹏玉兰飞云";
+    private static final String[] PLACES = {
+            "110105北京市朝阳区", "310115上海市浦东新区", "440106广东省广州市天河区", "440305广东省深圳市南山区",
+            "330106浙江省杭州市西湖区", "320102江苏省南京市玄武区", "510107四川省成都市武侯区", "420106湖北省武汉市武昌区",
+            "370202山东省青岛市市南区", "610113陕西省西安市雁塔区", "500103重庆市渝中区", "430104湖南省长沙市岳麓区"};
+    private static final String ROADS = "人民解放建设中山和平新华胜利光明幸福长江黄河文化学府";
+    private static final int[] WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+
+    /**
+     * 随机生成的人像面识别结果（号码校验码正确，出生日期与号码一致）
+     */
+    static IdentifyResult person(Random rnd) {
+        String place = PLACES[rnd.nextInt(PLACES.length)];
+        int year = 1950 + rnd.nextInt(55);
+        int month = 1 + rnd.nextInt(12);
+        int day = 1 + rnd.nextInt(28);
+        String id17 = place.substring(0, 6) + String.format("%04d%02d%02d%03d", year, month, day, rnd.nextInt(1000));
+        int sum = 0;
+        for (int i = 0; i < 17; i++) sum += (id17.charAt(i) - '0') * WEIGHTS[i];
+
+        StringBuilder name = new StringBuilder().append(SURNAMES.charAt(rnd.nextInt(SURNAMES.length())));
+        for (int i = 1 + rnd.nextInt(2); i > 0; i--) name.append(GIVEN.charAt(rnd.nextInt(GIVEN.length())));
+        int road = rnd.nextInt(ROADS.length() / 2) * 2;
+
+        IdentifyResult r = new IdentifyResult();
+        r.setName(name.toString());
+        r.setSex(rnd.nextBoolean() ? "男" : "女");
+        r.setNation("汉");
+        r.setBirth(year + "/" + month + "/" + day);
+        r.setAddress(place.substring(6) + ROADS.substring(road, road + 2) + "路" + (1 + rnd.nextInt(300)) + "号");
+        r.setIdNum(id17 + "10X98765432".charAt(sum % 11));
+        r.setRequestId("");
+        return r;
+    }
+
+    static String errorResponse() {
+        return "{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.ImageDecodeFailed\","
+                + "\"Message\":\"图片解码失败\"},\"RequestId\":\"c2a7f0f1-7d1a-4c5e-9d2b-3f1e5a6b7c8d\"}}";
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.scanidcard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * ResultHistory：records 条随机生成的历史上的查询延迟（每次一页 20 条），以及批量追加（加密 + 写盘 + 建索引）的吞吐。
+ *
+ * 查询：身份证号前缀（地区码 + 出生年）、姓名前缀、住址片段，以及没有命中、需要走完整个倒排表的片段。
+ * 打开耗时（解密全部记录、重建索引）见 reopen。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HistoryBenchmark {
+
+    private static final int PAGE = 20;
+    private static final int APPEND_BATCH = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Filled {
+        @Param({"100000"})
+        public int records;
+
+        File dir;
+        SecretKey key;
+        ResultHistory history;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dir = Files.createTempDirectory("history-bench").toFile();
+            key = newKey();
+            history = new ResultHistory(new ResultHistory.Config(), dir, key);
+            Random rnd = new Random(42);
+            for (int i = 0; i < records; i++) history.append(Fixtures.person(rnd));
+            history.flush();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            history.close();
+            deleteDir(dir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Appending {
+        File dir;
+        ResultHistory history;
+        IdentifyResult[] batch = new IdentifyResult[APPEND_BATCH];
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            dir = Files.createTempDirectory("history-append").toFile();
+            history = new ResultHistory(new ResultHistory.Config(), dir, newKey());
+            Random rnd = new Random(7);
+            for (int i = 0; i < batch.length; i++) batch[i] = Fixtures.person(rnd);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            history.close();
+            deleteDir(dir);
+        }
+    }
+
+    @Benchmark
+    public ResultHistory.Page idPrefix(Filled s) {
+        return s.history.query(ResultHistory.Match.ID_PREFIX, "4403051987", -1, PAGE);
+    }
+
+    @Benchmark
+    public ResultHistory.Page namePrefix(Filled s) {
+        return s.history.query(ResultHistory.Match.NAME_PREFIX, "王芳", -1, PAGE);
+    }
+
+    @Benchmark
+    public ResultHistory.Page addressText(Filled s) {
+        return s.history.query(ResultHistory.Match.TEXT, "南山区学府路", -1, PAGE);
+    }
+
+    @Benchmark
+    public ResultHistory.Page textMiss(Filled s) {
+        return s.history.query(ResultHistory.Match.TEXT, "广州市南山区", -1, PAGE);
+    }
+
+    /**
+     * 每次操作 = 一条记录；flush 等写线程落盘（含 fsync）并建好索引
+     */
+    @Benchmark
+    @OperationsPerInvocation(APPEND_BATCH)
+    public int append(Appending s) throws Exception {
+        for (IdentifyResult r : s.batch) s.history.append(r);
+        s.history.flush();
+        return s.history.size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int reopen(Filled s) throws Exception {
+        try (ResultHistory reopened = new ResultHistory(new ResultHistory.Config(), s.dir, s.key)) {
+            return reopened.size();
+        }
+    }
+
+    private static SecretKey newKey() throws Exception {
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(256);
+        return gen.generateKey();
+    }
+
+    private static void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+}
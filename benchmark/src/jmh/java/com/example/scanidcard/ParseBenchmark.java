@@ -0,0 +1,47 @@
+package com.example.scanidcard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdentifyResultParser：成功返回（不带 / 带约 100KB 的 AdvancedInfo 裁剪图）与错误返回。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParseBenchmark {
+
+    @Param({"success", "successWithCrop", "error"})
+    public String response;
+
+    @Param({"false", "true"})
+    public boolean keepAdvancedInfo;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        String s;
+        switch (response) {
+            case "success": s = Fixtures.successResponse(0); break;
+            case "successWithCrop": s = Fixtures.successResponse(100 * 1024); break;
+            default: s = Fixtures.errorResponse();
+        }
+        json = s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public IdentifyResult parse() {
+        return IdentifyResultParser.parse(new ByteArrayInputStream(json), keepAdvancedInfo);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.scanidcard;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 构造并“发送”一次请求的完整 CPU 开销：Base64 + 摘要 + 签名 + 写出请求体 + 解析返回。
+ *
+ * 传输层换成本地桩：请求体写进丢弃字节的流，返回固定的成功响应，不涉及网络。
+ * legacyStringPayload 是 String 重载（先生成完整 Base64 和 JSON 字符串），streamingBody 是 byte[] 重载。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PayloadBenchmark {
+
+    @Param({"102400", "1048576", "5242880"})
+    public int size;
+
+    private byte[] jpeg;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jpeg = Fixtures.jpeg(size);
+        byte[] response = Fixtures.successResponse(0).getBytes(StandardCharsets.UTF_8);
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        TencentOcrClient.setTransport((headers, contentLength, body) -> {
+            body.writeTo(discard);
+            return new OcrTransport.Response(200, new ByteArrayInputStream(response), null);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        TencentOcrClient.setTransport(null);
+    }
+
+    @Benchmark
+    public IdentifyResult legacyStringPayload() throws Exception {
+        return TencentOcrClient.idCardOcr(Fixtures.SECRET_ID, Fixtures.SECRET_KEY, "ap-guangzhou",
+                Base64Util.encode(jpeg), "FRONT");
+    }
+
+    @Benchmark
+    public IdentifyResult streamingBody() throws Exception {
+        return TencentOcrClient.idCardOcr(Fixtures.SECRET_ID, Fixtures.SECRET_KEY, "ap-guangzhou",
+                jpeg, "FRONT");
+    }
+
+    /**
+     * 只做准备（摘要 + 签名），即批量识别中 sign 阶段的开销
+     */
+    @Benchmark
+    public void prepareOnly(Blackhole bh) throws Exception {
+        bh.consume(TencentOcrClient.prepare(Fixtures.SECRET_ID, Fixtures.SECRET_KEY, "ap-guangzhou",
+                jpeg, "FRONT"));
+    }
+
+    /**
+     * 仅 JSONObject 拼 payload（旧实现的第一步），不含签名
+     */
+    @Benchmark
+    public byte[] legacyJsonObjectOnly() throws Exception {
+        JSONObject payload = new JSONObject();
+        payload.put("ImageBase64", Base64Util.encode(jpeg));
+        payload.put("CardSide", "FRONT");
+        return payload.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
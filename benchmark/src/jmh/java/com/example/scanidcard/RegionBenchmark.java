@@ -0,0 +1,68 @@
+package com.example.scanidcard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 随包的完整区划表：单次代码查询（一半命中、一半随机），以及整个身份证号的本地校验。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RegionBenchmark {
+
+    private static final int MASK = 1023;
+
+    private final int[] codes = new int[MASK + 1];
+    private RegionIndex regions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        regions = RegionIndex.bundled();
+        Random random = new Random(42);
+        int hits = 0;
+        for (int i = 0; i < codes.length; i++) {
+            int code;
+            do {
+                code = 110000 + random.nextInt(560000);
+            } while (i % 2 == 0 && !regions.contains(code));
+            codes[i] = code;
+            if (regions.contains(code)) hits++;
+        }
+        if (hits < codes.length / 2) throw new IllegalStateException("命中的代码不足一半");
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return regions.contains(codes[next++ & MASK]);
+    }
+
+    @Benchmark
+    public int validate() {
+        return IdCardValidator.validate("440524198701010014", "1987/1/1", regions);
+    }
+
+    /**
+     * 第一次使用时的加载开销：读资源文件、解析、排序
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public RegionIndex load() throws Exception {
+        try (InputStream in = RegionIndex.class.getResourceAsStream("region_codes.txt")) {
+            return RegionIndex.read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.scanidcard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tc3Signer：对完整 payload 字符串签名（含 SHA-256），以及只对已算好的摘要签名。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class Tc3SignerBenchmark {
+
+    @Param({"102400", "1048576", "5242880"})
+    public int size;
+
+    private String payload;
+    private String hashedPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        OcrRequestBody body = new OcrRequestBody(Fixtures.jpeg(size), "FRONT");
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) body.contentLength());
+        body.writeTo(out);
+        payload = out.toString("UTF-8");
+        hashedPayload = body.sha256Hex();
+    }
+
+    @Benchmark
+    public Tc3Signer.SignResult signPayload() throws Exception {
+        return Tc3Signer.sign(Fixtures.SECRET_ID, Fixtures.SECRET_KEY, TencentOcrClient.SERVICE,
+                TencentOcrClient.HOST, TencentOcrClient.ACTION, TencentOcrClient.VERSION,
+                Fixtures.TIMESTAMP, payload, TencentOcrClient.CONTENT_TYPE);
+    }
+
+    /**
+     * 与 payload 大小无关，只衡量规范请求串 + 四次 HMAC（派生密钥命中缓存）的开销
+     */
+    @Benchmark
+    public Tc3Signer.SignResult signHashedPayload() throws Exception {
+        return Tc3Signer.signHashedPayload(Fixtures.SECRET_ID, Fixtures.SECRET_KEY, TencentOcrClient.SERVICE,
+                TencentOcrClient.HOST, TencentOcrClient.ACTION, TencentOcrClient.VERSION,
+                Fixtures.TIMESTAMP, hashedPayload, TencentOcrClient.CONTENT_TYPE);
+    }
+}
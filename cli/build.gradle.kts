@@ -0,0 +1,21 @@
+plugins {
+    application
+}
+
+// 服务器上批量处理扫描件的命令行工具；每张图片一个虚拟线程，需要 Java 21
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(21))
+    }
+}
+
+application {
+    mainClass.set("com.example.scanidcard.ScanCli")
+    applicationName = "scanidcard"
+}
+
+dependencies {
+    implementation(project(":core"))
+
+    testImplementation(libs.junit)
+}
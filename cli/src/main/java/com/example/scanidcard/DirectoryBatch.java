@@ -0,0 +1,187 @@
+package com.example.scanidcard;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 遍历目录并逐张识别：每张图片一个虚拟线程，全局信号量限制同时在处理（读文件 + 请求）的张数，
+ * 结果按完成顺序逐行写入 JSONL。
+ *
+ * 服务器上的扫描件通常已经是 JPEG / PNG，直接按原文件字节上传，不再重新压缩。
+ */
+public class DirectoryBatch {
+
+    public static class Config {
+        /** 图片根目录（递归遍历） */
+        public Path input;
+        /** 结果文件（JSONL，每张图片一行） */
+        public Path output;
+        /** 同时在处理的图片数上限 */
+        public int concurrency = 32;
+        public String secretId;
+        public String secretKey;
+        /** 可选：地域 */
+        public String region;
+        /** 可选："FRONT" / "BACK" / null（自动） */
+        public String cardSide;
+        /** 账号 QPS 配额，请求按此限速（被限流时自动退避重试） */
+        public double qps = 20;
+    }
+
+    public static class Summary {
+        public int total;
+        public int succeeded;
+        public int failed;
+        public long elapsedMs;
+        /** 单张图片从读文件到拿到结果的耗时（微秒，含限速排队） */
+        public LatencyHistogram latency;
+        /** 收到 RequestLimitExceeded 的次数（已自动重试） */
+        public long throttled;
+
+        public double imagesPerSecond() {
+            return elapsedMs <= 0 ? 0 : total * 1000.0 / elapsedMs;
+        }
+    }
+
+    private final Config config;
+    private final ScanMetrics metrics;
+    private final OcrScheduler scheduler;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * @param metrics 分阶段耗时记到这里（可传 ScanMetrics.global()）
+     */
+    public DirectoryBatch(Config config, ScanMetrics metrics) {
+        this.config = config;
+        this.metrics = metrics;
+        OcrScheduler.Config sc = new OcrScheduler.Config();
+        sc.qps = config.qps;
+        sc.maxConcurrent = config.concurrency;
+        this.scheduler = new OcrScheduler(sc);
+    }
+
+    /**
+     * 处理完所有图片后返回
+     */
+    public Summary run() throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Semaphore permits = new Semaphore(config.concurrency);
+
+        try (Stream<Path> paths = Files.walk(config.input);
+             BufferedWriter out = Files.newBufferedWriter(config.output);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            // 边遍历边提交，目录很大时也不必先把全部路径收集到内存
+            Iterator<Path> it = paths.filter(Files::isRegularFile).filter(DirectoryBatch::isImage).iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                permits.acquire();
+                total.incrementAndGet();
+                executor.execute(() -> {
+                    try {
+                        process(file, out);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+            // executor.close() 等待全部任务完成，之后才关闭输出文件
+        }
+
+        Summary summary = new Summary();
+        summary.total = total.get();
+        summary.succeeded = succeeded.get();
+        summary.failed = failed.get();
+        summary.elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        summary.latency = latency;
+        summary.throttled = scheduler.stats().throttled;
+        return summary;
+    }
+
+    private void process(Path file, Writer out) {
+        ScanTrace trace = new ScanTrace();
+        trace.attach();
+        long t0 = System.nanoTime();
+        IdentifyResult result;
+        try {
+            byte[] image = Files.readAllBytes(file);
+            result = scheduler.call(OcrScheduler.Priority.BATCH, () -> TencentOcrClient.idCardOcr(
+                    config.secretId, config.secretKey, config.region, image, config.cardSide));
+        } catch (Exception e) {
+            result = new IdentifyResult();
+            result.setErrorcode(1);
+            result.setErrormsg("识别失败：" + e.getMessage());
+        } finally {
+            ScanTrace.detach();
+        }
+        long elapsedMicros = (System.nanoTime() - t0) / 1000L;
+        trace.finish(metrics);
+        latency.record(elapsedMicros);
+
+        if (result.getErrorcode() == 0) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+
+        try {
+            String line = toJsonLine(config.input.relativize(file).toString(), result, elapsedMicros);
+            synchronized (out) {
+                out.write(line);
+                // 逐行落盘：中途中断时已完成的结果不丢
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("写入结果文件失败：" + e.getMessage(), e);
+        }
+    }
+
+    static String toJsonLine(String file, IdentifyResult r, long elapsedMicros) throws IOException {
+        StringWriter sw = new StringWriter(256);
+        JsonWriter w = new JsonWriter(sw);
+        w.beginObject();
+        w.name("file").value(file);
+        w.name("errorcode").value(r.getErrorcode());
+        w.name("errormsg").value(r.getErrormsg());
+        if (r.getErrorcode() == 0) {
+            w.name("name").value(r.getName());
+            w.name("sex").value(r.getSex());
+            w.name("nation").value(r.getNation());
+            w.name("birth").value(r.getBirth());
+            w.name("address").value(r.getAddress());
+            w.name("idNum").value(r.getIdNum());
+            w.name("authority").value(r.getAuthority());
+            w.name("validDate").value(r.getValidDate());
+            if (r.getCheckFlags() != 0) {
+                w.name("checkFlags").value(r.getCheckFlags());
+                w.name("checkMsg").value(IdCardValidator.describe(r.getCheckFlags()));
+            }
+        }
+        w.name("requestId").value(r.getRequestId());
+        w.name("latencyMs").value(elapsedMicros / 1000.0);
+        w.endObject();
+        w.close();
+        return sw.append('\n').toString();
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png") || name.endsWith(".bmp");
+    }
+}
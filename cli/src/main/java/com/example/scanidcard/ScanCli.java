@@ -0,0 +1,107 @@
+package com.example.scanidcard;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 命令行批量识别：
+ *
+ * <pre>
+ * scanidcard -i scans/ -o results.jsonl [-c 32] [--side FRONT|BACK] [--region ap-guangzhou]
+ *            [--qps 20] [--endpoint URL] [--metrics metrics.json] [--hedge ap-guangzhou,ap-shanghai]
+ * </pre>
+ *
+ * 密钥从环境变量 TENCENT_SECRET_ID / TENCENT_SECRET_KEY 读取（与 .env 中的名字一致），
+ * 也可用 --secret-id / --secret-key 指定。
+ */
+public class ScanCli {
+
+    private static final String USAGE = "用法：scanidcard -i <图片目录> -o <结果.jsonl> [-c 并发数] [--side FRONT|BACK]"
+            + " [--region 地域] [--qps 账号QPS] [--endpoint URL] [--metrics 指标.json] [--hedge 地域1,地域2,...]";
+
+    public static void main(String[] args) throws Exception {
+        System.exit(run(args, System.err));
+    }
+
+    /**
+     * @return 进程退出码：0 全部成功，1 有失败的图片，2 参数错误
+     */
+    static int run(String[] args, PrintStream log) throws Exception {
+        DirectoryBatch.Config config = new DirectoryBatch.Config();
+        config.secretId = System.getenv("TENCENT_SECRET_ID");
+        config.secretKey = System.getenv("TENCENT_SECRET_KEY");
+        config.region = System.getenv("TENCENT_REGION");
+        HttpTransport.Config transport = new HttpTransport.Config();
+        Path metricsFile = null;
+        HedgingTransport.Config hedging = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-i": case "--input": config.input = Path.of(value(args, ++i, arg)); break;
+                    case "-o": case "--output": config.output = Path.of(value(args, ++i, arg)); break;
+                    case "-c": case "--concurrency": config.concurrency = Integer.parseInt(value(args, ++i, arg)); break;
+                    case "--side": config.cardSide = value(args, ++i, arg).toUpperCase(Locale.ROOT); break;
+                    case "--region": config.region = value(args, ++i, arg); break;
+                    case "--qps": config.qps = Double.parseDouble(value(args, ++i, arg)); break;
+                    case "--endpoint": transport.endpoint = value(args, ++i, arg); break;
+                    case "--metrics": metricsFile = Path.of(value(args, ++i, arg)); break;
+                    case "--hedge":
+                        hedging = new HedgingTransport.Config();
+                        hedging.regions = List.of(value(args, ++i, arg).split(","));
+                        break;
+                    case "--secret-id": config.secretId = value(args, ++i, arg); break;
+                    case "--secret-key": config.secretKey = value(args, ++i, arg); break;
+                    default: throw new IllegalArgumentException("未知参数：" + arg);
+                }
+            }
+            if (config.input == null || config.output == null) throw new IllegalArgumentException("缺少 -i 或 -o");
+            if (!Files.isDirectory(config.input)) throw new IllegalArgumentException("目录不存在：" + config.input);
+            if (config.concurrency < 1) throw new IllegalArgumentException("并发数必须大于 0");
+            if (config.qps <= 0) throw new IllegalArgumentException("QPS 必须大于 0");
+            if (isBlank(config.secretId) || isBlank(config.secretKey)) {
+                throw new IllegalArgumentException("未设置 TENCENT_SECRET_ID / TENCENT_SECRET_KEY");
+            }
+        } catch (IllegalArgumentException e) {
+            log.println(e.getMessage());
+            log.println(USAGE);
+            return 2;
+        }
+
+        // 每个并发请求都能留住一条 keep-alive 连接（连接池是进程级的，只在第一次请求前读取该属性）
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(config.concurrency));
+        }
+        OcrTransport http = new HttpTransport(transport);
+        TencentOcrClient.setTransport(hedging != null ? new HedgingTransport(http, hedging) : http);
+
+        ScanMetrics metrics = new ScanMetrics();
+        DirectoryBatch.Summary s = new DirectoryBatch(config, metrics).run();
+
+        LatencyHistogram h = s.latency;
+        log.println(String.format(Locale.ROOT,
+                "完成 %d 张：成功 %d，失败 %d，耗时 %.1f s，吞吐 %.1f 张/秒；单张延迟 p50 %.0f ms，p95 %.0f ms，"
+                        + "p99 %.0f ms，最大 %.0f ms；限流重试 %d 次",
+                s.total, s.succeeded, s.failed, s.elapsedMs / 1000.0, s.imagesPerSecond(),
+                h.percentile(0.50) / 1000.0, h.percentile(0.95) / 1000.0, h.percentile(0.99) / 1000.0,
+                h.max() / 1000.0, s.throttled));
+        if (metricsFile != null) {
+            Files.write(metricsFile, metrics.dump().getBytes(StandardCharsets.UTF_8));
+        }
+        return s.failed == 0 ? 0 : 1;
+    }
+
+    private static String value(String[] args, int i, String name) {
+        if (i >= args.length) throw new IllegalArgumentException(name + " 缺少参数值");
+        return args[i];
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+}
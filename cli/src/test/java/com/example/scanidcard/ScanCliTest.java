@@ -0,0 +1,123 @@
+package com.example.scanidcard;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 端到端：命令行 -> 虚拟线程批处理 -> HttpTransport -> 本地替身接口 -> JSONL
+ */
+public class ScanCliTest {
+
+    private static final String SUCCESS = "{\"Response\":{\"Name\":\"张三\",\"Sex\":\"男\",\"Nation\":\"汉\","
+            + "\"Birth\":\"1990/1/1\",\"Address\":\"广东省广州市\",\"IdNum\":\"440101199001010003\","
+            + "\"Authority\":\"\",\"ValidDate\":\"\",\"RequestId\":\"req-ok\"}}";
+    private static final String ERROR = "{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.ImageDecodeFailed\","
+            + "\"Message\":\"图片解码失败\"},\"RequestId\":\"req-bad\"}}";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger unsigned = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String auth = exchange.getRequestHeaders().getFirst("Authorization");
+            if (auth == null || !auth.startsWith(Tc3Signer.ALGORITHM + " Credential=sid/")) unsigned.incrementAndGet();
+
+            String body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            // bad.jpg 的内容是 0x09 0x09 0x09，Base64 为 CQkJ
+            byte[] response = (body.contains("CQkJ") ? ERROR : SUCCESS).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        TencentOcrClient.setTransport(null);
+    }
+
+    @Test
+    public void processesDirectoryIntoJsonl() throws Exception {
+        Path images = tmp.newFolder("images").toPath();
+        Files.write(images.resolve("a.jpg"), new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9});
+        Files.createDirectories(images.resolve("sub"));
+        Files.write(images.resolve("sub").resolve("b.PNG"), new byte[]{(byte) 0x89, 'P', 'N', 'G'});
+        Files.write(images.resolve("bad.jpg"), new byte[]{9, 9, 9});
+        Files.write(images.resolve("notes.txt"), new byte[]{1});
+        Path output = tmp.getRoot().toPath().resolve("results.jsonl");
+        Path metrics = tmp.getRoot().toPath().resolve("metrics.json");
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        int code = ScanCli.run(new String[]{
+                "-i", images.toString(), "-o", output.toString(), "-c", "2",
+                "--endpoint", "http://127.0.0.1:" + server.getAddress().getPort() + "/",
+                "--secret-id", "sid", "--secret-key", "skey", "--metrics", metrics.toString()
+        }, new PrintStream(log, true, "UTF-8"));
+
+        assertEquals(1, code);
+        assertEquals(3, requests.get());
+        assertEquals(0, unsigned.get());
+
+        List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        Map<String, JsonObject> byFile = new HashMap<>();
+        for (String line : lines) {
+            JsonObject o = JsonParser.parseString(line).getAsJsonObject();
+            byFile.put(o.get("file").getAsString().replace('\\', '/'), o);
+        }
+        assertEquals(0, byFile.get("a.jpg").get("errorcode").getAsInt());
+        assertEquals("440101199001010003", byFile.get("sub/b.PNG").get("idNum").getAsString());
+        assertEquals(1, byFile.get("bad.jpg").get("errorcode").getAsInt());
+        assertEquals("FailedOperation.ImageDecodeFailed: 图片解码失败",
+                byFile.get("bad.jpg").get("errormsg").getAsString());
+
+        String summary = log.toString("UTF-8");
+        assertTrue(summary, summary.contains("完成 3 张：成功 2，失败 1"));
+        assertTrue(new String(Files.readAllBytes(metrics), StandardCharsets.UTF_8).contains("\"TTFB\":{\"count\":3,"));
+    }
+
+    @Test
+    public void rejectsMissingArguments() throws Exception {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        assertEquals(2, ScanCli.run(new String[]{"-i", tmp.getRoot().toString()}, new PrintStream(log, true, "UTF-8")));
+        assertEquals(0, requests.get());
+    }
+}
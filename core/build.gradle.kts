@@ -0,0 +1,15 @@
+plugins {
+    `java-library`
+}
+
+// 与平台无关的核心：签名、请求体、传输、解析、缓存、指标。Android 应用、命令行工具和基准共用
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    api(libs.gson)
+
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,139 @@
+package com.example.scanidcard;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base64 编码（标准字母表，带 '=' 填充，不换行）。
+ *
+ * 按 3 字节 -> 4 字符查表编码；除 {@link #encode(byte[])} 外都直接写入调用方提供的缓冲区，
+ * 大图片不再经过 StringBuilder。minSdk 24 没有 java.util.Base64，所以自己实现。
+ */
+public class Base64Util {
+    private static final byte[] encodeTable =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Base64 encoding.
+     *
+     * @param from The src data.
+     * @return base64 string
+     */
+    public static String encode(byte[] from) {
+        byte[] to = new byte[encodedLength(from.length)];
+        encode(from, 0, from.length, to, 0);
+        return new String(to, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * srcLength 字节编码后的长度（含填充）。
+     */
+    public static int encodedLength(int srcLength) {
+        return (srcLength + 2) / 3 * 4;
+    }
+
+    /**
+     * 把 src[off, off+len) 编码为 ASCII 写入 dst[dstOff...]，末尾按需补 '='。
+     *
+     * @return 写入的字节数，即 {@link #encodedLength(int) encodedLength(len)}
+     */
+    public static int encode(byte[] src, int off, int len, byte[] dst, int dstOff) {
+        int end = off + len;
+        int d = dstOff;
+        int i = off;
+        for (; i + 2 < end; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[d] = encodeTable[bits >>> 18];
+            dst[d + 1] = encodeTable[(bits >>> 12) & 0x3F];
+            dst[d + 2] = encodeTable[(bits >>> 6) & 0x3F];
+            dst[d + 3] = encodeTable[bits & 0x3F];
+            d += 4;
+        }
+        int rest = end - i;
+        if (rest > 0) {
+            int bits = (src[i] & 0xFF) << 16 | (rest == 2 ? (src[i + 1] & 0xFF) << 8 : 0);
+            dst[d] = encodeTable[bits >>> 18];
+            dst[d + 1] = encodeTable[(bits >>> 12) & 0x3F];
+            dst[d + 2] = rest == 2 ? encodeTable[(bits >>> 6) & 0x3F] : (byte) '=';
+            dst[d + 3] = '=';
+            d += 4;
+        }
+        return d - dstOff;
+    }
+
+    /**
+     * 编码写入 ByteBuffer（从其当前 position 开始），空间不足时抛 BufferOverflowException。
+     */
+    public static void encode(byte[] src, int off, int len, ByteBuffer dst) {
+        int n = encodedLength(len);
+        if (dst.remaining() < n) throw new BufferOverflowException();
+        if (dst.hasArray()) {
+            int pos = dst.position();
+            encode(src, off, len, dst.array(), dst.arrayOffset() + pos);
+            dst.position(pos + n);
+            return;
+        }
+        // direct buffer：经一个小缓冲区分块写入
+        byte[] tmp = new byte[Math.min(n, 4096)];
+        int chunk = tmp.length / 4 * 3;
+        for (int p = off; p < off + len; p += chunk) {
+            int m = encode(src, p, Math.min(chunk, off + len - p), tmp, 0);
+            dst.put(tmp, 0, m);
+        }
+    }
+
+    /**
+     * 增量编码器：输入可以任意分段送入，不足 3 字节的尾巴留到下一次，结果与一次性编码完全一致。
+     *
+     * <pre>
+     * Base64Util.Encoder enc = new Base64Util.Encoder();
+     * n = enc.update(chunk, 0, len, dst, 0);   // 重复调用
+     * n = enc.finish(dst, 0);                  // 写出尾巴与填充
+     * </pre>
+     */
+    public static class Encoder {
+        private final byte[] pending = new byte[3];
+        private int pendingLen;
+
+        /**
+         * 本次 update 最多写出的字节数，用来确定 dst 的大小。
+         */
+        public int maxOutputLength(int len) {
+            return (pendingLen + len) / 3 * 4;
+        }
+
+        /**
+         * 送入 src[off, off+len)，把已凑满 3 字节的部分编码写入 dst，返回写入字节数。
+         */
+        public int update(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int d = dstOff;
+            // 先把上次剩下的尾巴补满 3 字节
+            if (pendingLen > 0) {
+                int take = Math.min(3 - pendingLen, len);
+                System.arraycopy(src, off, pending, pendingLen, take);
+                pendingLen += take;
+                off += take;
+                len -= take;
+                if (pendingLen < 3) return 0;
+                d += encode(pending, 0, 3, dst, d);
+                pendingLen = 0;
+            }
+            int whole = len / 3 * 3;
+            d += encode(src, off, whole, dst, d);
+            pendingLen = len - whole;
+            System.arraycopy(src, off + whole, pending, 0, pendingLen);
+            return d - dstOff;
+        }
+
+        /**
+         * 写出剩余的 0~2 字节及 '=' 填充（最多 4 字节），返回写入字节数；之后编码器可重新使用。
+         */
+        public int finish(byte[] dst, int dstOff) {
+            int n = encode(pending, 0, pendingLen, dst, dstOff);
+            pendingLen = 0;
+            return n;
+        }
+    }
+}
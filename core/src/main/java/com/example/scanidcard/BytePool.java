@@ -0,0 +1,87 @@
+package com.example.scanidcard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 复用 byte[] 的小型池：连续压缩多张图片时，JPEG 输出缓冲区不必每张重新分配。
+ *
+ * 取用时返回容量不小于所需的最小数组；归还时超过数量或总字节上限的数组直接丢弃（交给 GC）。
+ * 新分配的数组按 {@link #GRANULE} 向上取整，尺寸接近的请求可以互相复用。
+ */
+public class BytePool {
+
+    public static class Config {
+        /** 池中最多保留的数组个数 */
+        public int maxBuffers = 8;
+        /** 池中数组的总字节数上限 */
+        public long maxBytes = 4 * 1024 * 1024L;
+    }
+
+    static final int GRANULE = 16 * 1024;
+
+    private final Config config;
+    private final List<byte[]> free = new ArrayList<>();
+    private long freeBytes;
+    private long hits;
+    private long misses;
+
+    public BytePool(Config config) {
+        this.config = config;
+    }
+
+    /**
+     * 容量不小于 minCapacity 的数组（内容未清零）
+     */
+    public synchronized byte[] acquire(int minCapacity) {
+        int best = -1;
+        for (int i = 0; i < free.size(); i++) {
+            int len = free.get(i).length;
+            if (len >= minCapacity && (best < 0 || len < free.get(best).length)) best = i;
+        }
+        if (best >= 0) {
+            hits++;
+            byte[] buf = free.remove(best);
+            freeBytes -= buf.length;
+            return buf;
+        }
+        misses++;
+        return new byte[roundUp(minCapacity)];
+    }
+
+    /**
+     * 归还数组；归还后调用方不能再使用它
+     */
+    public synchronized void release(byte[] buf) {
+        if (buf == null || buf.length > config.maxBytes) return;
+        // 满了先挤掉最小的，留下更通用的大数组
+        while (!free.isEmpty() && (free.size() >= config.maxBuffers || freeBytes + buf.length > config.maxBytes)) {
+            int smallest = 0;
+            for (int i = 1; i < free.size(); i++) {
+                if (free.get(i).length < free.get(smallest).length) smallest = i;
+            }
+            if (free.get(smallest).length >= buf.length) return;
+            freeBytes -= free.remove(smallest).length;
+        }
+        if (config.maxBuffers <= 0) return;
+        free.add(buf);
+        freeBytes += buf.length;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    public synchronized long pooledBytes() {
+        return freeBytes;
+    }
+
+    private static int roundUp(int n) {
+        long rounded = ((long) Math.max(n, 1) + GRANULE - 1) / GRANULE * GRANULE;
+        return (int) Math.min(rounded, Integer.MAX_VALUE - 8);
+    }
+}
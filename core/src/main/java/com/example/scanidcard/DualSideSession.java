@@ -0,0 +1,138 @@
+package com.example.scanidcard;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+/**
+ * 正反面一次识别：人像面和国徽面的读取压缩、摘要签名、请求同时进行，结果合并成一个 {@link IdentifyResult}。
+ *
+ * 正面在调用线程上处理，背面交给 executor；总耗时约等于较慢的一面，而不是两面之和。
+ * 两面的签名共用 {@link Tc3Signer} 按天缓存的派生密钥。
+ * 调用线程绑定了 {@link OcrCall} 时，取消它会同时取消两面。
+ * 调用线程绑定了 {@link ScanTrace} 时，背面各阶段的耗时和数据量也累加进去。
+ */
+public class DualSideSession {
+
+    public static final String FRONT = "FRONT";
+    public static final String BACK = "BACK";
+
+    /**
+     * 读取并压缩一面的图片，返回 JPEG 字节
+     */
+    public interface ImageSource {
+        byte[] load() throws Exception;
+    }
+
+    /**
+     * 识别一面；可以在外面包一层缓存或限流
+     */
+    public interface SideRecognizer {
+        IdentifyResult recognize(byte[] jpeg, String cardSide) throws Exception;
+    }
+
+    /**
+     * 直接调用接口，经过 {@link OcrScheduler} 的单张识别通道
+     */
+    public static SideRecognizer direct(String secretId, String secretKey, String region) {
+        return (jpeg, cardSide) -> OcrScheduler.getDefault().call(OcrScheduler.Priority.INTERACTIVE,
+                () -> TencentOcrClient.idCardOcr(secretId, secretKey, region, jpeg, cardSide));
+    }
+
+    /**
+     * 同时识别两面并合并。某一面失败时返回 errorcode = 1，另一面识别出的字段仍然保留。
+     *
+     * @param executor 执行背面的线程池，不能是正占用调用线程的单线程池
+     */
+    public static IdentifyResult recognize(Executor executor, ImageSource front, ImageSource back,
+                                           SideRecognizer recognizer) throws Exception {
+        OcrCall parent = OcrCall.current();
+        if (parent == null) parent = new OcrCall();
+
+        // ScanTrace 不是线程安全的：背面先记在自己的 trace 上，结束后再累加
+        ScanTrace trace = ScanTrace.current();
+        ScanTrace backTrace = trace != null ? new ScanTrace() : null;
+        OcrCall backCall = parent.submitChild(executor, call -> {
+            if (backTrace == null) return side(back, BACK, recognizer);
+            backTrace.attach();
+            try {
+                return side(back, BACK, recognizer);
+            } finally {
+                ScanTrace.detach();
+            }
+        });
+        IdentifyResult frontResult;
+        try {
+            frontResult = side(front, FRONT, recognizer);
+        } catch (Exception e) {
+            frontResult = failure("识别失败：" + e.getMessage());
+        }
+        parent.throwIfCancelled();
+
+        IdentifyResult backResult;
+        try {
+            backResult = backCall.get();
+        } catch (CancellationException e) {
+            parent.throwIfCancelled();
+            backResult = failure("识别已取消");
+        } catch (InterruptedException e) {
+            backCall.cancel();
+            throw e;
+        }
+        // get() 返回后背面的记录已全部完成
+        if (backTrace != null) trace.addAll(backTrace);
+        return merge(frontResult, backResult);
+    }
+
+    private static IdentifyResult side(ImageSource source, String cardSide, SideRecognizer recognizer)
+            throws Exception {
+        byte[] jpeg = source.load();
+        OcrCall.checkCancelled();
+        return recognizer.recognize(jpeg, cardSide);
+    }
+
+    /**
+     * 人像面提供姓名、性别、民族、出生、住址、号码，国徽面提供签发机关和有效期限
+     */
+    public static IdentifyResult merge(IdentifyResult front, IdentifyResult back) {
+        IdentifyResult merged = new IdentifyResult();
+        // 与单面识别一致：成功时 errormsg 为空字符串而不是 null
+        merged.setErrormsg("");
+        if (front.getErrorcode() == 0) {
+            merged.setName(front.getName());
+            merged.setSex(front.getSex());
+            merged.setNation(front.getNation());
+            merged.setBirth(front.getBirth());
+            merged.setAddress(front.getAddress());
+            merged.setIdNum(front.getIdNum());
+            merged.setAdvancedInfo(front.getAdvancedInfo());
+            merged.setCheckFlags(front.getCheckFlags());
+        }
+        if (back.getErrorcode() == 0) {
+            merged.setAuthority(back.getAuthority());
+            merged.setValidDate(back.getValidDate());
+        }
+
+        merged.setRequestId(join(front.getRequestId(), back.getRequestId(), ","));
+        merged.setRawJson(join(front.getRawJson(), back.getRawJson(), "\n"));
+
+        if (front.getErrorcode() != 0 || back.getErrorcode() != 0) {
+            merged.setErrorcode(1);
+            merged.setErrormsg(join(front.getErrorcode() != 0 ? "人像面：" + front.getErrormsg() : null,
+                    back.getErrorcode() != 0 ? "国徽面：" + back.getErrormsg() : null, "；"));
+        }
+        return merged;
+    }
+
+    private static String join(String a, String b, String sep) {
+        if (a == null || a.isEmpty()) return b;
+        if (b == null || b.isEmpty()) return a;
+        return a + sep + b;
+    }
+
+    private static IdentifyResult failure(String msg) {
+        IdentifyResult result = new IdentifyResult();
+        result.setErrorcode(1);
+        result.setErrormsg(msg);
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.scanidcard;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 固定容量的日志环形缓冲：任意线程追加，满了覆盖最旧的一条，内存占用与运行多久无关。
+ *
+ * 每条事件带递增序号；界面记住看到的最后一个序号，用 {@link #readSince} 增量拉取，
+ * 一次刷新处理一批新事件，而不是每条日志切一次主线程、重排一次全部文本。
+ */
+public class EventLog {
+
+    public enum Level {
+        INFO, WARN, ERROR
+    }
+
+    public static final class Event {
+        /** 从 0 开始递增的序号 */
+        public final long seq;
+        public final long timeMs;
+        public final Level level;
+        public final String message;
+
+        Event(long seq, long timeMs, Level level, String message) {
+            this.seq = seq;
+            this.timeMs = timeMs;
+            this.level = level;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return level == Level.INFO ? message : level + " " + message;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * 有新事件，在追加事件的线程上回调（锁外）
+         */
+        void onAppended(EventLog log);
+    }
+
+    private final Event[] ring;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    /** 下一条事件的序号，也是追加过的总条数 */
+    private long nextSeq;
+
+    public EventLog(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity 必须大于 0");
+        this.ring = new Event[capacity];
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public Event add(String message) {
+        return add(Level.INFO, message);
+    }
+
+    public Event add(Level level, String message) {
+        Event event;
+        synchronized (this) {
+            event = new Event(nextSeq, System.currentTimeMillis(), level, message);
+            ring[(int) (nextSeq % ring.length)] = event;
+            nextSeq++;
+        }
+        for (Listener l : listeners) {
+            l.onAppended(this);
+        }
+        return event;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(nextSeq, ring.length);
+    }
+
+    /**
+     * 已被覆盖（不再能读到）的事件数
+     */
+    public synchronized long dropped() {
+        return Math.max(0, nextSeq - ring.length);
+    }
+
+    /**
+     * 最新一条事件的序号；还没有事件时为 -1
+     */
+    public synchronized long lastSeq() {
+        return nextSeq - 1;
+    }
+
+    /**
+     * 按时间顺序把序号大于 afterSeq、且仍在缓冲区中的事件追加到 out。
+     *
+     * @return 序号大于 afterSeq 但已被覆盖、读不到的事件数（读得太慢时大于 0）
+     */
+    public synchronized long readSince(long afterSeq, List<Event> out) {
+        long oldest = Math.max(0, nextSeq - ring.length);
+        long from = Math.max(afterSeq + 1, oldest);
+        for (long seq = from; seq < nextSeq; seq++) {
+            out.add(ring[(int) (seq % ring.length)]);
+        }
+        return Math.max(0, from - (afterSeq + 1));
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.scanidcard;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 上传前的画面质量检查：模糊、过暗 / 过亮、反光的照片在本地直接拒绝，不再花一次请求换回空字段。
+ *
+ * 先把图片按块平均缩小成不超过 maxSide 的亮度平面，再在平面上计算：
+ * 清晰度（拉普拉斯算子响应的方差）、平均亮度、接近饱和的像素占比（反光）。
+ * 缓冲区和结果对象都由实例复用，尺寸不变时逐帧不分配内存；实例不是线程安全的。
+ */
+public class FrameQuality {
+
+    public static class Config {
+        /** 分析平面的长边像素数 */
+        public int maxSide = 320;
+        /** 每个格子在每个方向上最多采样的源像素数，控制大图的读取量 */
+        public int samplesPerCell = 4;
+        /** 拉普拉斯方差下限，低于此值视为模糊；与分析平面尺寸相关，改 maxSide 时需要重新标定 */
+        public double minSharpness = 100;
+        /** 平均亮度范围（0–255） */
+        public double minMeanLuma = 40;
+        public double maxMeanLuma = 225;
+        /** 亮度不低于此值的格子算作反光 */
+        public int glareLuma = 250;
+        /** 反光格子占比上限 */
+        public double maxGlareFraction = 0.05;
+    }
+
+    public enum Reason {
+        OK("合格"),
+        TOO_DARK("图片过暗"),
+        OVEREXPOSED("图片过亮"),
+        GLARE("反光面积过大"),
+        BLURRY("图片模糊");
+
+        public final String label;
+
+        Reason(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * 按行读取 ARGB 像素；分析器只读取需要采样的行，dst 长度不小于图片宽度。
+     */
+    public interface RowSource {
+        void readRow(int y, int[] dst);
+    }
+
+    /**
+     * 一次分析的结果；同一个分析器的每次调用返回同一个对象（内容被覆盖）。
+     */
+    public static class Report {
+        public Reason reason = Reason.OK;
+        public double sharpness;
+        public double meanLuma;
+        public double glareFraction;
+        /** 分析平面的尺寸 */
+        public int width;
+        public int height;
+
+        private Config config;
+
+        public boolean passed() {
+            return reason == Reason.OK;
+        }
+
+        public String message() {
+            switch (reason) {
+                case TOO_DARK:
+                    return String.format(Locale.ROOT, "%s（平均亮度 %.0f < %.0f），请重拍",
+                            reason.label, meanLuma, config.minMeanLuma);
+                case OVEREXPOSED:
+                    return String.format(Locale.ROOT, "%s（平均亮度 %.0f > %.0f），请重拍",
+                            reason.label, meanLuma, config.maxMeanLuma);
+                case GLARE:
+                    return String.format(Locale.ROOT, "%s（%.1f%% > %.1f%%），请调整角度后重拍",
+                            reason.label, glareFraction * 100, config.maxGlareFraction * 100);
+                case BLURRY:
+                    return String.format(Locale.ROOT, "%s（清晰度 %.1f < %.1f），请对焦后重拍",
+                            reason.label, sharpness, config.minSharpness);
+                default:
+                    return reason.label;
+            }
+        }
+
+        /**
+         * 未通过时抛出 {@link RejectedException}
+         */
+        public void throwIfRejected() throws RejectedException {
+            if (!passed()) throw new RejectedException(reason, message());
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s sharpness=%.1f luma=%.1f glare=%.3f %dx%d",
+                    reason, sharpness, meanLuma, glareFraction, width, height);
+        }
+    }
+
+    /**
+     * 质量不合格，照片没有上传
+     */
+    public static class RejectedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public final Reason reason;
+
+        public RejectedException(Reason reason, String message) {
+            super(message);
+            this.reason = reason;
+        }
+    }
+
+    private final Config config;
+    private final Report report = new Report();
+
+    // 复用的缓冲区：按需增长，不收缩
+    private int[] sums = new int[0];
+    private int[] counts = new int[0];
+    private int[] row = new int[0];
+
+    // 当前帧的缩放参数
+    private int srcWidth;
+    private int srcHeight;
+    private int planeWidth;
+    private int planeHeight;
+    private int rowStep;
+    private int colStep;
+
+    public FrameQuality(Config config) {
+        this.config = config;
+        this.report.config = config;
+    }
+
+    public Config config() {
+        return config;
+    }
+
+    /**
+     * 分析连续存放的 ARGB 像素（行宽 = width）
+     */
+    public Report analyze(int[] argb, int width, int height) {
+        begin(width, height);
+        for (int y = 0; y < height; y += rowStep) {
+            accumulateArgb(argb, y * width, y);
+        }
+        return finish();
+    }
+
+    /**
+     * 逐行读取像素分析，例如 Bitmap.getPixels 每次只取一行，不需要整张图的 int[]
+     */
+    public Report analyze(int width, int height, RowSource source) {
+        begin(width, height);
+        if (row.length < width) row = new int[width];
+        for (int y = 0; y < height; y += rowStep) {
+            source.readRow(y, row);
+            accumulateArgb(row, 0, y);
+        }
+        return finish();
+    }
+
+    /**
+     * 直接分析亮度平面，例如相机 YUV 帧的 Y 分量
+     */
+    public Report analyzeLuma(byte[] luma, int width, int height, int rowStride) {
+        begin(width, height);
+        for (int y = 0; y < height; y += rowStep) {
+            int base = (y * planeHeight / srcHeight) * planeWidth;
+            int off = y * rowStride;
+            for (int x = 0; x < width; x += colStep) {
+                int cell = base + x * planeWidth / srcWidth;
+                sums[cell] += luma[off + x] & 0xFF;
+                counts[cell]++;
+            }
+        }
+        return finish();
+    }
+
+    private void begin(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("图片尺寸无效：" + width + "x" + height);
+        }
+        double scale = Math.min(1.0, (double) config.maxSide / Math.max(width, height));
+        srcWidth = width;
+        srcHeight = height;
+        planeWidth = Math.max(1, (int) Math.round(width * scale));
+        planeHeight = Math.max(1, (int) Math.round(height * scale));
+        int samples = Math.max(1, config.samplesPerCell);
+        colStep = Math.max(1, width / (planeWidth * samples));
+        rowStep = Math.max(1, height / (planeHeight * samples));
+
+        int cells = planeWidth * planeHeight;
+        if (sums.length < cells) {
+            sums = new int[cells];
+            counts = new int[cells];
+        } else {
+            Arrays.fill(sums, 0, cells, 0);
+            Arrays.fill(counts, 0, cells, 0);
+        }
+    }
+
+    private void accumulateArgb(int[] argb, int off, int y) {
+        int base = (y * planeHeight / srcHeight) * planeWidth;
+        for (int x = 0; x < srcWidth; x += colStep) {
+            int p = argb[off + x];
+            // BT.601 亮度，定点计算
+            int l = (77 * ((p >> 16) & 0xFF) + 150 * ((p >> 8) & 0xFF) + 29 * (p & 0xFF)) >> 8;
+            int cell = base + x * planeWidth / srcWidth;
+            sums[cell] += l;
+            counts[cell]++;
+        }
+    }
+
+    private Report finish() {
+        int w = planeWidth;
+        int h = planeHeight;
+        int cells = w * h;
+
+        // 块平均，结果写回 sums 作为亮度平面
+        long total = 0;
+        int glare = 0;
+        int last = 0;
+        for (int i = 0; i < cells; i++) {
+            int l = counts[i] == 0 ? last : sums[i] / counts[i];
+            sums[i] = l;
+            last = l;
+            total += l;
+            if (l >= config.glareLuma) glare++;
+        }
+
+        // 4 邻域拉普拉斯：清晰的边缘响应大，模糊时整体趋近于 0
+        long lapSum = 0;
+        long lapSq = 0;
+        int n = 0;
+        for (int y = 1; y < h - 1; y++) {
+            int i = y * w + 1;
+            for (int x = 1; x < w - 1; x++, i++) {
+                int lap = 4 * sums[i] - sums[i - 1] - sums[i + 1] - sums[i - w] - sums[i + w];
+                lapSum += lap;
+                lapSq += (long) lap * lap;
+                n++;
+            }
+        }
+
+        Report r = report;
+        r.width = w;
+        r.height = h;
+        r.meanLuma = (double) total / cells;
+        r.glareFraction = (double) glare / cells;
+        if (n == 0) {
+            r.sharpness = 0;
+        } else {
+            double mean = (double) lapSum / n;
+            r.sharpness = (double) lapSq / n - mean * mean;
+        }
+
+        if (r.meanLuma < config.minMeanLuma) {
+            r.reason = Reason.TOO_DARK;
+        } else if (r.meanLuma > config.maxMeanLuma) {
+            r.reason = Reason.OVEREXPOSED;
+        } else if (r.glareFraction > config.maxGlareFraction) {
+            r.reason = Reason.GLARE;
+        } else if (r.sharpness < config.minSharpness) {
+            r.reason = Reason.BLURRY;
+        } else {
+            r.reason = Reason.OK;
+        }
+        return r;
+    }
+}
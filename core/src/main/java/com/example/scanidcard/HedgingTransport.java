@@ -0,0 +1,337 @@
+package com.example.scanidcard;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 对冲请求：第一个请求在自适应阈值（近期延迟的 p95）内没有返回时，向另一个地域再发一份，
+ * 用先返回的那个，另一个断开连接（见 {@link OcrCall}）。
+ *
+ * X-TC-Region 不参与 TC3 签名，因此两份请求可以共用同一个 Authorization 和请求体；
+ * 换 Host 会使签名失效，所以只在地域之间对冲，不切换域名。
+ * 注意被对冲的请求在服务端同样计费，阈值取 p95 时大约 5% 的请求会多发一次。
+ * 在 {@link OcrScheduler} 中调用时，第二份请求要另外拿到令牌和并发名额才发，拿不到就只等第一份，
+ * 不会突破配置的 QPS。
+ *
+ * 两份请求从同一个请求体写出；返回前等被取消的那份停止写请求体，调用方之后可以立即复用请求体的缓冲区。
+ *
+ * 同时维护各地域的延迟排名，由排名决定第一份请求发往哪个地域：请求里的 X-TC-Region 只是偏好，
+ * 它明显慢于最快的地域（超过 {@link Config#preferenceTolerance}）或不在配置的地域中时改用最快的地域。
+ */
+public class HedgingTransport implements OcrTransport {
+
+    public static class Config {
+        /** 参与对冲与排名的地域 */
+        public List<String> regions = Arrays.asList("ap-guangzhou", "ap-shanghai", "ap-beijing");
+        /** 按近期延迟的该分位数决定何时对冲 */
+        public double percentile = 0.95;
+        /** 样本不足时使用的对冲阈值 */
+        public long initialDelayMs = 3000;
+        /** 对冲阈值的下限 / 上限 */
+        public long minDelayMs = 300;
+        public long maxDelayMs = 8000;
+        /** 少于该样本数时使用 initialDelayMs */
+        public int minSamples = 20;
+        /** 延迟统计窗口：每满这么多个样本换一次窗口，让阈值跟上网络变化 */
+        public int window = 200;
+        /** 请求指定的地域平均延迟不超过最快地域的 (1 + 该值) 倍时仍发往该地域 */
+        public double preferenceTolerance = 0.2;
+    }
+
+    /**
+     * 对冲统计
+     */
+    public static class Stats {
+        public long requests;
+        /** 发出了第二份请求的次数 */
+        public long hedged;
+        /** 第二份请求先返回的次数 */
+        public long hedgeWins;
+        /** 该对冲时调度器没有余量、只等第一份请求的次数 */
+        public long skipped;
+        /** 当前的对冲阈值 */
+        public long delayMs;
+    }
+
+    private static final String REGION_HEADER = "X-TC-Region";
+
+    private final OcrTransport delegate;
+    private final Config config;
+    private final RegionRanking ranking;
+    private final ExecutorService executor;
+
+    // 两个窗口轮换：阈值取上一个完整窗口（样本不足时取当前窗口）
+    private final Object windowLock = new Object();
+    private LatencyHistogram current = new LatencyHistogram();
+    private LatencyHistogram previous;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public HedgingTransport(OcrTransport delegate, Config config) {
+        this.delegate = delegate;
+        this.config = config;
+        this.ranking = new RegionRanking(config.regions);
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ocr-hedge-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public RegionRanking getRanking() {
+        return ranking;
+    }
+
+    public Stats stats() {
+        Stats s = new Stats();
+        s.requests = requests.get();
+        s.hedged = hedged.get();
+        s.hedgeWins = hedgeWins.get();
+        s.skipped = skipped.get();
+        s.delayMs = hedgeDelayMs();
+        return s;
+    }
+
+    @Override
+    public Response post(Map<String, String> headers, long contentLength, BodyWriter body) throws IOException {
+        SharedBody shared = new SharedBody(body);
+        try {
+            return hedge(headers, contentLength, shared);
+        } finally {
+            shared.close();
+        }
+    }
+
+    private Response hedge(Map<String, String> headers, long contentLength, BodyWriter body) throws IOException {
+        requests.incrementAndGet();
+        String region = ranking.bestPreferring(headers.get(REGION_HEADER), config.preferenceTolerance);
+        String alternate = ranking.bestExcluding(region);
+        // 两者都属于调用方线程，对冲线程上拿不到
+        ScanTrace trace = ScanTrace.current();
+        OcrScheduler scheduler = OcrScheduler.current();
+
+        Attempt primary = new Attempt(region, headers, contentLength, body, trace != null, null);
+        try {
+            return primary.finish(primary.future.get(hedgeDelayMs(), TimeUnit.MILLISECONDS), trace);
+        } catch (TimeoutException | ExecutionException e) {
+            // 超过阈值，或第一个请求很快就失败了：有备选地域时改为对冲
+            if (alternate == null) return primary.finish(await(primary.future), trace);
+        } catch (InterruptedException e) {
+            primary.cancel();
+            throw new InterruptedIOException("请求被中断");
+        }
+
+        if (scheduler != null && !scheduler.tryAcquireExtra()) {
+            skipped.incrementAndGet();
+            return primary.finish(await(primary.future), trace);
+        }
+        hedged.incrementAndGet();
+        Attempt hedge = new Attempt(alternate, headers, contentLength, body, trace != null, scheduler);
+        Attempt winner = firstSuccessful(primary, hedge);
+        if (winner == hedge) hedgeWins.incrementAndGet();
+        return winner.finish(winner.future.join(), trace);
+    }
+
+    /**
+     * 各地域共用同一个 Host，预热一条连接即可
+     */
+    @Override
+    public void warmUp() throws IOException {
+        delegate.warmUp();
+    }
+
+    /**
+     * 当前的对冲阈值（毫秒）
+     */
+    long hedgeDelayMs() {
+        LatencyHistogram h;
+        synchronized (windowLock) {
+            h = previous != null ? previous : current;
+        }
+        if (h.count() < config.minSamples) return config.initialDelayMs;
+        long ms = h.percentile(config.percentile) / 1000L;
+        return Math.max(config.minDelayMs, Math.min(config.maxDelayMs, ms));
+    }
+
+    void recordLatency(long micros) {
+        synchronized (windowLock) {
+            current.record(micros);
+            if (current.count() >= config.window) {
+                previous = current;
+                current = new LatencyHistogram();
+            }
+        }
+    }
+
+    /**
+     * 等两个请求中先成功的一个；另一个断开连接，若它的响应已经到达则直接关闭
+     */
+    private Attempt firstSuccessful(Attempt a, Attempt b) throws IOException {
+        CompletableFuture<Attempt> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (Attempt attempt : new Attempt[]{a, b}) {
+            attempt.future.whenComplete((response, error) -> {
+                if (error == null) {
+                    if (!winner.complete(attempt)) closeQuietly(response);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            Attempt w = await(winner);
+            (w == a ? b : a).cancel();
+            return w;
+        } catch (IOException e) {
+            a.cancel();
+            b.cancel();
+            throw e;
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw new InterruptedIOException("请求被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static void closeQuietly(Response r) {
+        try {
+            r.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 两份请求共用的请求体。{@link #close()} 之后再写直接失败，并等正在写的请求写完：
+     * 先返回的那份早已写完请求体，被取消的那份连接已断开，写操作很快以异常结束
+     */
+    private static final class SharedBody implements BodyWriter {
+        private final BodyWriter body;
+        private int writers;
+        private boolean closed;
+
+        SharedBody(BodyWriter body) {
+            this.body = body;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            synchronized (this) {
+                if (closed) throw new InterruptedIOException("请求已结束");
+                writers++;
+            }
+            try {
+                body.writeTo(out);
+            } finally {
+                synchronized (this) {
+                    if (--writers == 0) notifyAll();
+                }
+            }
+        }
+
+        synchronized void close() {
+            closed = true;
+            boolean interrupted = false;
+            while (writers > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // 不能提前返回：调用方随后会复用请求体的缓冲区
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 发往某个地域的一份请求，在对冲线程上执行。每份请求有自己的 {@link OcrCall}（调用方的子调用），
+     * 取消它会断开这份请求的连接，而调用方取消时两份一起断开。
+     * 每份请求的 CONNECT / UPLOAD / TTFB 先记在自己的 {@link ScanTrace} 上，只有被采用的那份并回调用方的 trace。
+     */
+    private class Attempt {
+        final String region;
+        final OcrCall call;
+        final ScanTrace trace;
+        final CompletableFuture<Response> future;
+
+        /**
+         * @param traced   调用方有 trace 时为 true
+         * @param reserved 已为这份请求申请了额外名额的调度器，请求结束时归还；没有时为 null
+         */
+        Attempt(String region, Map<String, String> headers, long contentLength, BodyWriter body,
+                boolean traced, OcrScheduler reserved) {
+            this.region = region;
+            OcrCall parent = OcrCall.current();
+            this.call = parent != null ? parent.newChild() : new OcrCall();
+            this.trace = traced ? new ScanTrace() : null;
+            Map<String, String> h = new LinkedHashMap<>(headers);
+            if (region != null) h.put(REGION_HEADER, region);
+
+            long start = System.nanoTime();
+            this.future = CompletableFuture.supplyAsync(() -> {
+                call.attach();
+                if (trace != null) trace.attach();
+                try {
+                    return delegate.post(h, contentLength, body);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                } finally {
+                    OcrCall.detach();
+                    ScanTrace.detach();
+                }
+            }, executor);
+            future.whenComplete((response, error) -> {
+                if (reserved != null) reserved.releaseExtra();
+                long micros = (System.nanoTime() - start) / 1000L;
+                if (error == null) {
+                    recordLatency(micros);
+                    if (region != null) ranking.record(region, micros);
+                } else if (!call.isCancelled() && region != null) {
+                    ranking.recordFailure(region);
+                }
+            });
+        }
+
+        /**
+         * 这份请求被采用：把它各阶段的耗时并入调用方的 trace（在调用方线程上、future 完成之后调用）
+         */
+        Response finish(Response response, ScanTrace target) {
+            if (target != null && trace != null) target.addAll(trace);
+            return response;
+        }
+
+        /**
+         * 断开这份请求的连接（上传中或等待响应中都会立即结束）
+         */
+        void cancel() {
+            call.cancel();
+        }
+    }
+}
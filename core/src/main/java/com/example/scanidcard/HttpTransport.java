@@ -0,0 +1,172 @@
+package com.example.scanidcard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基于 HttpURLConnection 的传输层，请求之间复用到同一 Host 的 keep-alive 连接。
+ *
+ * 连接池由系统的 HttpURLConnection 实现维护：只要响应体被读完并 close、且不调用 disconnect()，
+ * TCP + TLS 连接就会留在池中给下一次请求用。
+ *
+ * 这个池是整个进程共用的，HttpTransport 不配置它：Android 上每个地址最多留 5 条空闲连接、5 分钟后回收；
+ * JVM 上由 http.maxConnections 系统属性决定（默认 5，只在第一次请求前读取，由进程入口设置，见 ScanCli）。
+ *
+ * 超时分三段：建连、上传请求体、等待 / 读取响应。HttpURLConnection 写请求体时没有超时，
+ * 上传超时由一个定时器到点断开连接实现。
+ */
+public class HttpTransport implements OcrTransport {
+
+    public static class Config {
+        /** 请求地址 */
+        public String endpoint = TencentOcrClient.ENDPOINT;
+        /** 建立连接（DNS + TCP + TLS）超时 */
+        public int connectTimeoutMs = 15000;
+        /** 上传请求体超时（从开始写到写完） */
+        public int writeTimeoutMs = 30000;
+        /** 读响应超时（两次读取之间的最长等待） */
+        public int readTimeoutMs = 20000;
+    }
+
+    // 上传超时的定时器；所有 HttpTransport 共用一个线程，任务只做 disconnect
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ocr-http-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Config config;
+    private final URL url;
+
+    public HttpTransport(Config config) throws IOException {
+        this.config = config;
+        this.url = new URL(config.endpoint);
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    @Override
+    public Response post(Map<String, String> headers, long contentLength, BodyWriter body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        // 取消时直接断开：阻塞在 connect / 写请求体 / 读响应上的线程会立即以 IOException 返回
+        OcrCall call = OcrCall.current();
+        Runnable unregister = call != null ? call.onCancel(conn::disconnect) : null;
+        boolean ok = false;
+        try {
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setDoInput(true);
+            conn.setUseCaches(false);
+            // 长度已知：直接流式写出，HttpURLConnection 不再在内部缓存整个请求体
+            conn.setFixedLengthStreamingMode(contentLength);
+
+            conn.setConnectTimeout(config.connectTimeoutMs);
+            conn.setReadTimeout(config.readTimeoutMs);
+
+            for (Map.Entry<String, String> h : headers.entrySet()) {
+                conn.setRequestProperty(h.getKey(), h.getValue());
+            }
+
+            // 显式 connect，把建连（复用连接时几乎为 0）与上传、等待响应分开计时
+            long t0 = System.nanoTime();
+            conn.connect();
+            ScanTrace.record(ScanMetrics.Stage.CONNECT, t0, 0);
+            // 连接建立之前的 disconnect 不起作用，这里补一次检查
+            if (call != null) call.throwIfCancelled();
+
+            long t1 = System.nanoTime();
+            upload(conn, body);
+            ScanTrace.record(ScanMetrics.Stage.UPLOAD, t1, contentLength);
+
+            long t2 = System.nanoTime();
+            int code = conn.getResponseCode();
+            ScanTrace.record(ScanMetrics.Stage.TTFB, t2, 0);
+            InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
+            ok = true;
+            return new Response(code, is, () -> {
+                try {
+                    release(is);
+                } finally {
+                    if (unregister != null) unregister.run();
+                }
+            });
+        } finally {
+            // 出错时连接状态未知，不放回连接池
+            if (!ok) {
+                conn.disconnect();
+                if (unregister != null) unregister.run();
+            }
+        }
+    }
+
+    /**
+     * 写出请求体；超过 writeTimeoutMs 还没写完时断开连接，以 SocketTimeoutException 结束
+     */
+    private void upload(HttpURLConnection conn, BodyWriter body) throws IOException {
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            conn.disconnect();
+        }, config.writeTimeoutMs, TimeUnit.MILLISECONDS);
+        try {
+            OutputStream out = conn.getOutputStream();
+            body.writeTo(out);
+            out.flush();
+            out.close();
+        } catch (IOException e) {
+            if (!timedOut.get()) throw e;
+            SocketTimeoutException timeout = new SocketTimeoutException("上传超时（" + config.writeTimeoutMs + " ms）");
+            timeout.initCause(e);
+            throw timeout;
+        } finally {
+            deadline.cancel(false);
+        }
+    }
+
+    /**
+     * 发一个 HEAD 请求，让握手完成的连接留在连接池中；响应内容不关心。
+     */
+    @Override
+    public void warmUp() throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        boolean ok = false;
+        try {
+            conn.setRequestMethod("HEAD");
+            conn.setUseCaches(false);
+            conn.setConnectTimeout(config.connectTimeoutMs);
+            conn.setReadTimeout(config.readTimeoutMs);
+            int code = conn.getResponseCode();
+            release((code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream());
+            ok = true;
+        } finally {
+            if (!ok) conn.disconnect();
+        }
+    }
+
+    /**
+     * 读完剩余响应体再关闭，连接才会被放回连接池（而不是被关闭）。
+     */
+    private static void release(InputStream is) throws IOException {
+        if (is == null) return;
+        try {
+            byte[] skip = new byte[1024];
+            while (is.read(skip) != -1) {
+                // drain
+            }
+        } finally {
+            is.close();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.scanidcard;
+
+/**
+ * 识别结果的本地校验（GB 11643）：校验码、号码中的出生日期与 Birth 字段、前 6 位行政区划代码。
+ *
+ * 返回标志位，0 表示通过；不通过说明大概率识别错了字，应提示重拍，而不是把错误数据存下来。
+ * 只做整数运算和二分查找，不分配对象。
+ */
+public class IdCardValidator {
+
+    /** 不是 18 位，或含非法字符，或号码中的出生日期不存在 */
+    public static final int BAD_FORMAT = 1;
+    /** 第 18 位校验码不对 */
+    public static final int BAD_CHECKSUM = 1 << 1;
+    /** 号码中的出生日期与 Birth 字段不一致 */
+    public static final int BIRTH_MISMATCH = 1 << 2;
+    /** 前 6 位不在行政区划表中 */
+    public static final int UNKNOWN_REGION = 1 << 3;
+
+    private static final int[] WEIGHTS = {7, 9, 10, 5, 8, 4, 2, 1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+    private static final char[] CHECK_CODES = {'1', '0', 'X', '9', '8', '7', '6', '5', '4', '3', '2'};
+
+    /**
+     * 校验人像面结果；没有身份证号（国徽面、识别失败）时不校验，返回 0
+     */
+    public static int validate(IdentifyResult result) {
+        if (result.getErrorcode() != 0) return 0;
+        String idNum = result.getIdNum();
+        if (idNum == null || idNum.isEmpty()) return 0;
+        return validate(idNum, result.getBirth(), RegionIndex.bundled());
+    }
+
+    /**
+     * @param birth 识别出的出生日期（如 "1990/1/1"）；为空时不比对
+     */
+    public static int validate(String idNum, String birth, RegionIndex regions) {
+        if (idNum == null || idNum.length() != 18) return BAD_FORMAT;
+        int flags = 0;
+
+        int sum = 0;
+        for (int i = 0; i < 17; i++) {
+            char c = idNum.charAt(i);
+            if (c < '0' || c > '9') return BAD_FORMAT;
+            sum += (c - '0') * WEIGHTS[i];
+        }
+        char last = idNum.charAt(17);
+        if (last == 'x') last = 'X';
+        if ((last < '0' || last > '9') && last != 'X') return BAD_FORMAT;
+        if (last != CHECK_CODES[sum % 11]) flags |= BAD_CHECKSUM;
+
+        int year = RegionIndex.parseDigits(idNum, 6, 10);
+        int month = RegionIndex.parseDigits(idNum, 10, 12);
+        int day = RegionIndex.parseDigits(idNum, 12, 14);
+        if (!isValidDate(year, month, day)) {
+            flags |= BAD_FORMAT;
+        } else if (birth != null && !birth.isEmpty()
+                && parseBirth(birth) != year * 10000 + month * 100 + day) {
+            flags |= BIRTH_MISMATCH;
+        }
+
+        if (!regions.contains(RegionIndex.parseDigits(idNum, 0, 6))) flags |= UNKNOWN_REGION;
+        return flags;
+    }
+
+    /**
+     * 标志位的中文说明，用于日志和结果页；0 返回空字符串
+     */
+    public static String describe(int flags) {
+        StringBuilder sb = new StringBuilder();
+        if ((flags & BAD_FORMAT) != 0) append(sb, "身份证号格式不正确");
+        if ((flags & BAD_CHECKSUM) != 0) append(sb, "身份证号校验码不正确");
+        if ((flags & BIRTH_MISMATCH) != 0) append(sb, "身份证号与出生日期不一致");
+        if ((flags & UNKNOWN_REGION) != 0) append(sb, "身份证号地区码不存在");
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String s) {
+        if (sb.length() > 0) sb.append('，');
+        sb.append(s);
+    }
+
+    /**
+     * "1990/1/1"、"1990-01-01"、"1990年1月1日" 等按 年、月、日 三段数字解析为 yyyyMMdd；格式不对返回 -1
+     */
+    static int parseBirth(String birth) {
+        int value = 0;
+        int current = 0;
+        int parts = 0;
+        boolean inDigits = false;
+        for (int i = 0; i < birth.length(); i++) {
+            char c = birth.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (!inDigits) {
+                    if (++parts > 3) return -1;
+                    current = 0;
+                    inDigits = true;
+                }
+                current = current * 10 + (c - '0');
+                if (current > (parts == 1 ? 9999 : 99)) return -1;
+            } else if (inDigits) {
+                value = value * 100 + current;
+                inDigits = false;
+            }
+        }
+        if (inDigits) value = value * 100 + current;
+        return parts == 3 ? value : -1;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        if (year < 1800 || month < 1 || month > 12 || day < 1) return false;
+        int days;
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                days = leap ? 29 : 28;
+                break;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                days = 30;
+                break;
+            default:
+                days = 31;
+        }
+        return day <= days;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.scanidcard;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 身份证识别结果（从腾讯云 OCR 的 Response 节点中解析出来）
+ */
+public class IdentifyResult implements Serializable {
+
+    // 0 表示成功；非 0 表示失败（本项目自定义）
+    private int errorcode;
+    private String errormsg;
+
+    // 身份证正面字段
+    private String name;
+    private String sex;
+    private String nation;
+    private String birth;
+    private String address;
+    private String idNum;
+
+    // 身份证反面字段
+    private String authority;
+    private String validDate;
+
+    // 其他信息
+    private String requestId;
+    private String advancedInfo;
+    private String rawJson;
+
+    // 本地校验结果（IdCardValidator 的标志位）：0 表示通过或无需校验
+    private int checkFlags;
+
+    public int getErrorcode() {
+        return errorcode;
+    }
+
+    public void setErrorcode(int errorcode) {
+        this.errorcode = errorcode;
+    }
+
+    public String getErrormsg() {
+        return errormsg;
+    }
+
+    public void setErrormsg(String errormsg) {
+        this.errormsg = errormsg;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSex() {
+        return sex;
+    }
+
+    public void setSex(String sex) {
+        this.sex = sex;
+    }
+
+    public String getNation() {
+        return nation;
+    }
+
+    public void setNation(String nation) {
+        this.nation = nation;
+    }
+
+    public String getBirth() {
+        return birth;
+    }
+
+    public void setBirth(String birth) {
+        this.birth = birth;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getIdNum() {
+        return idNum;
+    }
+
+    public void setIdNum(String idNum) {
+        this.idNum = idNum;
+    }
+
+    public String getAuthority() {
+        return authority;
+    }
+
+    public void setAuthority(String authority) {
+        this.authority = authority;
+    }
+
+    public String getValidDate() {
+        return validDate;
+    }
+
+    public void setValidDate(String validDate) {
+        this.validDate = validDate;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public String getAdvancedInfo() {
+        return advancedInfo;
+    }
+
+    public void setAdvancedInfo(String advancedInfo) {
+        this.advancedInfo = advancedInfo;
+    }
+
+    public String getRawJson() {
+        return rawJson;
+    }
+
+    public void setRawJson(String rawJson) {
+        this.rawJson = rawJson;
+    }
+
+    public int getCheckFlags() {
+        return checkFlags;
+    }
+
+    public void setCheckFlags(int checkFlags) {
+        this.checkFlags = checkFlags;
+    }
+
+    /**
+     * 字段逐个复制的新对象（字段都是不可变类型），修改副本不影响原对象
+     */
+    public IdentifyResult copy() {
+        IdentifyResult r = new IdentifyResult();
+        r.errorcode = errorcode;
+        r.errormsg = errormsg;
+        r.name = name;
+        r.sex = sex;
+        r.nation = nation;
+        r.birth = birth;
+        r.address = address;
+        r.idNum = idNum;
+        r.authority = authority;
+        r.validDate = validDate;
+        r.requestId = requestId;
+        r.advancedInfo = advancedInfo;
+        r.rawJson = rawJson;
+        r.checkFlags = checkFlags;
+        return r;
+    }
+
+    // ====== 紧凑二进制格式（本地缓存等使用；字段顺序即格式，修改时需升级 FORMAT_VERSION）======
+
+    // 版本 2 增加 checkFlags；版本 1 的缓存仍可读取（checkFlags 为 0）
+    private static final int FORMAT_VERSION = 2;
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(errorcode);
+        writeString(out, errormsg);
+        writeString(out, name);
+        writeString(out, sex);
+        writeString(out, nation);
+        writeString(out, birth);
+        writeString(out, address);
+        writeString(out, idNum);
+        writeString(out, authority);
+        writeString(out, validDate);
+        writeString(out, requestId);
+        writeString(out, advancedInfo);
+        writeString(out, rawJson);
+        out.writeInt(checkFlags);
+    }
+
+    public static IdentifyResult readFrom(DataInput in) throws IOException {
+        int version = in.readByte();
+        if (version != 1 && version != FORMAT_VERSION) throw new IOException("不支持的结果格式版本：" + version);
+        IdentifyResult r = new IdentifyResult();
+        r.errorcode = in.readInt();
+        r.errormsg = readString(in);
+        r.name = readString(in);
+        r.sex = readString(in);
+        r.nation = readString(in);
+        r.birth = readString(in);
+        r.address = readString(in);
+        r.idNum = readString(in);
+        r.authority = readString(in);
+        r.validDate = readString(in);
+        r.requestId = readString(in);
+        r.advancedInfo = readString(in);
+        r.rawJson = readString(in);
+        if (version >= 2) r.checkFlags = in.readInt();
+        return r;
+    }
+
+    // writeUTF 限制 64KB，原始 JSON 可能超过，这里用 长度 + UTF-8 字节（-1 表示 null）
+    private static void writeString(DataOutput out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int len = in.readInt();
+        if (len < 0) return null;
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.scanidcard;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式解析 IDCardOCR 的返回：边读边按 token 填充 {@link IdentifyResult}，不构建整棵 JSON 树。
+ *
+ * 不关心的字段（以及默认情况下的 AdvancedInfo）直接跳过。
+ */
+public class IdentifyResultParser {
+
+    /**
+     * @param in               响应体（不会 close）
+     * @param keepAdvancedInfo 是否保留 AdvancedInfo（裁剪图片等，可能很大）
+     */
+    public static IdentifyResult parse(InputStream in, boolean keepAdvancedInfo) {
+        IdentifyResult result = null;
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("Response".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    result = readResponse(reader, keepAdvancedInfo);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (result == null) {
+                result = new IdentifyResult();
+                result.setErrorcode(1);
+                result.setErrormsg("返回数据中缺少 Response 字段");
+            }
+            return result;
+
+        } catch (Exception e) {
+            IdentifyResult failed = new IdentifyResult();
+            failed.setErrorcode(1);
+            failed.setErrormsg("解析 JSON 失败：" + e.getMessage());
+            return failed;
+        }
+    }
+
+    private static IdentifyResult readResponse(JsonReader reader, boolean keepAdvancedInfo) throws IOException {
+        IdentifyResult result = new IdentifyResult();
+        String errorCode = null;
+        String errorMsg = "";
+
+        // 未出现的字段按空字符串处理
+        result.setRequestId("");
+        result.setName("");
+        result.setSex("");
+        result.setNation("");
+        result.setBirth("");
+        result.setAddress("");
+        result.setIdNum("");
+        result.setAuthority("");
+        result.setValidDate("");
+        result.setAdvancedInfo("");
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "RequestId": result.setRequestId(readString(reader)); break;
+                // 正面字段
+                case "Name": result.setName(readString(reader)); break;
+                case "Sex": result.setSex(readString(reader)); break;
+                case "Nation": result.setNation(readString(reader)); break;
+                case "Birth": result.setBirth(readString(reader)); break;
+                case "Address": result.setAddress(readString(reader)); break;
+                case "IdNum": result.setIdNum(readString(reader)); break;
+                // 反面字段
+                case "Authority": result.setAuthority(readString(reader)); break;
+                case "ValidDate": result.setValidDate(readString(reader)); break;
+                // 其他
+                case "AdvancedInfo":
+                    if (keepAdvancedInfo) {
+                        result.setAdvancedInfo(readString(reader));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                // 错误结构：{"Response":{"Error":{"Code":"","Message":""},"RequestId":""}}
+                case "Error":
+                    errorCode = "";
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String field = reader.nextName();
+                            if ("Code".equals(field)) errorCode = readString(reader);
+                            else if ("Message".equals(field)) errorMsg = readString(reader);
+                            else reader.skipValue();
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (errorCode != null) {
+            // 出错时只保留 RequestId
+            IdentifyResult error = new IdentifyResult();
+            error.setRequestId(result.getRequestId());
+            error.setErrorcode(1);
+            error.setErrormsg(errorCode + (errorMsg.isEmpty() ? "" : (": " + errorMsg)));
+            return error;
+        }
+
+        result.setErrorcode(0);
+        result.setErrormsg("");
+        result.setCheckFlags(IdCardValidator.validate(result));
+        return result;
+    }
+
+    /**
+     * 字符串 / 数字 / 布尔按文本读取；null 视为空字符串；对象或数组按紧凑 JSON 文本保留
+     */
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        switch (token) {
+            case NULL:
+                reader.nextNull();
+                return "";
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                return JsonParser.parseReader(reader).toString();
+            default:
+                return reader.nextString();
+        }
+    }
+}
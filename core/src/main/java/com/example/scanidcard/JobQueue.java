@@ -0,0 +1,421 @@
+package com.example.scanidcard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 离线识别队列：网络不可用时把压缩好的 JPEG 和参数落盘，网络恢复后按入队顺序补发。
+ *
+ * 磁盘上是只追加的 spool 文件 + 一个很小的索引文件（当前 spool 的代号和队首偏移）。
+ * spool 的记录格式见 {@link SealedRecordCodec}，加密部分为 版本 + 入队时间 + CardSide + Region + JPEG。
+ * 每次入队都 fsync 后才返回；打开时从队首校验到文件尾，写了一半的尾部记录（进程被杀、断电）直接截掉。
+ * 完成一条只前移索引里的队首偏移；队列清空，或已完成部分过大且剩余记录不多时，把剩余记录拷到新一代 spool
+ * 再切换索引，切换前崩溃仍使用旧文件。拷贝时持有队列的锁，所以只拷少量数据，不让入队长时间等待。发送成功但索引还没前移时崩溃，该条会在重启后再发一次（至少一次）。
+ *
+ * 内存中只有队首偏移、文件尾和条数，与积压多少无关；JPEG 原样保存，重发时不再压缩。
+ */
+public class JobQueue implements Closeable {
+
+    public static class Config {
+        /** spool 总大小上限，超过后拒绝入队 */
+        public long maxSpoolBytes = 256 * 1024 * 1024L;
+        /** 已完成部分超过此大小时压缩 spool */
+        public long compactBytes = 16 * 1024 * 1024L;
+        /** 剩余记录超过此大小时推迟压缩（等补发到剩余不多时再压缩） */
+        public long compactMaxCopyBytes = 2 * 1024 * 1024L;
+    }
+
+    /**
+     * 队列中的一条识别任务
+     */
+    public static class Job {
+        /** 在当前 spool 中的位置，完成时用于确认是队首 */
+        final long offset;
+        final long end;
+        public final long createdMs;
+        public final String cardSide;
+        public final String region;
+        public final byte[] jpeg;
+
+        Job(long offset, long end, long createdMs, String cardSide, String region, byte[] jpeg) {
+            this.offset = offset;
+            this.end = end;
+            this.createdMs = createdMs;
+            this.cardSide = cardSide;
+            this.region = region;
+            this.jpeg = jpeg;
+        }
+    }
+
+    public interface Sender {
+        IdentifyResult send(Job job) throws Exception;
+    }
+
+    public interface Listener {
+        /**
+         * 一条任务有了最终结果（成功，或重试也不会好的失败），已从队列移除
+         */
+        void onJobFinished(Job job, IdentifyResult result);
+    }
+
+    private static final int MAGIC = 0x4F434A51; // "OCJQ"
+    private static final int FORMAT_VERSION = 1;
+    // 单条记录的合理上限，用于识别损坏的长度字段
+    private static final int MAX_RECORD_BYTES = 32 * 1024 * 1024;
+
+    private static final String INDEX_FILE = "queue.idx";
+    private static final String SPOOL_PREFIX = "spool-";
+    private static final String SPOOL_SUFFIX = ".dat";
+
+    private final Config config;
+    private final File dir;
+    private final SealedRecordCodec codec;
+    private final Object drainLock = new Object();
+
+    private long generation;
+    private RandomAccessFile spool;
+    private long head;
+    private long tail;
+    private int size;
+    private int dropped;
+
+    /**
+     * 打开（或新建）dir 下的队列并恢复：截掉不完整的尾部记录，清理旧代 spool
+     */
+    public JobQueue(Config config, File dir, SecretKey key) throws IOException {
+        this.config = config;
+        this.dir = dir;
+        this.codec = new SealedRecordCodec(MAGIC, MAX_RECORD_BYTES, key);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建队列目录：" + dir);
+        recover();
+    }
+
+    /**
+     * 入队；返回时记录已落盘
+     */
+    public synchronized void enqueue(byte[] jpeg, String cardSide, String region) throws IOException {
+        byte[] record = codec.frame(encode(System.currentTimeMillis(), cardSide, region, jpeg));
+        if (tail - head + record.length > config.maxSpoolBytes) {
+            throw new IOException("离线队列已满（" + size + " 条）");
+        }
+
+        spool.seek(tail);
+        spool.write(record);
+        spool.getChannel().force(false);
+        tail += record.length;
+        size++;
+    }
+
+    /**
+     * 队首任务（不移除）；队列为空时返回 null。
+     *
+     * 无法解密的记录（例如密钥已被系统清除）直接丢弃，不让整个队列卡住。
+     */
+    public synchronized Job peek() throws IOException {
+        while (head < tail) {
+            Record r = readRecord(head, tail);
+            if (r == null) {
+                // 恢复时已校验过，这里只可能是磁盘损坏：之后的记录都不可信
+                tail = head;
+                size = 0;
+                spool.setLength(tail);
+                return null;
+            }
+            try {
+                return decode(head, r.end, codec.open(r.sealed));
+            } catch (IOException e) {
+                head = r.end;
+                size--;
+                dropped++;
+                writeIndex(generation, head);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 因无法解密而丢弃的记录数（本次打开以来）
+     */
+    public synchronized int dropped() {
+        return dropped;
+    }
+
+    /**
+     * 移除队首任务（必须是 {@link #peek()} 返回的那一条）
+     */
+    public synchronized void remove(Job job) throws IOException {
+        if (job.offset != head) throw new IllegalStateException("只能移除队首任务");
+        // 索引写成功后才更新内存状态：抛出异常时该条仍在队首，内存与磁盘一致
+        long next = job.end;
+        boolean compacted = false;
+        if (next >= tail || (next >= config.compactBytes && tail - next <= config.compactMaxCopyBytes)) {
+            try {
+                compact(next);
+                compacted = true;
+            } catch (IOException e) {
+                // 压缩只是回收空间，失败时照常前移队首
+            }
+        }
+        if (!compacted) {
+            writeIndex(generation, next);
+            head = next;
+        }
+        size--;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 当前 spool 中未完成部分的字节数
+     */
+    public synchronized long pendingBytes() {
+        return tail - head;
+    }
+
+    /**
+     * 按入队顺序发送，直到队列为空，或遇到网络错误 / 限流（该条留在队首，稍后重试）。
+     * 同一时间只有一个线程在补发；入队不受影响。
+     *
+     * @return 本次完成（已从队列移除）的条数
+     */
+    public int drain(Sender sender, Listener listener) throws IOException, InterruptedException {
+        synchronized (drainLock) {
+            int done = 0;
+            Job job;
+            while ((job = peek()) != null) {
+                if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+                IdentifyResult result;
+                try {
+                    result = sender.send(job);
+                } catch (FrameQuality.RejectedException e) {
+                    result = failure(e.getMessage());
+                } catch (IOException e) {
+                    return done;
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    result = failure("识别失败：" + e.getMessage());
+                }
+                if (OcrScheduler.isThrottled(result)) return done;
+
+                remove(job);
+                done++;
+                if (listener != null) listener.onJobFinished(job, result);
+            }
+            return done;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        spool.close();
+    }
+
+    // ====== 恢复与压缩 ======
+
+    private void recover() throws IOException {
+        long[] index = readIndex();
+        generation = index != null ? index[0] : latestGeneration();
+        head = index != null ? index[1] : 0;
+
+        File file = spoolFile(generation);
+        spool = new RandomAccessFile(file, "rw");
+        long length = spool.length();
+        if (head > length) head = length;
+
+        // 从队首校验到文件尾，第一条不完整 / 校验失败的记录之后全部截掉
+        long pos = head;
+        int count = 0;
+        Record r;
+        while (pos < length && (r = readRecord(pos, length)) != null) {
+            pos = r.end;
+            count++;
+        }
+        if (pos < length) {
+            spool.setLength(pos);
+            spool.getChannel().force(true);
+        }
+        tail = pos;
+        size = count;
+
+        if (index == null) writeIndex(generation, head);
+        deleteOtherSpools();
+    }
+
+    /**
+     * 把 [from, tail) 拷到下一代 spool，fsync 后切换索引，再删除旧文件；失败时当前状态和文件都不变
+     */
+    private void compact(long from) throws IOException {
+        long next = generation + 1;
+        File nextFile = spoolFile(next);
+        RandomAccessFile nextSpool = new RandomAccessFile(nextFile, "rw");
+        try {
+            nextSpool.setLength(0);
+            byte[] buf = new byte[64 * 1024];
+            long pos = from;
+            while (pos < tail) {
+                int n = (int) Math.min(buf.length, tail - pos);
+                spool.seek(pos);
+                spool.readFully(buf, 0, n);
+                nextSpool.write(buf, 0, n);
+                pos += n;
+            }
+            nextSpool.getChannel().force(true);
+            writeIndex(next, 0);
+        } catch (IOException e) {
+            closeQuietly(nextSpool);
+            nextFile.delete();
+            throw e;
+        }
+
+        // 索引已指向新文件，之后的步骤失败也不影响一致性
+        closeQuietly(spool);
+        spoolFile(generation).delete();
+        spool = nextSpool;
+        generation = next;
+        tail -= from;
+        head = 0;
+    }
+
+    private static void closeQuietly(RandomAccessFile f) {
+        try {
+            f.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeIndex(long gen, long headOffset) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(20);
+        buf.putLong(gen).putLong(headOffset);
+        buf.putInt(SealedRecordCodec.crc(buf.array(), 0, 16));
+
+        // 先写临时文件再改名，索引要么是旧值要么是新值
+        File tmp = new File(dir, INDEX_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(buf.array());
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(new File(dir, INDEX_FILE))) throw new IOException("无法更新队列索引");
+    }
+
+    /**
+     * @return {代号, 队首偏移}；不存在或损坏时返回 null
+     */
+    private long[] readIndex() {
+        File f = new File(dir, INDEX_FILE);
+        if (f.length() != 20) return null;
+        try (RandomAccessFile in = new RandomAccessFile(f, "r")) {
+            byte[] b = new byte[20];
+            in.readFully(b);
+            ByteBuffer buf = ByteBuffer.wrap(b);
+            long gen = buf.getLong();
+            long headOffset = buf.getLong();
+            if (buf.getInt() != SealedRecordCodec.crc(b, 0, 16)) return null;
+            return new long[]{gen, headOffset};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 索引丢失时用最新一代 spool，从头开始（已完成的任务可能重发）
+     */
+    private long latestGeneration() {
+        long latest = 0;
+        File[] files = dir.listFiles();
+        if (files == null) return latest;
+        for (File f : files) {
+            long gen = parseGeneration(f.getName());
+            if (gen > latest) latest = gen;
+        }
+        return latest;
+    }
+
+    private void deleteOtherSpools() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File f : files) {
+            long gen = parseGeneration(f.getName());
+            if (gen >= 0 && gen != generation) f.delete();
+        }
+    }
+
+    private File spoolFile(long gen) {
+        return new File(dir, SPOOL_PREFIX + gen + SPOOL_SUFFIX);
+    }
+
+    private static long parseGeneration(String name) {
+        if (!name.startsWith(SPOOL_PREFIX) || !name.endsWith(SPOOL_SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(SPOOL_PREFIX.length(), name.length() - SPOOL_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ====== 记录格式 ======
+
+    private static final class Record {
+        final byte[] sealed;
+        final long end;
+
+        Record(byte[] sealed, long end) {
+            this.sealed = sealed;
+            this.end = end;
+        }
+    }
+
+    /**
+     * 读 pos 处的一条记录；不完整或校验失败返回 null
+     */
+    private Record readRecord(long pos, long limit) throws IOException {
+        spool.seek(pos);
+        byte[] sealed = codec.read(spool, limit - pos);
+        return sealed != null ? new Record(sealed, pos + SealedRecordCodec.recordBytes(sealed)) : null;
+    }
+
+    private static byte[] encode(long createdMs, String cardSide, String region, byte[] jpeg) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(jpeg.length + 64);
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(createdMs);
+        out.writeUTF(cardSide == null ? "" : cardSide);
+        out.writeUTF(region == null ? "" : region);
+        out.writeInt(jpeg.length);
+        out.write(jpeg);
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    private static Job decode(long offset, long end, byte[] plain) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) throw new IOException("不支持的队列记录版本：" + version);
+        long createdMs = in.readLong();
+        String cardSide = in.readUTF();
+        String region = in.readUTF();
+        byte[] jpeg = new byte[in.readInt()];
+        in.readFully(jpeg);
+        return new Job(offset, end, createdMs, cardSide.isEmpty() ? null : cardSide,
+                region.isEmpty() ? null : region, jpeg);
+    }
+
+    private static IdentifyResult failure(String msg) {
+        IdentifyResult result = new IdentifyResult();
+        result.setErrorcode(1);
+        result.setErrormsg(msg);
+        return result;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.scanidcard;
+
+import java.io.IOException;
+
+/**
+ * 按字节预算压缩 JPEG：在不低于最小清晰分辨率的前提下，找出不超过预算的最高质量 / 最大尺寸。
+ *
+ * 搜索顺序：先在当前尺寸上二分质量；最低质量仍超预算时才按面积比例缩小尺寸。
+ * 总编码次数有上限，每次编码都写入调用方复用的同一个输出缓冲区。
+ */
+public class JpegBudget {
+
+    /** 目标大小上限（JPEG 字节数） */
+    public int maxBytes;
+    /** 短边最小像素数，低于此值文字可能无法识别 */
+    public int minShortSide = 600;
+    public int maxQuality = 90;
+    public int minQuality = 50;
+    /** 质量的搜索步长 */
+    public int qualityStep = 5;
+    /** 最多编码次数（不含最后一次为取回最佳结果而做的重编码） */
+    public int maxAttempts = 8;
+
+    public JpegBudget(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 上传用的默认预算：256KB。1280 像素内的身份证照片通常 q=80 左右即可放下，文字仍清晰。
+     */
+    public static JpegBudget forUpload() {
+        return new JpegBudget(256 * 1024);
+    }
+
+    /**
+     * 按给定缩放比例和质量编码一次，结果写入调用方的共享缓冲区（覆盖上一次），返回字节数。
+     */
+    public interface Encoder {
+        int encode(float scale, int quality) throws IOException;
+    }
+
+    /**
+     * 搜索结果；返回时共享缓冲区中就是该结果对应的编码数据。
+     */
+    public static class Choice {
+        public float scale;
+        public int quality;
+        public int size;
+        /** 实际编码次数 */
+        public int attempts;
+        /** 是否满足预算；不满足时为尝试过的最小结果 */
+        public boolean fits;
+    }
+
+    /**
+     * @param shortSide 原图（scale = 1）的短边像素数
+     */
+    public Choice search(int shortSide, Encoder encoder) throws IOException {
+        float minScale = Math.min(1f, (float) minShortSide / Math.max(1, shortSide));
+        float scale = 1f;
+
+        Choice best = null;      // 满足预算的最佳结果
+        Choice smallest = null;  // 尝试过的最小结果（兜底）
+        Choice last = null;      // 共享缓冲区中当前的内容
+        int attempts = 0;
+
+        while (attempts < maxAttempts) {
+            // 1) 最高质量能放下就直接用
+            last = encode(encoder, scale, maxQuality);
+            attempts++;
+            smallest = smaller(smallest, last);
+            if (last.size <= maxBytes) {
+                best = last;
+                break;
+            }
+
+            // 2) 最低质量也放不下：只能缩小尺寸
+            if (attempts >= maxAttempts) break;
+            last = encode(encoder, scale, minQuality);
+            attempts++;
+            smallest = smaller(smallest, last);
+            if (last.size <= maxBytes) {
+                // 3) 在 (minQuality, maxQuality) 之间按步长二分，找能放下的最高质量
+                best = last;
+                int lo = 1;
+                int hi = (maxQuality - minQuality) / qualityStep - 1;
+                while (lo <= hi && attempts < maxAttempts) {
+                    int mid = (lo + hi) >>> 1;
+                    last = encode(encoder, scale, minQuality + mid * qualityStep);
+                    attempts++;
+                    if (last.size <= maxBytes) {
+                        best = last;
+                        lo = mid + 1;
+                    } else {
+                        hi = mid - 1;
+                    }
+                }
+                break;
+            }
+
+            if (scale <= minScale) break;
+            // JPEG 大小大致与像素面积成正比，多缩一点以减少重试
+            float ratio = (float) Math.sqrt((double) maxBytes / last.size) * 0.95f;
+            scale = Math.max(minScale, scale * Math.min(ratio, 0.9f));
+        }
+
+        Choice chosen = best != null ? best : smallest;
+        if (chosen != last) {
+            // 共享缓冲区里是最后一次尝试的数据，重新编码选中的参数
+            encoder.encode(chosen.scale, chosen.quality);
+            attempts++;
+        }
+        chosen.attempts = attempts;
+        chosen.fits = best != null;
+        return chosen;
+    }
+
+    private static Choice encode(Encoder encoder, float scale, int quality) throws IOException {
+        Choice c = new Choice();
+        c.scale = scale;
+        c.quality = quality;
+        c.size = encoder.encode(scale, quality);
+        return c;
+    }
+
+    private static Choice smaller(Choice a, Choice b) {
+        return (a == null || b.size < a.size) ? b : a;
+    }
+}
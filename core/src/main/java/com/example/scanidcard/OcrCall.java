@@ -0,0 +1,209 @@
+package com.example.scanidcard;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一次可取消的识别调用。
+ *
+ * 取消时：执行登记的取消动作（{@link HttpTransport} 登记的是 disconnect，阻塞在读写上的连接立刻断开），
+ * 中断执行线程（排队、等待对冲等阻塞点立即返回），并让各 CPU 阶段在下一个检查点退出
+ * （解码、每次压缩尝试、请求体每个编码块之间）。被取消的调用不会再回调。
+ *
+ * 与 {@link ScanTrace} 一样按线程绑定：执行某个阶段的线程先 {@link #attach()}，
+ * 被调用的代码通过 {@link #current()} / {@link #checkCancelled()} 找到它。
+ */
+public class OcrCall implements Future<IdentifyResult> {
+
+    public interface Task {
+        IdentifyResult run(OcrCall call) throws Exception;
+    }
+
+    public interface Callback {
+        /**
+         * 调用结束（成功，或 errorcode = 1 的失败结果），在执行线程上回调；取消后不会回调
+         */
+        void onFinished(IdentifyResult result);
+    }
+
+    private static final ThreadLocal<OcrCall> CURRENT = new ThreadLocal<>();
+
+    private final Object lock = new Object();
+    private final List<Runnable> hooks = new ArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean cancelled;
+    private boolean done;
+    private Thread runner;
+    private IdentifyResult result;
+
+    /**
+     * 在 executor 上执行 task，立即返回可用于取消的句柄
+     */
+    public static OcrCall submit(Executor executor, Task task, Callback callback) {
+        OcrCall call = new OcrCall();
+        executor.execute(() -> call.run(task, callback));
+        return call;
+    }
+
+    /**
+     * 当前线程绑定的调用，可能为 null
+     */
+    public static OcrCall current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程绑定的调用已被取消时抛出 InterruptedIOException；没有绑定调用时什么也不做
+     */
+    public static void checkCancelled() throws InterruptedIOException {
+        OcrCall call = CURRENT.get();
+        if (call != null) call.throwIfCancelled();
+    }
+
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    public void throwIfCancelled() throws InterruptedIOException {
+        if (cancelled) throw new InterruptedIOException("识别已取消");
+    }
+
+    /**
+     * 登记取消时要执行的动作；已取消时立即执行。
+     *
+     * @return 用于撤销登记的 Runnable（资源正常释放后调用）
+     */
+    public Runnable onCancel(Runnable hook) {
+        synchronized (lock) {
+            if (!cancelled) {
+                hooks.add(hook);
+                return () -> {
+                    synchronized (lock) {
+                        hooks.remove(hook);
+                    }
+                };
+            }
+        }
+        hook.run();
+        return () -> { };
+    }
+
+    /**
+     * 创建一个随本调用一起取消、也可以单独取消的子调用（例如对冲请求中的一份）
+     */
+    public OcrCall newChild() {
+        OcrCall child = new OcrCall();
+        onCancel(child::cancel);
+        return child;
+    }
+
+    /**
+     * 在 executor 上执行 task 的子调用：本调用取消时它也取消（例如正反面识别中的另一面）
+     */
+    public OcrCall submitChild(Executor executor, Task task) {
+        OcrCall child = newChild();
+        executor.execute(() -> child.run(task, null));
+        return child;
+    }
+
+    /**
+     * 取消；已结束或已取消时无效果
+     */
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (lock) {
+            if (cancelled || done) return;
+            cancelled = true;
+            toRun = new ArrayList<>(hooks);
+            hooks.clear();
+        }
+        for (Runnable hook : toRun) {
+            try {
+                hook.run();
+            } catch (RuntimeException ignored) {
+                // 取消动作尽力而为
+            }
+        }
+        // 持锁中断：run() 持同一把锁清空 runner 之后才清中断标记，
+        // 所以只会打断仍在执行本调用的线程，不会落到线程池接着执行的其他任务上
+        synchronized (lock) {
+            if (runner != null) runner.interrupt();
+        }
+        finished.countDown();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        cancel();
+        return cancelled;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    @Override
+    public IdentifyResult get() throws InterruptedException, ExecutionException {
+        finished.await();
+        return resultOrThrow();
+    }
+
+    @Override
+    public IdentifyResult get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (!finished.await(timeout, unit)) throw new TimeoutException();
+        return resultOrThrow();
+    }
+
+    private IdentifyResult resultOrThrow() {
+        if (cancelled) throw new CancellationException("识别已取消");
+        return result;
+    }
+
+    private void run(Task task, Callback callback) {
+        synchronized (lock) {
+            if (cancelled) return;
+            runner = Thread.currentThread();
+        }
+        IdentifyResult r;
+        attach();
+        try {
+            r = task.run(this);
+        } catch (Exception e) {
+            r = new IdentifyResult();
+            r.setErrorcode(1);
+            r.setErrormsg("识别失败：" + e.getMessage());
+        } finally {
+            detach();
+            synchronized (lock) {
+                runner = null;
+                done = !cancelled;
+            }
+            // 清掉取消时可能留下的中断标记，线程池的线程要继续复用
+            Thread.interrupted();
+        }
+
+        if (cancelled) return;
+        result = r;
+        finished.countDown();
+        if (callback != null) callback.onFinished(r);
+    }
+}
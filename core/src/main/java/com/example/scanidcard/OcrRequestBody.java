@@ -0,0 +1,96 @@
+package com.example.scanidcard;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * IDCardOCR 请求体的流式写出：{"ImageBase64":"...","CardSide":"..."}
+ *
+ * JPEG 字节边读边做 Base64，直接写入目标流；不再生成完整的 Base64 字符串和 payload 字符串。
+ * 签名用的 HashedRequestPayload 也用同一段写出逻辑计算，保证与实际发送的字节完全一致。
+ */
+public class OcrRequestBody {
+
+    // 每次编码 3 的整数倍字节，输出正好是 4/3 倍，且中间块不会出现 '=' 填充
+    private static final int CHUNK_BYTES = 3 * 1024;
+
+    private final byte[] jpeg;
+    private final int length;
+    private final byte[] prefix;
+    private final byte[] suffix;
+    private String sha256Hex;
+
+    /**
+     * @param jpeg     压缩后的 JPEG 原始字节（不是 Base64）
+     * @param cardSide 可选："FRONT" / "BACK" / null（不填代表自动）
+     */
+    public OcrRequestBody(byte[] jpeg, String cardSide) {
+        this(jpeg, jpeg.length, cardSide);
+    }
+
+    /**
+     * 只使用 jpeg 的前 length 个字节（复用缓冲区的视图，见 {@link PooledByteStream}）；发送完成前不能改动
+     */
+    public OcrRequestBody(byte[] jpeg, int length, String cardSide) {
+        if (length < 0 || length > jpeg.length) throw new IllegalArgumentException("length 越界：" + length);
+        this.jpeg = jpeg;
+        this.length = length;
+        this.prefix = "{\"ImageBase64\":\"".getBytes(StandardCharsets.UTF_8);
+        String tail = "\"";
+        if (cardSide != null && !cardSide.trim().isEmpty()) {
+            tail += ",\"CardSide\":\"" + cardSide + "\"";
+        }
+        this.suffix = (tail + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 请求体总字节数（用于 setFixedLengthStreamingMode）
+     */
+    public long contentLength() {
+        return prefix.length + 4L * ((length + 2) / 3) + suffix.length;
+    }
+
+    /**
+     * 请求体的 SHA-256（小写 16 进制），即签名中的 HashedRequestPayload。只计算一次。
+     */
+    public synchronized String sha256Hex() throws Exception {
+        if (sha256Hex == null) {
+            final MessageDigest sha = Tc3Signer.sha256Digest();
+            writeTo(new OutputStream() {
+                @Override
+                public void write(int b) {
+                    sha.update((byte) b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    sha.update(b, off, len);
+                }
+            });
+            sha256Hex = Tc3Signer.bytesToHex(sha.digest());
+        }
+        return sha256Hex;
+    }
+
+    /**
+     * 把完整请求体写入 out（不会 close）。全程只占用一个固定大小的编码缓冲区。
+     *
+     * 当前线程绑定的 {@link OcrCall} 被取消时，在下一个编码块处抛出 InterruptedIOException。
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        OcrCall call = OcrCall.current();
+        out.write(prefix);
+
+        byte[] buf = new byte[Base64Util.encodedLength(CHUNK_BYTES)];
+        for (int off = 0; off < length; off += CHUNK_BYTES) {
+            if (call != null) call.throwIfCancelled();
+            int len = Math.min(CHUNK_BYTES, length - off);
+            int n = Base64Util.encode(jpeg, off, len, buf, 0);
+            out.write(buf, 0, n);
+        }
+
+        out.write(suffix);
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.scanidcard;
+
+import java.io.InterruptedIOException;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 调用 OCR 接口前的排队：令牌桶限制 QPS，交互式的单张识别排在批量任务前面。
+ *
+ * 调用在调用方自己的线程上执行，调度器只决定“什么时候可以发”：
+ * 轮到队首、有并发名额、有令牌三者同时满足才放行。
+ * 收到 RequestLimitExceeded 时按 AIMD 学习：速率乘以 0.7 并暂停一段指数增长的时间后重试；
+ * 之后每次成功把速率慢慢加回配置值。
+ */
+public class OcrScheduler {
+
+    public enum Priority {
+        /** 用户正在等待的单张识别 */
+        INTERACTIVE,
+        /** 后台批量任务 */
+        BATCH
+    }
+
+    public static class Config {
+        /** 账号的 QPS 配额（IDCardOCR 默认 20 次/秒，按实际配额调整） */
+        public double qps = 20;
+        /** 令牌桶容量（允许的瞬时突发） */
+        public int burst = 5;
+        /** 同时在途的请求数上限 */
+        public int maxConcurrent = 8;
+        /** 被限流后最多重试次数 */
+        public int maxRetries = 3;
+        /** 被限流后的暂停时间：初始值，连续限流时翻倍 */
+        public long initialBackoffMs = 200;
+        public long maxBackoffMs = 5000;
+        /** 被限流后速率不低于 qps 的这个比例 */
+        public double minRateFraction = 0.2;
+    }
+
+    public interface Call {
+        IdentifyResult call() throws Exception;
+    }
+
+    public static class Stats {
+        /** 放行的请求数（含重试） */
+        public long dispatched;
+        /** 收到 RequestLimitExceeded 的次数 */
+        public long throttled;
+        /** 重试次数 */
+        public long retried;
+        /** 当前速率（次/秒） */
+        public double rate;
+        public int queued;
+    }
+
+    private static volatile OcrScheduler defaultScheduler;
+
+    /** 正在当前线程上执行 call 的调度器，供传输层给额外发出的请求（对冲）申请名额 */
+    private static final ThreadLocal<OcrScheduler> CURRENT = new ThreadLocal<>();
+
+    private final Config config;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final TokenBucket bucket;
+    private long sequence;
+    private int inFlight;
+    private long pauseUntilNanos;
+    private int consecutiveThrottles;
+
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    public OcrScheduler(Config config) {
+        this.config = config;
+        this.bucket = new TokenBucket(config.qps, Math.max(1, config.burst), System.nanoTime());
+    }
+
+    /**
+     * 进程内共享的调度器（同一账号的所有调用应使用同一个）
+     */
+    public static OcrScheduler getDefault() {
+        OcrScheduler s = defaultScheduler;
+        if (s == null) {
+            synchronized (OcrScheduler.class) {
+                if (defaultScheduler == null) defaultScheduler = new OcrScheduler(new Config());
+                s = defaultScheduler;
+            }
+        }
+        return s;
+    }
+
+    public static void setDefault(OcrScheduler scheduler) {
+        defaultScheduler = scheduler;
+    }
+
+    /**
+     * 当前线程正在其中执行 call 的调度器；不经过调度器直接调用时为 null
+     */
+    public static OcrScheduler current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 排队等到可以发送后在当前线程执行 call；被限流时自动重试，超过次数后返回最后一次的限流结果
+     */
+    public IdentifyResult call(Priority priority, Call call) throws Exception {
+        long seq = -1;
+        for (int attempt = 0; ; attempt++) {
+            seq = acquire(priority, seq);
+            IdentifyResult result;
+            OcrScheduler outer = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                result = call.call();
+            } finally {
+                if (outer != null) {
+                    CURRENT.set(outer);
+                } else {
+                    CURRENT.remove();
+                }
+                release();
+            }
+
+            if (!isThrottled(result)) {
+                onSuccess();
+                return result;
+            }
+            throttled.incrementAndGet();
+            onThrottled();
+            if (attempt >= config.maxRetries) return result;
+            retried.incrementAndGet();
+        }
+    }
+
+    /**
+     * 为同一次调用额外发出的一份请求（对冲）立即申请一个令牌和并发名额，不排队：
+     * 有人在排队、并发已满、处于限流暂停或没有令牌时返回 false，调用方不应再发这份请求。
+     * 返回 true 时，这份请求结束后必须调用 {@link #releaseExtra()}
+     */
+    public boolean tryAcquireExtra() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (!queue.isEmpty() || inFlight >= config.maxConcurrent || pauseUntilNanos > now
+                    || bucket.nanosUntilAvailable(now) > 0) {
+                return false;
+            }
+            bucket.take(now);
+            inFlight++;
+            dispatched.incrementAndGet();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void releaseExtra() {
+        release();
+    }
+
+    public Stats stats() {
+        Stats s = new Stats();
+        s.dispatched = dispatched.get();
+        s.throttled = throttled.get();
+        s.retried = retried.get();
+        lock.lock();
+        try {
+            s.rate = bucket.rate();
+            s.queued = queue.size();
+        } finally {
+            lock.unlock();
+        }
+        return s;
+    }
+
+    static boolean isThrottled(IdentifyResult result) {
+        return result != null && result.getErrorcode() != 0 && result.getErrormsg() != null
+                && result.getErrormsg().startsWith("RequestLimitExceeded");
+    }
+
+    /**
+     * @param seq 重试时沿用第一次的序号，保持在同优先级中的位置；首次传 -1
+     * @return 本次使用的序号
+     */
+    private long acquire(Priority priority, long seq) throws InterruptedIOException {
+        lock.lock();
+        try {
+            Ticket me = new Ticket(priority, seq >= 0 ? seq : sequence++);
+            queue.add(me);
+            try {
+                while (true) {
+                    if (queue.peek() == me && inFlight < config.maxConcurrent) {
+                        long now = System.nanoTime();
+                        long wait = Math.max(pauseUntilNanos - now, bucket.nanosUntilAvailable(now));
+                        if (wait <= 0) break;
+                        changed.awaitNanos(wait);
+                    } else {
+                        changed.await();
+                    }
+                }
+            } catch (InterruptedException e) {
+                queue.remove(me);
+                changed.signalAll();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("排队时被中断");
+            }
+            queue.poll();
+            bucket.take(System.nanoTime());
+            inFlight++;
+            dispatched.incrementAndGet();
+            // 新的队首需要重新检查条件
+            changed.signalAll();
+            return me.seq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSuccess() {
+        lock.lock();
+        try {
+            consecutiveThrottles = 0;
+            double rate = bucket.rate();
+            if (rate < config.qps) {
+                // 加性恢复：每次成功加回配置速率的 2%
+                bucket.setRate(Math.min(config.qps, rate + config.qps * 0.02), System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onThrottled() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            consecutiveThrottles++;
+            long backoffMs = Math.min(config.maxBackoffMs,
+                    config.initialBackoffMs << Math.min(consecutiveThrottles - 1, 20));
+            pauseUntilNanos = Math.max(pauseUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(backoffMs));
+            bucket.setRate(Math.max(config.qps * config.minRateFraction, bucket.rate() * 0.7), now);
+            bucket.drain(now);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Ticket implements Comparable<Ticket> {
+        final Priority priority;
+        final long seq;
+
+        Ticket(Priority priority, long seq) {
+            this.priority = priority;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Ticket o) {
+            int c = priority.compareTo(o.priority);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+}
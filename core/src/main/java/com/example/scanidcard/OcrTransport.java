@@ -0,0 +1,58 @@
+package com.example.scanidcard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * TencentOcrClient 的 HTTP 传输层。
+ *
+ * 默认实现是 {@link HttpTransport}（HttpURLConnection + 连接复用）；
+ * 测试时可以换成本地桩实现，见 {@link TencentOcrClient#setTransport(OcrTransport)}。
+ */
+public interface OcrTransport {
+
+    /**
+     * 发送一次 POST 请求。
+     *
+     * @param headers       请求头（必须原样发送，签名依赖其中的部分字段）
+     * @param contentLength 请求体字节数
+     * @param body          请求体写出逻辑；post 返回或抛出异常之后，实现不能再调用它
+     *                      （调用方随后可能把请求体所在的缓冲区还给 {@link BytePool}）
+     * @return 响应；调用方读完后必须 close，连接才能回到连接池
+     */
+    Response post(Map<String, String> headers, long contentLength, BodyWriter body) throws IOException;
+
+    /**
+     * 预先建立到服务器的连接（DNS + TCP + TLS）并放入连接池，之后的 post 直接复用。
+     * 不需要连接池的实现可以什么也不做。
+     */
+    default void warmUp() throws IOException {
+    }
+
+    interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * HTTP 响应：状态码 + 响应体流
+     */
+    class Response implements Closeable {
+        public final int code;
+        public final InputStream body;
+        private final Closeable onClose;
+
+        public Response(int code, InputStream body, Closeable onClose) {
+            this.code = code;
+            this.body = body;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (onClose != null) onClose.close();
+        }
+    }
+}
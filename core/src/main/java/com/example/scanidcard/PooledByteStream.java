@@ -0,0 +1,83 @@
+package com.example.scanidcard;
+
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * 写入 {@link BytePool} 中数组的输出流，写完后直接当作字节视图使用：
+ * {@link #array()} 的前 {@link #size()} 个字节就是内容，不像 ByteArrayOutputStream.toByteArray() 那样再复制一份。
+ *
+ * 容量不够时从池里换一个更大的数组（旧的归还）；用完调用 {@link #close()} 把数组还回池里，之后视图失效。
+ */
+public class PooledByteStream extends OutputStream implements Closeable {
+
+    private final BytePool pool;
+    private byte[] buf;
+    private int count;
+
+    public PooledByteStream(BytePool pool, int initialCapacity) {
+        this.pool = pool;
+        this.buf = pool.acquire(initialCapacity);
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * 丢弃已写内容，保留数组（同一缓冲区上的多次压缩尝试）
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 底层数组，有效内容为 [0, size())；close 后不能再使用
+     */
+    public byte[] array() {
+        if (buf == null) throw new IllegalStateException("缓冲区已归还");
+        return buf;
+    }
+
+    /**
+     * 大小正好的副本，供需要长期持有的调用方使用
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(array(), count);
+    }
+
+    /**
+     * 把数组还给池；可重复调用
+     */
+    @Override
+    public void close() {
+        if (buf != null) {
+            pool.release(buf);
+            buf = null;
+            count = 0;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        byte[] current = array();
+        if (needed <= current.length) return;
+        byte[] bigger = pool.acquire(Math.max(needed, current.length + (current.length >> 1)));
+        System.arraycopy(current, 0, bigger, 0, count);
+        pool.release(current);
+        buf = bigger;
+    }
+}
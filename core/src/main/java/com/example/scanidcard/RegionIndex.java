@@ -0,0 +1,120 @@
+package com.example.scanidcard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 行政区划代码（GB/T 2260）的内存索引：排好序的 int[]，二分查找，查询不分配对象。
+ *
+ * 数据文件每行一个 6 位代码，代码后面可以跟名称，# 开头为注释；民政部发布的区划代码表（含 CSV 导出）可以直接读。
+ * 表里缺下级代码时按上一级放宽：某个省只列了省级代码（xx0000）时，该省地级码合法（01-70、90）的代码都视为存在；
+ * 某个地级只列了 xxxx00、没有列县级代码时，其下任意县级代码都视为存在。
+ * 列全县级代码（含已撤销的历史代码，老身份证号仍在使用）的部分按 6 位精确校验。
+ */
+public class RegionIndex {
+
+    private static final String BUNDLED = "region_codes.txt";
+
+    private final int[] codes;
+    /** 下标为省级代码前两位：只有省级代码、没有下级代码 */
+    private final boolean[] provinceOnly = new boolean[100];
+    /** 下标为地级代码前四位：只有地级代码、没有县级代码 */
+    private final boolean[] prefectureOnly = new boolean[10000];
+
+    private static final class Holder {
+        static final RegionIndex BUNDLED_INDEX = loadBundled();
+    }
+
+    RegionIndex(int[] codes) {
+        int[] sorted = codes.clone();
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 100000 || sorted[i] > 999999) {
+                throw new IllegalArgumentException("行政区划代码必须是 6 位：" + sorted[i]);
+            }
+            if (n == 0 || sorted[n - 1] != sorted[i]) sorted[n++] = sorted[i];
+        }
+        this.codes = n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+
+        for (int code : this.codes) {
+            if (code % 10000 == 0) provinceOnly[code / 10000] = true;
+        }
+        for (int code : this.codes) {
+            if (code % 10000 != 0) provinceOnly[code / 10000] = false;
+            if (code % 100 == 0 && code % 10000 != 0) prefectureOnly[code / 100] = true;
+        }
+        for (int code : this.codes) {
+            if (code % 100 != 0) prefectureOnly[code / 100] = false;
+        }
+    }
+
+    /**
+     * 随 core 打包的区划表
+     */
+    public static RegionIndex bundled() {
+        return Holder.BUNDLED_INDEX;
+    }
+
+    public static RegionIndex read(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        int[] codes = new int[4096];
+        int n = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            if (line.length() < 6) throw new IOException("行政区划代码格式错误：" + line);
+            int code = parseDigits(line, 0, 6);
+            if (code < 0) throw new IOException("行政区划代码格式错误：" + line);
+            if (n == codes.length) codes = Arrays.copyOf(codes, n * 2);
+            codes[n++] = code;
+        }
+        return new RegionIndex(Arrays.copyOf(codes, n));
+    }
+
+    /**
+     * @param code 6 位行政区划代码（身份证号前 6 位）
+     */
+    public boolean contains(int code) {
+        if (code < 100000 || code > 999999) return false;
+        if (provinceOnly[code / 10000]) {
+            // 地级码：01-70 为地级市、地区、州、盟，90 为省直辖县级行政区划
+            int prefecture = code / 100 % 100;
+            return prefecture <= 70 || prefecture == 90;
+        }
+        if (prefectureOnly[code / 100]) return true;
+        return Arrays.binarySearch(codes, code) >= 0;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * s 中 [from, to) 全是数字时返回其数值，否则返回 -1
+     */
+    static int parseDigits(CharSequence s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static RegionIndex loadBundled() {
+        try (InputStream in = RegionIndex.class.getResourceAsStream(BUNDLED)) {
+            if (in == null) throw new IllegalStateException("缺少行政区划数据：" + BUNDLED);
+            return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("读取行政区划数据失败", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.scanidcard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各地域的实时延迟排名：每个地域维护一个指数加权平均延迟（EWMA），失败按惩罚值计入。
+ *
+ * 还没有样本的地域排在最前面，保证每个地域至少被试过一次。
+ */
+public class RegionRanking {
+
+    /** 新样本的权重 */
+    private static final double ALPHA = 0.2;
+    /** 失败时按该延迟（微秒）计入，且不低于当前平均值的 2 倍 */
+    private static final double FAILURE_PENALTY_MICROS = 5_000_000;
+
+    private final Map<String, double[]> ewma = new LinkedHashMap<>();
+
+    /**
+     * @param regions 参与排名的地域，顺序即没有样本时的优先顺序
+     */
+    public RegionRanking(List<String> regions) {
+        for (String r : regions) ewma.put(r, null);
+    }
+
+    public synchronized void record(String region, long micros) {
+        if (!ewma.containsKey(region)) return;
+        double[] v = ewma.get(region);
+        if (v == null) {
+            ewma.put(region, new double[]{micros});
+        } else {
+            v[0] += ALPHA * (micros - v[0]);
+        }
+    }
+
+    public synchronized void recordFailure(String region) {
+        if (!ewma.containsKey(region)) return;
+        double[] v = ewma.get(region);
+        double penalty = v == null ? FAILURE_PENALTY_MICROS : Math.max(FAILURE_PENALTY_MICROS, v[0] * 2);
+        record(region, (long) penalty);
+    }
+
+    /**
+     * 按平均延迟从低到高排列
+     */
+    public synchronized List<String> ranked() {
+        List<String> list = new ArrayList<>(ewma.keySet());
+        // 稳定排序：没有样本（视为 0）的保持配置顺序
+        Collections.sort(list, (a, b) -> Double.compare(score(a), score(b)));
+        return list;
+    }
+
+    /**
+     * 当前最快的地域；没有配置地域时返回 null
+     */
+    public String best() {
+        return bestExcluding(null);
+    }
+
+    /**
+     * 除 exclude 之外最快的地域，没有则返回 null
+     */
+    public synchronized String bestExcluding(String exclude) {
+        for (String r : ranked()) {
+            if (!r.equals(exclude)) return r;
+        }
+        return null;
+    }
+
+    /**
+     * 调用方偏好 preferred 时的首选地域：preferred 还没有样本，或平均延迟不超过最快地域的 (1 + tolerance) 倍时用它，
+     * 否则用最快的地域；preferred 不在排名中（或为 null）时同样用最快的地域
+     */
+    public synchronized String bestPreferring(String preferred, double tolerance) {
+        String best = best();
+        if (preferred == null || !ewma.containsKey(preferred) || best == null) return best;
+        return score(preferred) <= score(best) * (1 + tolerance) ? preferred : best;
+    }
+
+    /**
+     * 平均延迟（毫秒），没有样本返回 -1
+     */
+    public synchronized double averageMs(String region) {
+        double[] v = ewma.get(region);
+        return v == null ? -1 : v[0] / 1000.0;
+    }
+
+    private double score(String region) {
+        double[] v = ewma.get(region);
+        return v == null ? 0 : v[0];
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.scanidcard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 识别结果缓存：以 SHA-256(压缩后的 JPEG) + CardSide 为键。
+ *
+ * 两级：内存 LRU + 磁盘（AES-GCM 加密，按总大小与 TTL 淘汰）。同一个键的并发请求只会真正调用一次接口，
+ * 其余请求等待这次结果。只缓存识别成功（errorcode == 0）的结果。
+ *
+ * 两级都按写入时间检查 TTL。缓存里保存的是副本，每次命中也返回新的副本：调用方可以随意修改拿到的结果。
+ */
+public class ResultCache {
+
+    public static class Config {
+        /** 内存中最多保留的结果数 */
+        public int memoryEntries = 64;
+        /** 磁盘缓存总大小上限 */
+        public long diskMaxBytes = 4 * 1024 * 1024L;
+        /** 结果有效期 */
+        public long ttlMs = 7 * 24 * 3600 * 1000L;
+    }
+
+    public interface Loader {
+        IdentifyResult load() throws Exception;
+    }
+
+    /**
+     * 命中统计
+     */
+    public static class Stats {
+        public long memoryHits;
+        public long diskHits;
+        public long misses;
+        /** 与进行中的同键请求合并的次数（未产生新的接口调用） */
+        public long coalesced;
+
+        public long hits() {
+            return memoryHits + diskHits;
+        }
+    }
+
+    private static final int FILE_VERSION = 1;
+
+    private final Config config;
+    private final File dir;
+    private final SecretKey key;
+
+    private final Map<String, Cached> memory;
+    private final ConcurrentHashMap<String, FutureTask<IdentifyResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param dir 磁盘缓存目录（独占使用）
+     * @param key 磁盘加密用的 AES 密钥
+     */
+    public ResultCache(Config config, File dir, SecretKey key) {
+        this.config = config;
+        this.dir = dir;
+        this.key = key;
+        this.memory = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > ResultCache.this.config.memoryEntries;
+            }
+        };
+        //noinspection ResultOfMethodCallIgnored
+        dir.mkdirs();
+    }
+
+    /**
+     * 缓存键：SHA-256(jpeg) + 证件面（null/空 表示自动）
+     */
+    public static String key(byte[] jpeg, String cardSide) throws Exception {
+        return key(jpeg, jpeg.length, cardSide);
+    }
+
+    /**
+     * 只取 jpeg 的前 length 个字节（复用缓冲区的视图）
+     */
+    public static String key(byte[] jpeg, int length, String cardSide) throws Exception {
+        String side = (cardSide == null || cardSide.trim().isEmpty()) ? "AUTO" : cardSide.trim();
+        return Tc3Signer.bytesToHex(Tc3Signer.sha256(jpeg, 0, length)) + "-" + side;
+    }
+
+    /**
+     * 查缓存；未命中时调用 loader（同键并发只调用一次），成功结果写入缓存。
+     */
+    public IdentifyResult get(String key, Loader loader) throws Exception {
+        IdentifyResult cached = peek(key);
+        if (cached != null) return cached;
+
+        FutureTask<IdentifyResult> task = new FutureTask<>(() -> {
+            IdentifyResult result = loader.load();
+            put(key, result);
+            return result;
+        });
+        FutureTask<IdentifyResult> existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            // 与发起加载的调用方各拿一份
+            return await(existing).copy();
+        }
+
+        misses.incrementAndGet();
+        try {
+            task.run();
+            return await(task);
+        } finally {
+            inFlight.remove(key, task);
+        }
+    }
+
+    /**
+     * 只查缓存，不触发加载；未命中返回 null（不计入 misses）
+     */
+    public IdentifyResult peek(String key) {
+        synchronized (memory) {
+            Cached e = memory.get(key);
+            if (e != null) {
+                if (!e.expired(config.ttlMs)) {
+                    memoryHits.incrementAndGet();
+                    return e.result.copy();
+                }
+                memory.remove(key);
+            }
+        }
+        Cached e = readDisk(key);
+        if (e == null) return null;
+        diskHits.incrementAndGet();
+        synchronized (memory) {
+            memory.put(key, e);
+        }
+        return e.result.copy();
+    }
+
+    /**
+     * 写入缓存（失败结果忽略）
+     */
+    public void put(String key, IdentifyResult result) {
+        if (result == null || result.getErrorcode() != 0) return;
+        Cached e = new Cached(result.copy(), System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key, e);
+        }
+        writeDisk(key, e);
+    }
+
+    public Stats stats() {
+        Stats s = new Stats();
+        s.memoryHits = memoryHits.get();
+        s.diskHits = diskHits.get();
+        s.misses = misses.get();
+        s.coalesced = coalesced.get();
+        return s;
+    }
+
+    /**
+     * 清空两级缓存（统计不清零）
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+            }
+        }
+    }
+
+    private static IdentifyResult await(FutureTask<IdentifyResult> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    // ====== 磁盘层：[版本][IV 长度][IV][AES-GCM(写入时间 + IdentifyResult)] ======
+
+    private File fileFor(String key) {
+        return new File(dir, key + ".bin");
+    }
+
+    private Cached readDisk(String key) {
+        File f = fileFor(key);
+        if (!f.exists()) return null;
+        try {
+            byte[] data = readFile(f);
+            if (data.length < 2 || data[0] != FILE_VERSION) throw new IOException("缓存文件格式不正确");
+            if (data[1] != SealedRecordCodec.IV_BYTES) throw new IOException("缓存文件格式不正确");
+            // 把 key 作为附加数据：文件被改名/挪用到别的键时解密失败
+            byte[] plain = SealedRecordCodec.open(this.key, data, 2, data.length - 2,
+                    key.getBytes(StandardCharsets.UTF_8));
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+            long createdAt = in.readLong();
+            Cached e = new Cached(IdentifyResult.readFrom(in), createdAt);
+            if (e.expired(config.ttlMs)) {
+                //noinspection ResultOfMethodCallIgnored
+                f.delete();
+                return null;
+            }
+            //noinspection ResultOfMethodCallIgnored
+            f.setLastModified(System.currentTimeMillis());
+            return e;
+        } catch (Exception e) {
+            // 损坏、密钥已变更或格式不兼容：直接丢弃
+            //noinspection ResultOfMethodCallIgnored
+            f.delete();
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, Cached entry) {
+        try {
+            ByteArrayOutputStream plain = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(plain);
+            out.writeLong(entry.createdMs);
+            entry.result.writeTo(out);
+            out.flush();
+
+            byte[] sealed = SealedRecordCodec.seal(this.key, plain.toByteArray(), key.getBytes(StandardCharsets.UTF_8));
+
+            File tmp = new File(dir, key + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                fos.write(FILE_VERSION);
+                fos.write(SealedRecordCodec.IV_BYTES);
+                fos.write(sealed);
+            }
+            if (!tmp.renameTo(fileFor(key))) {
+                //noinspection ResultOfMethodCallIgnored
+                tmp.delete();
+                return;
+            }
+            trimDisk();
+        } catch (Exception ignored) {
+            // 磁盘缓存只是加速手段，写失败不影响识别结果
+        }
+    }
+
+    /**
+     * 删除过期文件；总大小超过上限时按最近使用时间从旧到新删除
+     */
+    private synchronized void trimDisk() {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".bin"));
+        if (files == null) return;
+        long now = System.currentTimeMillis();
+        long total = 0;
+        for (File f : files) total += f.length();
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File f : files) {
+            boolean expired = now - f.lastModified() > config.ttlMs;
+            if (!expired && total <= config.diskMaxBytes) continue;
+            long len = f.length();
+            if (f.delete()) total -= len;
+        }
+    }
+
+    private static byte[] readFile(File f) throws IOException {
+        try (InputStream in = new FileInputStream(f)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) f.length());
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * 缓存的结果及其写入时间（两级共用，磁盘层的写入时间随记录保存）
+     */
+    private static final class Cached {
+        final IdentifyResult result;
+        final long createdMs;
+
+        Cached(IdentifyResult result, long createdMs) {
+            this.result = result;
+            this.createdMs = createdMs;
+        }
+
+        boolean expired(long ttlMs) {
+            return System.currentTimeMillis() - createdMs > ttlMs;
+        }
+    }
+}
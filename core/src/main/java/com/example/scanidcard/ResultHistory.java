@@ -0,0 +1,582 @@
+package com.example.scanidcard;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 识别历史：加密落盘的只追加日志 + 内存索引，可按身份证号前缀、姓名前缀或任意片段（姓名 / 号码 / 住址）查询。
+ *
+ * 磁盘上只有一个日志文件，记录格式与 {@link JobQueue} 相同（见 {@link SealedRecordCodec}），
+ * 加密部分为 版本 + 时间 + IdentifyResult。
+ * 不保存 rawJson 和 AdvancedInfo（裁剪图），只保存识别出的字段。
+ *
+ * {@link #append} 只把结果放进内存队列就返回，由后台写线程攒批加密、一次写入并 fsync，再更新索引，不阻塞识别流程。
+ * 打开时顺序解密整个日志重建索引（写了一半的尾部记录截掉），应在后台线程调用构造函数。
+ *
+ * 索引都是按记录号递增的 int 数组（倒排表）：
+ * 身份证号前两位、姓名首字各一张，姓名 / 号码 / 住址中每个相邻两字（bigram）一张。
+ * 查询取最短的倒排表，从新到旧逐条核对原文，凑够一页就停，耗时与命中多少有关、与总条数基本无关。
+ */
+public class ResultHistory implements Closeable {
+
+    public static class Config {
+        /** 一页最多返回的条数 */
+        public int maxPageSize = 100;
+        /** 每批写入后 fsync；关掉后只在 {@link #flush()} / 关闭时落盘（掉电可能丢最后几条） */
+        public boolean syncEachBatch = true;
+    }
+
+    public enum Match {
+        /** 身份证号前缀（x 按 X 处理） */
+        ID_PREFIX,
+        /** 姓名前缀 */
+        NAME_PREFIX,
+        /** 姓名、身份证号或住址中包含该片段 */
+        TEXT
+    }
+
+    /**
+     * 列表中的一条历史：只有用于显示和查询的字段，完整结果用 {@link #load} 读取
+     */
+    public static final class Entry {
+        /** 记录号，从 0 开始按写入顺序递增，也是分页游标 */
+        public final int id;
+        public final long timeMs;
+        public final String name;
+        public final String idNum;
+        public final String address;
+        final long offset;
+        final int length;
+
+        Entry(int id, long timeMs, String name, String idNum, String address, long offset, int length) {
+            this.id = id;
+            this.timeMs = timeMs;
+            this.name = name;
+            this.idNum = idNum;
+            this.address = address;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    public static final class Page {
+        /** 从新到旧 */
+        public final List<Entry> entries;
+        /** 下一页的游标（传给 {@link #query} 的 before）；-1 表示没有更多 */
+        public final int next;
+
+        Page(List<Entry> entries, int next) {
+            this.entries = entries;
+            this.next = next;
+        }
+    }
+
+    private static final int MAGIC = 0x4F434848; // "OCHH"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+
+    private static final String LOG_FILE = "history.log";
+    private static final String KEY_FILE = "data.key";
+    private static final int DATA_KEY_BYTES = 32;
+    private static final byte[] KEY_AAD = "history data key".getBytes(StandardCharsets.US_ASCII);
+    private static final Postings EMPTY = new Postings();
+
+    private final Config config;
+    private final SealedRecordCodec codec;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    // 写线程：攒批加密写入
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ResultHistory-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ConcurrentLinkedQueue<IdentifyResult> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+    private final Runnable writeTask = this::writeBatch;
+
+    // 以下由 this 保护
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    private final Map<Integer, Postings> idPrefixes = new HashMap<>();
+    private final Map<Integer, Postings> namePrefixes = new HashMap<>();
+    private final Map<Integer, Postings> grams = new HashMap<>();
+    private long tail;
+    private int dropped;
+    private int writeFailures;
+
+    /**
+     * 打开（或新建）dir 下的历史，并重建索引
+     */
+    public ResultHistory(Config config, File dir, SecretKey key) throws IOException {
+        this.config = config;
+        this.codec = new SealedRecordCodec(MAGIC, MAX_RECORD_BYTES, key);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建历史目录：" + dir);
+        File logFile = new File(dir, LOG_FILE);
+        this.file = new RandomAccessFile(logFile, "rw");
+        this.channel = file.getChannel();
+        try {
+            recover(logFile);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * dir 下历史记录用的数据密钥：随机的 AES-256 软件密钥，用 wrappingKey（AndroidKeyStore 中的密钥）加密后保存在
+     * data.key，打开时只用 wrappingKey 解这一次。逐条记录的加解密都用软件密钥，不再每条走一次 KeyStore。
+     *
+     * 还没有 data.key 时生成一个；旧版本直接用 wrappingKey 加密记录，已有的日志顺带改用新密钥重新加密。
+     * 先写好新密钥和新日志的临时文件，再依次换名，中途中断时下次打开会补完或从头再来。
+     */
+    public static SecretKey dataKey(File dir, SecretKey wrappingKey) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("无法创建历史目录：" + dir);
+        File keyFile = new File(dir, KEY_FILE);
+        File logFile = new File(dir, LOG_FILE);
+        File keyTmp = new File(dir, KEY_FILE + ".tmp");
+        File logTmp = new File(dir, LOG_FILE + ".tmp");
+        if (keyFile.isFile()) {
+            // 新密钥已换名而日志还没换：临时日志是完整的
+            if (logTmp.isFile()) rename(logTmp, logFile);
+            byte[] wrapped = readFully(keyFile);
+            byte[] raw = SealedRecordCodec.open(wrappingKey, wrapped, 0, wrapped.length, KEY_AAD);
+            return new SecretKeySpec(raw, "AES");
+        }
+
+        byte[] raw = new byte[DATA_KEY_BYTES];
+        new SecureRandom().nextBytes(raw);
+        SecretKey key = new SecretKeySpec(raw, "AES");
+        writeSynced(keyTmp, SealedRecordCodec.seal(wrappingKey, raw, KEY_AAD));
+        if (logFile.length() > 0) {
+            rekey(logFile, logTmp, wrappingKey, key);
+        } else if (logTmp.exists() && !logTmp.delete()) {
+            throw new IOException("无法删除 " + logTmp);
+        }
+        rename(keyTmp, keyFile);
+        if (logTmp.isFile()) rename(logTmp, logFile);
+        return key;
+    }
+
+    /**
+     * 把 from 中的记录用 newKey 重新加密写到 to；规则与打开时相同：解不开的记录跳过，写了一半的尾部截掉
+     */
+    private static void rekey(File from, File to, SecretKey oldKey, SecretKey newKey) throws IOException {
+        SealedRecordCodec in = new SealedRecordCodec(MAGIC, MAX_RECORD_BYTES, oldKey);
+        SealedRecordCodec out = new SealedRecordCodec(MAGIC, MAX_RECORD_BYTES, newKey);
+        long remaining = from.length();
+        try (DataInputStream src = new DataInputStream(new BufferedInputStream(new FileInputStream(from), 64 * 1024));
+             FileOutputStream dst = new FileOutputStream(to)) {
+            byte[] sealed;
+            while ((sealed = in.read(src, remaining)) != null) {
+                remaining -= SealedRecordCodec.recordBytes(sealed);
+                byte[] plain;
+                try {
+                    plain = in.open(sealed);
+                } catch (IOException e) {
+                    continue;
+                }
+                dst.write(out.frame(plain));
+            }
+            dst.getFD().sync();
+        }
+    }
+
+    private static void writeSynced(File f, byte[] data) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+    }
+
+    private static byte[] readFully(File f) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(f, "r")) {
+            byte[] data = new byte[(int) in.length()];
+            in.readFully(data);
+            return data;
+        }
+    }
+
+    private static void rename(File from, File to) throws IOException {
+        if (!from.renameTo(to)) throw new IOException("无法把 " + from.getName() + " 改名为 " + to.getName());
+    }
+
+    /**
+     * 追加一条识别结果（不阻塞，稍后由写线程落盘并加入索引）。
+     * 识别失败、没有姓名和号码、或本地校验未通过的结果不保存。
+     */
+    public void append(IdentifyResult result) {
+        if (result == null || result.getErrorcode() != 0 || result.getCheckFlags() != 0) return;
+        if (isEmpty(result.getName()) && isEmpty(result.getIdNum())) return;
+        pending.add(result);
+        if (writeScheduled.compareAndSet(false, true)) writer.execute(writeTask);
+    }
+
+    /**
+     * 等待此前 append 的结果全部写入并可查询
+     */
+    public void flush() throws IOException, InterruptedException {
+        try {
+            writer.submit(() -> {
+                channel.force(false);
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("历史写入失败：" + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 分页查询，结果从新到旧。
+     *
+     * @param text   查询内容；空字符串返回全部历史
+     * @param before 只返回记录号小于它的条目；第一页传 -1
+     * @param limit  本页最多条数（不超过 {@link Config#maxPageSize}）
+     */
+    public synchronized Page query(Match match, String text, int before, int limit) {
+        String q = normalize(match, text);
+        limit = Math.max(1, Math.min(limit, config.maxPageSize));
+        if (before < 0 || before > entries.size()) before = entries.size();
+
+        List<Entry> page = new ArrayList<>(Math.min(limit, 16));
+        Postings candidates = q.isEmpty() ? null : candidates(match, q);
+        if (candidates == null) {
+            // 没有可用的索引（查询只有一个字）：从新到旧顺序扫
+            for (int id = before - 1; id >= 0 && page.size() < limit; id--) {
+                Entry e = entries.get(id);
+                if (matches(e, match, q)) page.add(e);
+            }
+        } else {
+            for (int i = candidates.indexBelow(before); i >= 0 && page.size() < limit; i--) {
+                Entry e = entries.get(candidates.ids[i]);
+                if (matches(e, match, q)) page.add(e);
+            }
+        }
+        int next = page.size() == limit ? page.get(page.size() - 1).id : -1;
+        return new Page(page, next);
+    }
+
+    /**
+     * 读取完整结果（不含 rawJson / AdvancedInfo）
+     */
+    public IdentifyResult load(Entry entry) throws IOException {
+        // 不用 channel 读：读的线程被中断会关闭整个 channel，之后所有写入都会失败。
+        // RandomAccessFile 的读不响应中断；写入都用带位置的 channel.write，不受这里 seek 的影响
+        byte[] record = new byte[entry.length];
+        synchronized (file) {
+            file.seek(entry.offset);
+            file.readFully(record);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(codec.openFramed(record)));
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) throw new IOException("不支持的历史记录版本：" + version);
+        in.readLong();
+        return IdentifyResult.readFrom(in);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 打开时因无法解密而跳过的记录数（例如密钥已被系统清除）
+     */
+    public synchronized int dropped() {
+        return dropped;
+    }
+
+    /**
+     * 写入失败（磁盘满等）而丢掉的结果数
+     */
+    public synchronized int writeFailures() {
+        return writeFailures;
+    }
+
+    /**
+     * 删除全部历史（等待进行中的写入完成）
+     */
+    public void clear() throws IOException, InterruptedException {
+        pending.clear();
+        try {
+            writer.submit(() -> {
+                synchronized (this) {
+                    channel.truncate(0);
+                    channel.force(true);
+                    tail = 0;
+                    entries.clear();
+                    idPrefixes.clear();
+                    namePrefixes.clear();
+                    grams.clear();
+                }
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            throw new IOException("清空历史失败：" + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * 写完已排队的结果后关闭
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        file.close();
+    }
+
+    // ====== 写入 ======
+
+    private void writeBatch() {
+        // 先清标志再取：之后 append 的结果要么被这一批取到，要么会再安排一次
+        writeScheduled.set(false);
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(4096);
+        List<long[]> spans = new ArrayList<>();
+        List<IdentifyResult> written = new ArrayList<>();
+        long start;
+        synchronized (this) {
+            start = tail;
+        }
+
+        IdentifyResult r;
+        while ((r = pending.poll()) != null) {
+            long now = System.currentTimeMillis();
+            try {
+                byte[] record = codec.frame(encode(now, r));
+                spans.add(new long[]{start + batch.size(), record.length, now});
+                batch.write(record, 0, record.length);
+                written.add(r);
+            } catch (IOException e) {
+                synchronized (this) {
+                    writeFailures++;
+                }
+            }
+        }
+        if (written.isEmpty()) return;
+
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(batch.toByteArray());
+            long pos = start;
+            while (buf.hasRemaining()) pos += channel.write(buf, pos);
+            if (config.syncEachBatch) channel.force(false);
+        } catch (IOException e) {
+            synchronized (this) {
+                writeFailures += written.size();
+                try {
+                    // 去掉写了一半的数据，保持日志完整
+                    channel.truncate(start);
+                } catch (IOException ignored) {
+                }
+            }
+            return;
+        }
+
+        synchronized (this) {
+            tail = start + batch.size();
+            for (int i = 0; i < written.size(); i++) {
+                IdentifyResult w = written.get(i);
+                long[] span = spans.get(i);
+                index(span[2], w.getName(), w.getIdNum(), w.getAddress(), span[0], (int) span[1]);
+            }
+        }
+    }
+
+    private static byte[] encode(long timeMs, IdentifyResult r) throws IOException {
+        // 历史只保存识别字段，rawJson / AdvancedInfo 可能很大
+        IdentifyResult copy = new IdentifyResult();
+        copy.setName(r.getName());
+        copy.setSex(r.getSex());
+        copy.setNation(r.getNation());
+        copy.setBirth(r.getBirth());
+        copy.setAddress(r.getAddress());
+        copy.setIdNum(r.getIdNum());
+        copy.setAuthority(r.getAuthority());
+        copy.setValidDate(r.getValidDate());
+        copy.setRequestId(r.getRequestId());
+        copy.setErrormsg("");
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bos);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(timeMs);
+        copy.writeTo(out);
+        out.flush();
+        return bos.toByteArray();
+    }
+
+    // ====== 恢复 ======
+
+    /**
+     * 顺序读整个日志重建索引；第一条不完整 / 校验失败的记录及之后的内容截掉
+     */
+    private void recover(File logFile) throws IOException {
+        long length = channel.size();
+        long pos = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), 64 * 1024))) {
+            byte[] sealed;
+            while ((sealed = codec.read(in, length - pos)) != null) {
+                int recordBytes = SealedRecordCodec.recordBytes(sealed);
+                try {
+                    DataInputStream plain = new DataInputStream(new ByteArrayInputStream(codec.open(sealed)));
+                    if (plain.readUnsignedByte() != FORMAT_VERSION) throw new IOException("不支持的历史记录版本");
+                    long timeMs = plain.readLong();
+                    IdentifyResult r = IdentifyResult.readFrom(plain);
+                    index(timeMs, r.getName(), r.getIdNum(), r.getAddress(), pos, recordBytes);
+                } catch (IOException e) {
+                    dropped++;
+                }
+                pos += recordBytes;
+            }
+        }
+        if (pos < length) {
+            channel.truncate(pos);
+            channel.force(true);
+        }
+        tail = pos;
+    }
+
+    // ====== 索引 ======
+
+    /**
+     * 按记录号递增的 int 数组
+     */
+    static final class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            // 同一条记录里重复的 bigram 只记一次
+            if (size > 0 && ids[size - 1] == id) return;
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        /**
+         * 最后一个小于 before 的下标；没有时返回 -1
+         */
+        int indexBelow(int before) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ids[mid] < before) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo - 1;
+        }
+    }
+
+    private void index(long timeMs, String name, String idNum, String address, long offset, int length) {
+        name = name == null ? "" : name;
+        idNum = idNum == null ? "" : idNum.toUpperCase(Locale.ROOT);
+        address = address == null ? "" : address;
+        int id = entries.size();
+        entries.add(new Entry(id, timeMs, name, idNum, address, offset, length));
+
+        if (idNum.length() >= 2) post(idPrefixes, gram(idNum.charAt(0), idNum.charAt(1)), id);
+        if (!name.isEmpty()) post(namePrefixes, name.charAt(0), id);
+        postGrams(name, id);
+        postGrams(idNum, id);
+        postGrams(address, id);
+    }
+
+    private void postGrams(String s, int id) {
+        for (int i = 0; i + 1 < s.length(); i++) {
+            post(grams, gram(s.charAt(i), s.charAt(i + 1)), id);
+        }
+    }
+
+    private static void post(Map<Integer, Postings> index, int key, int id) {
+        Postings p = index.get(key);
+        if (p == null) {
+            p = new Postings();
+            index.put(key, p);
+        }
+        p.add(id);
+    }
+
+    private static int gram(char a, char b) {
+        return (a << 16) | b;
+    }
+
+    /**
+     * 查询要核对的候选：能用索引时返回最短的倒排表（没有命中时返回空表），否则返回 null（顺序扫）
+     */
+    private Postings candidates(Match match, String q) {
+        switch (match) {
+            case ID_PREFIX:
+                if (q.length() < 2) return null;
+                return orEmpty(idPrefixes.get(gram(q.charAt(0), q.charAt(1))));
+            case NAME_PREFIX:
+                return orEmpty(namePrefixes.get((int) q.charAt(0)));
+            default:
+                if (q.length() < 2) return null;
+                Postings shortest = null;
+                for (int i = 0; i + 1 < q.length(); i++) {
+                    Postings p = grams.get(gram(q.charAt(i), q.charAt(i + 1)));
+                    if (p == null) return EMPTY;
+                    if (shortest == null || p.size < shortest.size) shortest = p;
+                }
+                return shortest;
+        }
+    }
+
+    private static Postings orEmpty(Postings p) {
+        return p != null ? p : EMPTY;
+    }
+
+    private static boolean matches(Entry e, Match match, String q) {
+        switch (match) {
+            case ID_PREFIX:
+                return e.idNum.startsWith(q);
+            case NAME_PREFIX:
+                return e.name.startsWith(q);
+            default:
+                return e.name.contains(q) || e.idNum.contains(q) || e.address.contains(q);
+        }
+    }
+
+    private static String normalize(Match match, String text) {
+        if (text == null) return "";
+        String q = text.trim();
+        // 号码末位的 x 统一按大写存取
+        return match == Match.ID_PREFIX ? q.toUpperCase(Locale.ROOT) : q;
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.scanidcard;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * 识别链路的分阶段指标：每个阶段一个延迟直方图（p50/p95/p99）和数据量累计。
+ *
+ * 每次请求结束时通过 {@link ScanTrace#finish(ScanMetrics)} 提交；监听器可拿到逐次明细，
+ * {@link #dump()} 导出 JSON 汇总。
+ */
+public class ScanMetrics {
+
+    public enum Stage {
+        /** 图片解码（含采样） */
+        DECODE,
+        /** JPEG 压缩（按预算压缩时为所有尝试之和） */
+        COMPRESS,
+        /** 请求体 Base64 + SHA-256 摘要 */
+        ENCODE,
+        /** TC3 签名 */
+        SIGN,
+        /** 建立连接（DNS + TCP + TLS；复用连接时接近 0） */
+        CONNECT,
+        /** 发送请求体 */
+        UPLOAD,
+        /** 请求体发完到收到响应头 */
+        TTFB,
+        /** 读取并解析响应 */
+        PARSE,
+        /** 整个请求 */
+        TOTAL
+    }
+
+    public interface Listener {
+        /**
+         * 每次请求结束时回调（在提交 trace 的线程上）
+         */
+        void onScanFinished(ScanTrace trace);
+    }
+
+    private static final ScanMetrics GLOBAL = new ScanMetrics();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+    private final AtomicLongArray bytes = new AtomicLongArray(Stage.values().length);
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ScanMetrics() {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+    }
+
+    /**
+     * 进程内共享的实例
+     */
+    public static ScanMetrics global() {
+        return GLOBAL;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void record(ScanTrace trace) {
+        for (Stage stage : Stage.values()) {
+            // 没有经过的阶段（例如命中缓存时的网络阶段）不计入，避免拉低分位数
+            if (!trace.has(stage)) continue;
+            histograms[stage.ordinal()].record(trace.nanos(stage) / 1000L);
+            bytes.addAndGet(stage.ordinal(), trace.bytes(stage));
+        }
+        for (Listener l : listeners) {
+            l.onScanFinished(trace);
+        }
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            bytes.set(i, 0);
+        }
+    }
+
+    /**
+     * 导出汇总（JSON）：{"DECODE":{"count":..,"p50Ms":..,"p95Ms":..,"p99Ms":..,"maxMs":..,"meanBytes":..},...}
+     */
+    public String dump() {
+        StringWriter out = new StringWriter();
+        try {
+            JsonWriter w = new JsonWriter(out);
+            w.beginObject();
+            for (Stage stage : Stage.values()) {
+                LatencyHistogram h = histograms[stage.ordinal()];
+                w.name(stage.name()).beginObject();
+                w.name("count").value(h.count());
+                w.name("p50Ms").value(h.percentile(0.50) / 1000.0);
+                w.name("p95Ms").value(h.percentile(0.95) / 1000.0);
+                w.name("p99Ms").value(h.percentile(0.99) / 1000.0);
+                w.name("maxMs").value(h.max() / 1000.0);
+                w.name("meanBytes").value(h.count() == 0 ? 0 : bytes.get(stage.ordinal()) / h.count());
+                w.endObject();
+            }
+            w.endObject();
+            w.flush();
+        } catch (IOException e) {
+            // StringWriter 不会抛出
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+}
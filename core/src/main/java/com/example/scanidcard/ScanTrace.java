@@ -0,0 +1,108 @@
+package com.example.scanidcard;
+
+import java.util.Locale;
+
+/**
+ * 一次识别请求的分阶段耗时与数据量。
+ *
+ * 各阶段可能在不同线程上执行：执行某阶段的线程先 {@link #attach()}，被埋点的代码通过
+ * {@link #current()} 找到它；未 attach 时埋点为空操作。
+ */
+public class ScanTrace {
+
+    private static final ThreadLocal<ScanTrace> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[ScanMetrics.Stage.values().length];
+    private final long[] bytes = new long[ScanMetrics.Stage.values().length];
+    private final boolean[] seen = new boolean[ScanMetrics.Stage.values().length];
+
+    /**
+     * 当前线程正在记录的 trace，可能为 null
+     */
+    public static ScanTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 把本 trace 绑定到当前线程，之后该线程上的埋点都记到这里
+     */
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 给当前线程的 trace 记一笔（没有 trace 时忽略）
+     *
+     * @param startNanos 阶段开始时的 System.nanoTime()
+     * @param size       该阶段产出的数据量（字节），不适用时传 0
+     */
+    public static void record(ScanMetrics.Stage stage, long startNanos, long size) {
+        ScanTrace t = CURRENT.get();
+        if (t != null) t.add(stage, System.nanoTime() - startNanos, size);
+    }
+
+    /**
+     * 同一阶段多次发生时（例如多次压缩尝试）累加
+     */
+    public void add(ScanMetrics.Stage stage, long elapsedNanos, long size) {
+        nanos[stage.ordinal()] += elapsedNanos;
+        bytes[stage.ordinal()] += size;
+        seen[stage.ordinal()] = true;
+    }
+
+    /**
+     * 把 other 记录的各阶段（不含 TOTAL）累加进来，例如在另一个线程上完成的请求
+     */
+    public void addAll(ScanTrace other) {
+        for (ScanMetrics.Stage stage : ScanMetrics.Stage.values()) {
+            if (stage != ScanMetrics.Stage.TOTAL && other.has(stage)) {
+                add(stage, other.nanos(stage), other.bytes(stage));
+            }
+        }
+    }
+
+    public long nanos(ScanMetrics.Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    public long bytes(ScanMetrics.Stage stage) {
+        return bytes[stage.ordinal()];
+    }
+
+    /**
+     * 本次请求是否经过了该阶段
+     */
+    public boolean has(ScanMetrics.Stage stage) {
+        return seen[stage.ordinal()];
+    }
+
+    /**
+     * 结束：记录总耗时并提交到 metrics
+     */
+    public void finish(ScanMetrics metrics) {
+        nanos[ScanMetrics.Stage.TOTAL.ordinal()] = System.nanoTime() - startNanos;
+        seen[ScanMetrics.Stage.TOTAL.ordinal()] = true;
+        metrics.record(this);
+    }
+
+    /**
+     * 例如：DECODE 85.2ms 12582912B, COMPRESS 40.1ms 201344B, ..., TOTAL 950.3ms
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (ScanMetrics.Stage stage : ScanMetrics.Stage.values()) {
+            if (!has(stage)) continue;
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(stage.name()).append(' ')
+                    .append(String.format(Locale.ROOT, "%.1fms", nanos(stage) / 1e6));
+            if (bytes(stage) > 0) sb.append(' ').append(bytes(stage)).append('B');
+        }
+        return sb.toString();
+    }
+}
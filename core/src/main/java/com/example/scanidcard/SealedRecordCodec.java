@@ -0,0 +1,144 @@
+package com.example.scanidcard;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * 只追加的加密记录文件（{@link JobQueue}、{@link ResultHistory}）共用的记录格式：
+ * <pre>
+ * 记录：[MAGIC][长度][IV][AES-GCM(明文)][CRC32]
+ * </pre>
+ * 长度和 CRC 只覆盖中间的加密部分；读到不完整或校验失败的记录（写了一半的尾部）时返回 null，由调用方截掉。
+ *
+ * AES-GCM 的加解密也放在这里，{@link ResultCache} 的缓存文件同样使用。
+ */
+final class SealedRecordCodec {
+
+    static final int HEADER_BYTES = 8;
+    static final int CRC_BYTES = 4;
+    static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final int magic;
+    private final int maxRecordBytes;
+    private final SecretKey key;
+
+    /**
+     * @param magic          记录开头的标识，每种文件各用一个
+     * @param maxRecordBytes 加密部分的合理上限，用于识别损坏的长度字段
+     */
+    SealedRecordCodec(int magic, int maxRecordBytes, SecretKey key) {
+        this.magic = magic;
+        this.maxRecordBytes = maxRecordBytes;
+        this.key = key;
+    }
+
+    /**
+     * 加密并加上头和 CRC，返回可以直接写入文件的完整记录
+     */
+    byte[] frame(byte[] plain) throws IOException {
+        byte[] sealed = seal(key, plain, null);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + sealed.length + CRC_BYTES);
+        record.putInt(magic).putInt(sealed.length).put(sealed).putInt(crc(sealed, 0, sealed.length));
+        return record.array();
+    }
+
+    /**
+     * 从 in 的当前位置读一条记录的加密部分；不完整、MAGIC / 长度不对或 CRC 不符时返回 null
+     *
+     * @param available 当前位置到有效数据末尾的字节数
+     */
+    byte[] read(DataInput in, long available) throws IOException {
+        if (available < HEADER_BYTES + CRC_BYTES) return null;
+        try {
+            if (in.readInt() != magic) return null;
+            int len = in.readInt();
+            if (len <= 0 || len > maxRecordBytes || available < HEADER_BYTES + (long) len + CRC_BYTES) return null;
+            byte[] sealed = new byte[len];
+            in.readFully(sealed);
+            if (in.readInt() != crc(sealed, 0, len)) return null;
+            return sealed;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解密 {@link #read} 返回的加密部分
+     */
+    byte[] open(byte[] sealed) throws IOException {
+        return open(key, sealed, 0, sealed.length, null);
+    }
+
+    /**
+     * 校验并解密 {@link #frame} 生成的完整记录
+     */
+    byte[] openFramed(byte[] record) throws IOException {
+        int len = record.length - HEADER_BYTES - CRC_BYTES;
+        ByteBuffer buf = ByteBuffer.wrap(record);
+        if (len <= 0 || buf.getInt(0) != magic || buf.getInt(4) != len
+                || buf.getInt(HEADER_BYTES + len) != crc(record, HEADER_BYTES, len)) {
+            throw new IOException("记录已损坏");
+        }
+        return open(key, record, HEADER_BYTES, len, null);
+    }
+
+    /**
+     * 整条记录（头 + 加密部分 + CRC）的字节数
+     */
+    static int recordBytes(byte[] sealed) {
+        return HEADER_BYTES + sealed.length + CRC_BYTES;
+    }
+
+    /**
+     * AES-GCM 加密，返回 [IV][密文 + tag]
+     *
+     * @param aad 附加数据，没有时为 null
+     */
+    static byte[] seal(SecretKey key, byte[] plain, byte[] aad) throws IOException {
+        try {
+            // IV 由 Cipher 生成（AndroidKeyStore 的密钥不允许调用方指定 IV）
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key);
+            byte[] iv = cipher.getIV();
+            if (iv.length != IV_BYTES) throw new IOException("意外的 IV 长度：" + iv.length);
+            if (aad != null) cipher.updateAAD(aad);
+            byte[] out = new byte[IV_BYTES + cipher.getOutputSize(plain.length)];
+            System.arraycopy(iv, 0, out, 0, IV_BYTES);
+            cipher.doFinal(plain, 0, plain.length, out, IV_BYTES);
+            return out;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("加密失败：" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解密 data 中 [off, off + len) 处由 {@link #seal} 生成的 [IV][密文 + tag]
+     */
+    static byte[] open(SecretKey key, byte[] data, int off, int len, byte[] aad) throws IOException {
+        if (len < IV_BYTES) throw new IOException("密文过短");
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, off, IV_BYTES));
+            if (aad != null) cipher.updateAAD(aad);
+            return cipher.doFinal(data, off + IV_BYTES, len - IV_BYTES);
+        } catch (Exception e) {
+            throw new IOException("解密失败：" + e.getMessage(), e);
+        }
+    }
+
+    static int crc(byte[] b, int off, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(b, off, len);
+        return (int) crc.getValue();
+    }
+}
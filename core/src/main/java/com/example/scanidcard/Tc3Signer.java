@@ -0,0 +1,276 @@
+package com.example.scanidcard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 腾讯云 API 3.0（TC3-HMAC-SHA256）签名实现（V3 签名）
+ *
+ * 注意：请求发送时的 Header 与 Payload 必须与签名计算过程中的内容完全一致，否则会返回签名不一致错误。
+ *
+ * 性能相关：派生出的 secretSigning 只随 (SecretKey, 日期, 服务) 变化，按天缓存；
+ * Mac / MessageDigest 每个线程各持有一份复用，可在多个线程中并发签名。
+ */
+public class Tc3Signer {
+
+    public static final String ALGORITHM = "TC3-HMAC-SHA256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // 同时使用的密钥/服务组合很少，超过这个数量直接清空重建
+    private static final int MAX_CACHED_KEYS = 16;
+
+    private static final ConcurrentHashMap<String, SigningKey> signingKeys = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<Mac> HMAC = new ThreadLocal<Mac>() {
+        @Override
+        protected Mac initialValue() {
+            try {
+                return Mac.getInstance("HmacSHA256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private static final ThreadLocal<MessageDigest> SHA256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * 某个 (SecretKey, 服务) 在某一天（UTC）的派生签名密钥
+     */
+    private static final class SigningKey {
+        final String date;
+        final SecretKeySpec key;
+
+        SigningKey(String date, SecretKeySpec key) {
+            this.date = date;
+            this.key = key;
+        }
+    }
+
+    public static class SignResult {
+        public String authorization;
+        public String signature;
+        public String canonicalRequest;
+        public String stringToSign;
+        public String date; // yyyy-MM-dd in UTC
+        public long timestamp; // seconds
+        public String signedHeaders;
+        public String canonicalHeaders;
+    }
+
+    /**
+     * 生成 Authorization 头。
+     *
+     * @param secretId    SecretId
+     * @param secretKey   SecretKey
+     * @param service     产品名称，例如 OCR 为 "ocr"
+     * @param host        请求域名，例如 "ocr.tencentcloudapi.com"
+     * @param action      接口 Action，例如 "IDCardOCR"
+     * @param version     接口 Version，例如 "2018-11-19"
+     * @param timestamp   秒级时间戳
+     * @param payload     请求体 JSON 字符串（必须与实际发送完全一致）
+     * @param contentType Content-Type（建议使用 "application/json" 并与实际发送一致）
+     */
+    public static SignResult sign(
+            String secretId,
+            String secretKey,
+            String service,
+            String host,
+            String action,
+            String version,
+            long timestamp,
+            String payload,
+            String contentType
+    ) throws Exception {
+        return signHashedPayload(secretId, secretKey, service, host, action, version, timestamp,
+                sha256Hex(payload), contentType);
+    }
+
+    /**
+     * 与 {@link #sign} 相同，但直接传入请求体的 SHA-256（小写 16 进制）。
+     * 用于流式请求体：payload 不必先拼成完整字符串，见 {@link OcrRequestBody#sha256Hex()}。
+     *
+     * @param hashedRequestPayload 请求体的 SHA-256（必须与实际发送的字节一致）
+     */
+    public static SignResult signHashedPayload(
+            String secretId,
+            String secretKey,
+            String service,
+            String host,
+            String action,
+            String version,
+            long timestamp,
+            String hashedRequestPayload,
+            String contentType
+    ) throws Exception {
+
+        // 注意时区必须是 UTC，否则 date 会不一致导致签名错误
+        String date = utcDate(timestamp);
+
+        // ************* Step 1: 拼接规范请求串 canonicalRequest *************
+        String httpRequestMethod = "POST";
+        String canonicalUri = "/";
+        String canonicalQueryString = "";
+
+        // canonical headers 必须全部小写
+        String canonicalHeaders = ""
+                + "content-type:" + contentType + "\n"
+                + "host:" + host + "\n"
+                + "x-tc-action:" + action.toLowerCase(Locale.ROOT) + "\n";
+
+        String signedHeaders = "content-type;host;x-tc-action";
+
+        String canonicalRequest = httpRequestMethod + "\n"
+                + canonicalUri + "\n"
+                + canonicalQueryString + "\n"
+                + canonicalHeaders + "\n"
+                + signedHeaders + "\n"
+                + hashedRequestPayload;
+
+        // ************* Step 2: 拼接待签名字符串 stringToSign *************
+        String credentialScope = date + "/" + service + "/tc3_request";
+        String hashedCanonicalRequest = sha256Hex(canonicalRequest);
+
+        String stringToSign = ALGORITHM + "\n"
+                + timestamp + "\n"
+                + credentialScope + "\n"
+                + hashedCanonicalRequest;
+
+        // ************* Step 3: 计算签名 signature *************
+        Mac mac = HMAC.get();
+        mac.init(signingKey(secretKey, date, service));
+        String signature = bytesToHex(mac.doFinal(stringToSign.getBytes(StandardCharsets.UTF_8)));
+
+        // ************* Step 4: 拼接 Authorization *************
+        String authorization = ALGORITHM + " "
+                + "Credential=" + secretId + "/" + credentialScope + ", "
+                + "SignedHeaders=" + signedHeaders + ", "
+                + "Signature=" + signature;
+
+        SignResult result = new SignResult();
+        result.authorization = authorization;
+        result.signature = signature;
+        result.canonicalRequest = canonicalRequest;
+        result.stringToSign = stringToSign;
+        result.date = date;
+        result.timestamp = timestamp;
+        result.signedHeaders = signedHeaders;
+        result.canonicalHeaders = canonicalHeaders;
+        return result;
+    }
+
+    /**
+     * secretSigning = HMAC(HMAC(HMAC("TC3" + secretKey, date), service), "tc3_request")
+     *
+     * 同一 (secretKey, service) 当天只计算一次。
+     */
+    private static SecretKeySpec signingKey(String secretKey, String date, String service) throws Exception {
+        String cacheKey = service + "\n" + secretKey;
+        SigningKey cached = signingKeys.get(cacheKey);
+        if (cached != null && cached.date.equals(date)) {
+            return cached.key;
+        }
+
+        byte[] secretDate = hmacSha256(("TC3" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        byte[] secretService = hmacSha256(secretDate, service);
+        byte[] secretSigning = hmacSha256(secretService, "tc3_request");
+        SecretKeySpec key = new SecretKeySpec(secretSigning, "HmacSHA256");
+
+        if (signingKeys.size() >= MAX_CACHED_KEYS) {
+            signingKeys.clear();
+        }
+        signingKeys.put(cacheKey, new SigningKey(date, key));
+        return key;
+    }
+
+    /**
+     * 秒级时间戳 -> UTC 日期 "yyyy-MM-dd"（不依赖 SimpleDateFormat / TimeZone）
+     */
+    static String utcDate(long timestamp) {
+        // 按公历把 epoch day 换算成年月日（以 3 月为一年的开始，闰日落在年末）
+        long days = Math.floorDiv(timestamp, 86400L) + 719468;
+        long era = Math.floorDiv(days, 146097);
+        long doe = days - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yoe + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] c = new char[10];
+        c[0] = (char) ('0' + year / 1000 % 10);
+        c[1] = (char) ('0' + year / 100 % 10);
+        c[2] = (char) ('0' + year / 10 % 10);
+        c[3] = (char) ('0' + year % 10);
+        c[4] = '-';
+        c[5] = (char) ('0' + month / 10);
+        c[6] = (char) ('0' + month % 10);
+        c[7] = '-';
+        c[8] = (char) ('0' + day / 10);
+        c[9] = (char) ('0' + day % 10);
+        return new String(c);
+    }
+
+    /**
+     * SHA-256 哈希，返回 16 进制小写字符串。
+     */
+    private static String sha256Hex(String s) {
+        MessageDigest sha = SHA256.get();
+        return bytesToHex(sha.digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * b 中 [off, off + len) 的 SHA-256（复用当前线程的 MessageDigest 实例）
+     */
+    static byte[] sha256(byte[] b, int off, int len) {
+        MessageDigest sha = SHA256.get();
+        sha.update(b, off, len);
+        return sha.digest();
+    }
+
+    /**
+     * 当前线程的 SHA-256 实例，已重置，用于分段更新的摘要（例如流式写出的请求体）。
+     * 调用 digest() 之前不能在同一线程上再使用本类的其他摘要方法
+     */
+    static MessageDigest sha256Digest() {
+        MessageDigest sha = SHA256.get();
+        sha.reset();
+        return sha;
+    }
+
+    /**
+     * HmacSHA256（复用当前线程的 Mac 实例）
+     */
+    private static byte[] hmacSha256(byte[] key, String msg) throws Exception {
+        Mac mac = HMAC.get();
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(msg.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String bytesToHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int v = bytes[i] & 0xFF;
+            out[2 * i] = HEX[v >>> 4];
+            out[2 * i + 1] = HEX[v & 0x0F];
+        }
+        return new String(out);
+    }
+}
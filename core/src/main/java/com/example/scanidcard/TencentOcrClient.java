@@ -0,0 +1,299 @@
+package com.example.scanidcard;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 调用腾讯云 OCR：身份证识别（IDCardOCR）
+ *
+ * HTTP 发送由 {@link OcrTransport} 完成，默认是复用 keep-alive 连接的 {@link HttpTransport}。
+ */
+public class TencentOcrClient {
+
+    // OCR 服务固定参数
+    public static final String HOST = "ocr.tencentcloudapi.com";
+    public static final String SERVICE = "ocr";
+    public static final String ACTION = "IDCardOCR";
+    public static final String VERSION = "2018-11-19";
+    public static final String ENDPOINT = "https://" + HOST + "/";
+
+    // 本项目统一使用 application/json（与签名计算保持一致）
+    public static final String CONTENT_TYPE = "application/json";
+
+    private static volatile OcrTransport transport;
+    private static volatile boolean debug;
+    private static volatile boolean keepAdvancedInfo;
+
+    /**
+     * 调试模式：在结果中保留原始返回 JSON（rawJson）。默认关闭，避免每次请求多保存一份响应文本。
+     */
+    public static void setDebug(boolean enabled) {
+        debug = enabled;
+    }
+
+    /**
+     * 是否解析 AdvancedInfo（裁剪图片、告警信息等）。默认跳过。
+     */
+    public static void setKeepAdvancedInfo(boolean enabled) {
+        keepAdvancedInfo = enabled;
+    }
+
+    /**
+     * 替换传输层（例如调整连接池/超时，或在测试中换成本地桩实现）
+     */
+    public static void setTransport(OcrTransport t) {
+        transport = t;
+    }
+
+    /**
+     * 当前传输层；未设置时使用默认配置的 {@link HttpTransport}
+     */
+    public static OcrTransport getTransport() throws IOException {
+        OcrTransport t = transport;
+        if (t == null) {
+            synchronized (TencentOcrClient.class) {
+                if (transport == null) {
+                    transport = new HttpTransport(new HttpTransport.Config());
+                }
+                t = transport;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * 预热到 {@link #HOST} 的连接，之后第一次识别不再花时间握手
+     */
+    public static void warmUp() throws IOException {
+        getTransport().warmUp();
+    }
+
+    /**
+     * 调用身份证识别接口
+     *
+     * @param secretId    腾讯云 SecretId
+     * @param secretKey   腾讯云 SecretKey
+     * @param region      可选：地域，如 ap-beijing（不填也可）
+     * @param imageBase64 图片 Base64（不要包含 data:image/... 前缀）
+     * @param cardSide    可选："FRONT" / "BACK" / null（不填代表自动）
+     */
+    public static IdentifyResult idCardOcr(
+            String secretId,
+            String secretKey,
+            String region,
+            String imageBase64,
+            String cardSide
+    ) throws Exception {
+
+        long timestamp = System.currentTimeMillis() / 1000L;
+
+        // 1) 组装请求体（payload）
+        StringWriter payloadWriter = new StringWriter(imageBase64.length() + 64);
+        JsonWriter json = new JsonWriter(payloadWriter);
+        json.beginObject();
+        json.name("ImageBase64").value(imageBase64);
+        if (cardSide != null && !cardSide.trim().isEmpty()) {
+            json.name("CardSide").value(cardSide);
+        }
+        json.endObject();
+        json.close();
+        String payload = payloadWriter.toString();
+        final byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+        // 2) 生成签名（Authorization）
+        Tc3Signer.SignResult signResult = Tc3Signer.sign(
+                secretId,
+                secretKey,
+                SERVICE,
+                HOST,
+                ACTION,
+                VERSION,
+                timestamp,
+                payload,
+                CONTENT_TYPE
+        );
+
+        // 3) 发送 HTTP 请求
+        return post(signResult, timestamp, region, payloadBytes.length, out -> out.write(payloadBytes));
+    }
+
+    /**
+     * 调用身份证识别接口（流式请求体）
+     *
+     * 直接传入 JPEG 字节：Base64 编码边写边发，签名摘要也由同一段字节流计算，
+     * 不会在内存中生成完整的 Base64 / payload 字符串。
+     *
+     * @param secretId  腾讯云 SecretId
+     * @param secretKey 腾讯云 SecretKey
+     * @param region    可选：地域，如 ap-beijing（不填也可）
+     * @param jpeg      压缩后的 JPEG 原始字节
+     * @param cardSide  可选："FRONT" / "BACK" / null（不填代表自动）
+     */
+    public static IdentifyResult idCardOcr(
+            String secretId,
+            String secretKey,
+            String region,
+            byte[] jpeg,
+            String cardSide
+    ) throws Exception {
+        return execute(prepare(secretId, secretKey, region, jpeg, cardSide));
+    }
+
+    /**
+     * 异步调用身份证识别接口：在 executor 上完成摘要、签名、发送和解析，立即返回可取消的句柄。
+     *
+     * 取消会断开正在进行的连接，并让 Base64 摘要在下一个编码块处停止；取消后不会回调。
+     * 参数同 {@link #idCardOcr(String, String, String, byte[], String)}。
+     */
+    public static OcrCall idCardOcrAsync(
+            String secretId,
+            String secretKey,
+            String region,
+            byte[] jpeg,
+            String cardSide,
+            Executor executor,
+            OcrCall.Callback callback
+    ) {
+        return OcrCall.submit(executor, call -> execute(prepare(secretId, secretKey, region, jpeg, cardSide)),
+                callback);
+    }
+
+    /**
+     * 已签名、待发送的请求（请求体 + Authorization）。
+     *
+     * 准备（Base64 摘要 + 签名，纯 CPU）与发送（网络）分开，批量识别时两者可以在不同线程上重叠。
+     * 注意签名带时间戳，准备好后应在几分钟内发送。
+     */
+    public static class PreparedRequest {
+        final OcrRequestBody body;
+        final Tc3Signer.SignResult signResult;
+        final long timestamp;
+        final String region;
+
+        PreparedRequest(OcrRequestBody body, Tc3Signer.SignResult signResult, long timestamp, String region) {
+            this.body = body;
+            this.signResult = signResult;
+            this.timestamp = timestamp;
+            this.region = region;
+        }
+    }
+
+    /**
+     * 计算请求体摘要并签名，不发送。参数同 {@link #idCardOcr(String, String, String, byte[], String)}。
+     */
+    public static PreparedRequest prepare(
+            String secretId,
+            String secretKey,
+            String region,
+            byte[] jpeg,
+            String cardSide
+    ) throws Exception {
+        // 1) 请求体只描述“怎么写”，不预先生成
+        return prepare(secretId, secretKey, region, new OcrRequestBody(jpeg, cardSide));
+    }
+
+    /**
+     * 用现成的请求体签名。摘要已经算过（{@link OcrRequestBody#sha256Hex()} 只算一次）时只剩签名本身，
+     * 时间戳取当前时间，所以请求体可以提前准备好，签名留到发送前再做。
+     */
+    public static PreparedRequest prepare(
+            String secretId,
+            String secretKey,
+            String region,
+            OcrRequestBody body
+    ) throws Exception {
+
+        long timestamp = System.currentTimeMillis() / 1000L;
+
+        // 2) 生成签名（Authorization），摘要来自与发送相同的字节流
+        long t0 = System.nanoTime();
+        String hashedPayload = body.sha256Hex();
+        ScanTrace.record(ScanMetrics.Stage.ENCODE, t0, body.contentLength());
+
+        long t1 = System.nanoTime();
+        Tc3Signer.SignResult signResult = Tc3Signer.signHashedPayload(
+                secretId,
+                secretKey,
+                SERVICE,
+                HOST,
+                ACTION,
+                VERSION,
+                timestamp,
+                hashedPayload,
+                CONTENT_TYPE
+        );
+        ScanTrace.record(ScanMetrics.Stage.SIGN, t1, 0);
+
+        return new PreparedRequest(body, signResult, timestamp, region);
+    }
+
+    /**
+     * 发送 {@link #prepare} 得到的请求并解析返回。
+     */
+    public static IdentifyResult execute(PreparedRequest request) throws Exception {
+        // 3) 发送 HTTP 请求
+        return post(request.signResult, request.timestamp, request.region,
+                request.body.contentLength(), request.body::writeTo);
+    }
+
+    private static IdentifyResult post(
+            Tc3Signer.SignResult signResult,
+            long timestamp,
+            String region,
+            long contentLength,
+            OcrTransport.BodyWriter body
+    ) throws Exception {
+        // ====== Header（必须与签名过程一致）======
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Authorization", signResult.authorization);
+        headers.put("Content-Type", CONTENT_TYPE);
+        headers.put("Host", HOST);
+        headers.put("X-TC-Action", ACTION);
+        headers.put("X-TC-Timestamp", String.valueOf(timestamp));
+        headers.put("X-TC-Version", VERSION);
+        if (region != null && !region.trim().isEmpty()) {
+            headers.put("X-TC-Region", region.trim());
+        }
+
+        // 可选：语言
+        headers.put("X-TC-Language", "zh-CN");
+
+        try (OcrTransport.Response response = getTransport().post(headers, contentLength, body)) {
+            InputStream is = response.body != null ? response.body : new ByteArrayInputStream(new byte[0]);
+
+            // 4) 解析返回
+            long t0 = System.nanoTime();
+            if (!debug) {
+                IdentifyResult result = IdentifyResultParser.parse(is, keepAdvancedInfo);
+                ScanTrace.record(ScanMetrics.Stage.PARSE, t0, 0);
+                return result;
+            }
+            // 调试模式额外保存原始返回（便于你论文截图或排错）
+            byte[] raw = readAll(is);
+            IdentifyResult result = IdentifyResultParser.parse(new ByteArrayInputStream(raw), keepAdvancedInfo);
+            result.setRawJson(new String(raw, StandardCharsets.UTF_8));
+            ScanTrace.record(ScanMetrics.Stage.PARSE, t0, raw.length);
+            return result;
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        // 不在这里 close：由 Response.close() 负责，以便连接回到连接池
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = is.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.scanidcard;
+
+/**
+ * 令牌桶：按 rate 个/秒补充，最多积攒 burst 个。非线程安全，由调用方加锁。
+ */
+class TokenBucket {
+
+    private double rate;
+    private final double burst;
+    private double tokens;
+    private long lastNanos;
+
+    TokenBucket(double ratePerSecond, double burst, long nowNanos) {
+        this.rate = ratePerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastNanos = nowNanos;
+    }
+
+    double rate() {
+        return rate;
+    }
+
+    void setRate(double ratePerSecond, long nowNanos) {
+        refill(nowNanos);
+        this.rate = ratePerSecond;
+    }
+
+    /**
+     * 距离下一个令牌可用还要等多久（纳秒），已有令牌时返回 0
+     */
+    long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) return 0;
+        return (long) Math.ceil((1 - tokens) / rate * 1e9);
+    }
+
+    /**
+     * 取走一个令牌（调用前应确认 nanosUntilAvailable 为 0）
+     */
+    void take(long nowNanos) {
+        refill(nowNanos);
+        tokens -= 1;
+    }
+
+    /**
+     * 清空积攒的令牌（被限流后不再突发）
+     */
+    void drain(long nowNanos) {
+        refill(nowNanos);
+        tokens = Math.min(tokens, 0);
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * rate / 1e9);
+            lastNanos = nowNanos;
+        }
+    }
+}
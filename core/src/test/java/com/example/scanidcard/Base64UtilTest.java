@@ -0,0 +1,72 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class Base64UtilTest {
+
+    private static final int[] LENGTHS = {0, 1, 2, 3, 4, 5, 6, 7, 100, 1000, 4097};
+
+    @Test
+    public void encode_matchesJdk() {
+        Random random = new Random(1);
+        for (int len : LENGTHS) {
+            byte[] src = new byte[len];
+            random.nextBytes(src);
+            assertEquals(Base64.getEncoder().encodeToString(src), Base64Util.encode(src));
+        }
+    }
+
+    @Test
+    public void encode_intoByteArrayWithOffsets() {
+        byte[] src = "xxhello worldyy".getBytes(StandardCharsets.US_ASCII);
+        byte[] dst = new byte[2 + Base64Util.encodedLength(11)];
+        int n = Base64Util.encode(src, 2, 11, dst, 2);
+        assertEquals(16, n);
+        assertEquals("aGVsbG8gd29ybGQ=", new String(dst, 2, n, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void encode_intoByteBuffer() {
+        byte[] src = new byte[10000];
+        new Random(2).nextBytes(src);
+        String expected = Base64.getEncoder().encodeToString(src);
+
+        for (ByteBuffer dst : new ByteBuffer[]{
+                ByteBuffer.allocate(Base64Util.encodedLength(src.length)),
+                ByteBuffer.allocateDirect(Base64Util.encodedLength(src.length))}) {
+            Base64Util.encode(src, 0, src.length, dst);
+            assertFalse(dst.hasRemaining());
+            dst.flip();
+            byte[] out = new byte[dst.remaining()];
+            dst.get(out);
+            assertEquals(expected, new String(out, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void encoder_incrementalMatchesOneShot() {
+        byte[] src = new byte[1000];
+        new Random(3).nextBytes(src);
+        String expected = Base64.getEncoder().encodeToString(src);
+
+        for (int step : new int[]{1, 2, 3, 4, 7, 64, 1000}) {
+            Base64Util.Encoder encoder = new Base64Util.Encoder();
+            byte[] dst = new byte[Base64Util.encodedLength(src.length)];
+            int n = 0;
+            for (int off = 0; off < src.length; off += step) {
+                int len = Math.min(step, src.length - off);
+                assertTrue(encoder.maxOutputLength(len) <= dst.length - n);
+                n += encoder.update(src, off, len, dst, n);
+            }
+            n += encoder.finish(dst, n);
+            assertEquals("step=" + step, expected, new String(dst, 0, n, StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class BytePoolTest {
+
+    @Test
+    public void reusesReleasedBuffersOfSufficientSize() {
+        BytePool pool = new BytePool(new BytePool.Config());
+        byte[] a = pool.acquire(100_000);
+        assertEquals(0, a.length % BytePool.GRANULE);
+        pool.release(a);
+
+        assertSame(a, pool.acquire(90_000));
+        assertEquals(1, pool.hits());
+        // 池里没有足够大的
+        pool.release(a);
+        assertNotSame(a, pool.acquire(200_000));
+        assertEquals(2, pool.misses());
+    }
+
+    @Test
+    public void respectsCountAndByteCaps() {
+        BytePool.Config config = new BytePool.Config();
+        config.maxBuffers = 2;
+        config.maxBytes = 100 * 1024;
+        BytePool pool = new BytePool(config);
+
+        byte[] small = new byte[16 * 1024];
+        byte[] medium = new byte[32 * 1024];
+        byte[] large = new byte[64 * 1024];
+        pool.release(small);
+        pool.release(medium);
+        // 满了：挤掉最小的
+        pool.release(large);
+        assertEquals(96 * 1024, pool.pooledBytes());
+        // 超过单个上限的不保留
+        pool.release(new byte[200 * 1024]);
+        assertEquals(96 * 1024, pool.pooledBytes());
+        assertSame(medium, pool.acquire(20 * 1024));
+        assertSame(large, pool.acquire(20 * 1024));
+    }
+
+    @Test
+    public void streamGrowsInPoolAndExposesView() {
+        BytePool pool = new BytePool(new BytePool.Config());
+        byte[] expected = new byte[40_000];
+        for (int i = 0; i < expected.length; i++) expected[i] = (byte) (i * 7);
+
+        byte[] firstArray;
+        try (PooledByteStream out = new PooledByteStream(pool, 1000)) {
+            out.write(expected, 0, expected.length);
+            assertEquals(expected.length, out.size());
+            firstArray = out.array();
+            assertArrayEquals(expected, out.toByteArray());
+
+            out.reset();
+            out.write("abc".getBytes(StandardCharsets.UTF_8), 0, 3);
+            assertEquals(3, out.size());
+            assertEquals('a', out.array()[0]);
+        }
+
+        // 稳定状态：同样大小的下一张直接拿到上一张归还的数组
+        try (PooledByteStream out = new PooledByteStream(pool, 40_000)) {
+            assertSame(firstArray, out.array());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.scanidcard;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DualSideSessionTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static IdentifyResult ok(String cardSide) {
+        IdentifyResult r = new IdentifyResult();
+        if (DualSideSession.FRONT.equals(cardSide)) {
+            r.setName("张三");
+            r.setIdNum("440101199001010003");
+            r.setRequestId("req-front");
+        } else {
+            r.setAuthority("广州市公安局");
+            r.setValidDate("2020.01.01-2040.01.01");
+            r.setRequestId("req-back");
+        }
+        return r;
+    }
+
+    private static IdentifyResult error(String msg) {
+        IdentifyResult r = new IdentifyResult();
+        r.setErrorcode(1);
+        r.setErrormsg(msg);
+        return r;
+    }
+
+    @Test
+    public void bothSidesRunConcurrentlyAndMerge() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        DualSideSession.SideRecognizer recognizer = (jpeg, cardSide) -> {
+            bothStarted.countDown();
+            // 两面互相等待：串行执行时这里会超时
+            assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+            assertEquals(cardSide.equals(DualSideSession.FRONT) ? 1 : 2, jpeg[0]);
+            return ok(cardSide);
+        };
+
+        IdentifyResult result = DualSideSession.recognize(executor,
+                () -> new byte[]{1}, () -> new byte[]{2}, recognizer);
+
+        assertEquals(0, result.getErrorcode());
+        assertEquals("张三", result.getName());
+        assertEquals("440101199001010003", result.getIdNum());
+        assertEquals("广州市公安局", result.getAuthority());
+        assertEquals("2020.01.01-2040.01.01", result.getValidDate());
+        assertEquals("req-front,req-back", result.getRequestId());
+        assertEquals("", result.getErrormsg());
+    }
+
+    @Test
+    public void backSideStagesAreAddedToCallerTrace() throws Exception {
+        DualSideSession.SideRecognizer recognizer = (jpeg, cardSide) -> {
+            ScanTrace.record(ScanMetrics.Stage.UPLOAD, System.nanoTime(), jpeg[0] * 100);
+            return ok(cardSide);
+        };
+
+        ScanTrace trace = new ScanTrace();
+        trace.attach();
+        try {
+            DualSideSession.recognize(executor, () -> new byte[]{1}, () -> new byte[]{2}, recognizer);
+        } finally {
+            ScanTrace.detach();
+        }
+        // 人像面 100 + 国徽面 200
+        assertEquals(300, trace.bytes(ScanMetrics.Stage.UPLOAD));
+    }
+
+    @Test
+    public void failedSideKeepsTheOtherSidesFields() throws Exception {
+        IdentifyResult result = DualSideSession.recognize(executor,
+                () -> new byte[]{1},
+                () -> { throw new java.io.IOException("图片模糊"); },
+                (jpeg, cardSide) -> ok(cardSide));
+
+        assertEquals(1, result.getErrorcode());
+        assertEquals("国徽面：识别失败：图片模糊", result.getErrormsg());
+        assertEquals("张三", result.getName());
+        assertNull(result.getAuthority());
+
+        IdentifyResult both = DualSideSession.merge(error("a"), error("b"));
+        assertEquals("人像面：a；国徽面：b", both.getErrormsg());
+    }
+
+    @Test
+    public void cancellingTheSessionCancelsBothSides() throws Exception {
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch interrupted = new CountDownLatch(2);
+        DualSideSession.SideRecognizer recognizer = (jpeg, cardSide) -> {
+            started.countDown();
+            try {
+                Thread.sleep(30_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return ok(cardSide);
+        };
+        CountDownLatch called = new CountDownLatch(1);
+
+        OcrCall call = OcrCall.submit(executor, c -> DualSideSession.recognize(executor,
+                () -> new byte[]{1}, () -> new byte[]{2}, recognizer), r -> called.countDown());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        call.cancel();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        try {
+            call.get();
+            fail();
+        } catch (CancellationException expected) {
+        }
+        assertFalse(called.await(200, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest {
+
+    @Test
+    public void readSinceReturnsOnlyNewEventsInOrder() {
+        EventLog log = new EventLog(8);
+        assertEquals(-1, log.lastSeq());
+        log.add("a");
+        log.add(EventLog.Level.WARN, "b");
+
+        List<EventLog.Event> out = new ArrayList<>();
+        assertEquals(0, log.readSince(-1, out));
+        assertEquals(2, out.size());
+        assertEquals("a", out.get(0).message);
+        assertEquals("WARN b", out.get(1).toString());
+
+        log.add("c");
+        out.clear();
+        assertEquals(0, log.readSince(1, out));
+        assertEquals(1, out.size());
+        assertEquals(2, out.get(0).seq);
+    }
+
+    @Test
+    public void oldEventsAreOverwrittenAndReportedAsMissed() {
+        EventLog log = new EventLog(4);
+        for (int i = 0; i < 10; i++) {
+            log.add("e" + i);
+        }
+        assertEquals(4, log.size());
+        assertEquals(6, log.dropped());
+
+        List<EventLog.Event> out = new ArrayList<>();
+        // 读者停在 seq=2：3、4、5 已被覆盖
+        assertEquals(3, log.readSince(2, out));
+        assertEquals(4, out.size());
+        assertEquals("e6", out.get(0).message);
+        assertEquals("e9", out.get(3).message);
+    }
+
+    @Test
+    public void concurrentWritersKeepSequenceDense() throws Exception {
+        EventLog log = new EventLog(64);
+        AtomicInteger notified = new AtomicInteger();
+        log.addListener(l -> notified.incrementAndGet());
+
+        int threads = 4;
+        int perThread = 1000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    log.add("x");
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        assertEquals(threads * perThread - 1, log.lastSeq());
+        assertEquals(threads * perThread, notified.get());
+        List<EventLog.Event> out = new ArrayList<>();
+        log.readSince(-1, out);
+        assertEquals(64, out.size());
+        for (int i = 1; i < out.size(); i++) {
+            assertEquals(out.get(i - 1).seq + 1, out.get(i).seq);
+        }
+    }
+}
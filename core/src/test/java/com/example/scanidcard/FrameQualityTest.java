@@ -0,0 +1,183 @@
+package com.example.scanidcard;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameQualityTest {
+
+    private static final int W = 1280;
+    private static final int H = 800;
+
+    /**
+     * 合成的"身份证"：浅色底上随机分布的深色细笔画，模拟文字
+     */
+    private static int[] card(long seed) {
+        int[] gray = new int[W * H];
+        Arrays.fill(gray, 200);
+        Random random = new Random(seed);
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(W - 40);
+            int y = random.nextInt(H - 40);
+            boolean horizontal = random.nextBoolean();
+            int len = 8 + random.nextInt(24);
+            int thick = 3 + random.nextInt(4);
+            for (int dy = 0; dy < (horizontal ? thick : len); dy++) {
+                for (int dx = 0; dx < (horizontal ? len : thick); dx++) {
+                    gray[(y + dy) * W + x + dx] = 30;
+                }
+            }
+        }
+        return gray;
+    }
+
+    private static int[] argb(int[] gray) {
+        int[] out = new int[gray.length];
+        for (int i = 0; i < gray.length; i++) {
+            int g = Math.max(0, Math.min(255, gray[i]));
+            out[i] = 0xFF000000 | (g << 16) | (g << 8) | g;
+        }
+        return out;
+    }
+
+    /**
+     * 水平 + 垂直各做一次半径为 r 的均值模糊，模拟失焦
+     */
+    private static int[] blur(int[] gray, int r) {
+        int[] tmp = new int[gray.length];
+        int[] out = new int[gray.length];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int sum = 0, n = 0;
+                for (int k = Math.max(0, x - r); k <= Math.min(W - 1, x + r); k++, n++) sum += gray[y * W + k];
+                tmp[y * W + x] = sum / n;
+            }
+        }
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int sum = 0, n = 0;
+                for (int k = Math.max(0, y - r); k <= Math.min(H - 1, y + r); k++, n++) sum += tmp[k * W + x];
+                out[y * W + x] = sum / n;
+            }
+        }
+        return out;
+    }
+
+    @Test
+    public void sharpCardPasses() {
+        FrameQuality.Report report = new FrameQuality(new FrameQuality.Config()).analyze(argb(card(1)), W, H);
+
+        assertTrue(report.toString(), report.passed());
+        assertEquals(320, report.width);
+        assertEquals(200, report.height);
+    }
+
+    @Test
+    public void blurredCardIsRejected() {
+        FrameQuality.Report report = new FrameQuality(new FrameQuality.Config())
+                .analyze(argb(blur(card(1), 16)), W, H);
+
+        assertEquals(report.toString(), FrameQuality.Reason.BLURRY, report.reason);
+        try {
+            report.throwIfRejected();
+            fail();
+        } catch (FrameQuality.RejectedException e) {
+            assertEquals(FrameQuality.Reason.BLURRY, e.reason);
+            assertTrue(e.getMessage(), e.getMessage().startsWith("图片模糊"));
+        }
+    }
+
+    @Test
+    public void darkAndOverexposedAreRejected() {
+        int[] gray = card(2);
+        int[] dark = new int[gray.length];
+        int[] bright = new int[gray.length];
+        for (int i = 0; i < gray.length; i++) {
+            dark[i] = gray[i] / 8;
+            bright[i] = gray[i] + 120;
+        }
+        FrameQuality quality = new FrameQuality(new FrameQuality.Config());
+
+        assertEquals(FrameQuality.Reason.TOO_DARK, quality.analyze(argb(dark), W, H).reason);
+        assertEquals(FrameQuality.Reason.OVEREXPOSED, quality.analyze(argb(bright), W, H).reason);
+    }
+
+    @Test
+    public void glarePatchIsRejected() {
+        int[] gray = card(3);
+        for (int y = 200; y < 500; y++) {
+            for (int x = 400; x < 800; x++) {
+                gray[y * W + x] = 255;
+            }
+        }
+        FrameQuality.Report report = new FrameQuality(new FrameQuality.Config()).analyze(argb(gray), W, H);
+
+        assertEquals(report.toString(), FrameQuality.Reason.GLARE, report.reason);
+        assertEquals(0.117, report.glareFraction, 0.01);
+    }
+
+    @Test
+    public void rowSourceAndLumaPlaneMatchArrayAndReuseReport() {
+        int[] gray = card(4);
+        int[] pixels = argb(gray);
+        FrameQuality quality = new FrameQuality(new FrameQuality.Config());
+
+        FrameQuality.Report first = quality.analyze(pixels, W, H);
+        double sharpness = first.sharpness;
+        double luma = first.meanLuma;
+
+        FrameQuality.Report rows = quality.analyze(W, H, (y, dst) -> System.arraycopy(pixels, y * W, dst, 0, W));
+        assertSame(first, rows);
+        assertEquals(sharpness, rows.sharpness, 1e-9);
+        assertEquals(luma, rows.meanLuma, 1e-9);
+
+        // Y 平面带行填充（rowStride > width）
+        int stride = W + 64;
+        byte[] plane = new byte[stride * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                plane[y * stride + x] = (byte) gray[y * W + x];
+            }
+        }
+        FrameQuality.Report yuv = quality.analyzeLuma(plane, W, H, stride);
+        assertSame(first, yuv);
+        assertEquals(sharpness, yuv.sharpness, sharpness * 0.02);
+        assertEquals(luma, yuv.meanLuma, 1.0);
+    }
+
+    @Test
+    public void repeatedAnalysisDoesNotAllocate() {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(mx instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) mx;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        int[] pixels = argb(card(5));
+        FrameQuality quality = new FrameQuality(new FrameQuality.Config());
+        quality.analyze(pixels, W, H);
+
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 20; i++) {
+            quality.analyze(pixels, W, H);
+        }
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+        // 只允许计量本身的少量噪声，远小于一个 320x200 的 int[]
+        assertTrue("allocated " + allocated, allocated < 64 * 1024);
+    }
+
+    @Test
+    public void smallImagesAreAnalyzedAtFullSize() {
+        int[] pixels = new int[100 * 60];
+        FrameQuality.Report report = new FrameQuality(new FrameQuality.Config()).analyze(pixels, 100, 60);
+
+        assertEquals(100, report.width);
+        assertEquals(60, report.height);
+        assertEquals(FrameQuality.Reason.TOO_DARK, report.reason);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class HedgingTransportTest {
+
+    /**
+     * 按地域返回不同延迟的传输层，响应体为地域名
+     */
+    private static class RegionalTransport implements OcrTransport {
+        final Map<String, Long> delayMs = new ConcurrentHashMap<>();
+        /** 写请求体之前的等待（建连），不响应中断 */
+        final Map<String, Long> connectMs = new ConcurrentHashMap<>();
+        final Map<String, Boolean> fails = new ConcurrentHashMap<>();
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch slowClosed = new CountDownLatch(1);
+
+        @Override
+        public Response post(Map<String, String> headers, long contentLength, BodyWriter body) throws IOException {
+            String region = headers.get("X-TC-Region");
+            calls.add(region);
+            long connectEnd = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectMs.getOrDefault(region, 0L));
+            while (System.nanoTime() < connectEnd) {
+                Thread.onSpinWait();
+            }
+            body.writeTo(new ByteArrayOutputStream());
+            long t0 = System.nanoTime();
+            try {
+                Thread.sleep(delayMs.getOrDefault(region, 0L));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            ScanTrace.record(ScanMetrics.Stage.TTFB, t0, 0);
+            if (fails.getOrDefault(region, false)) throw new IOException("connect failed: " + region);
+            InputStream in = new ByteArrayInputStream(region.getBytes(StandardCharsets.UTF_8));
+            return new Response(200, in, () -> {
+                if ("slow".equals(region)) slowClosed.countDown();
+            });
+        }
+    }
+
+    private static HedgingTransport.Config config(String... regions) {
+        HedgingTransport.Config c = new HedgingTransport.Config();
+        c.regions = Arrays.asList(regions);
+        c.initialDelayMs = 50;
+        c.minDelayMs = 10;
+        return c;
+    }
+
+    private static String post(HedgingTransport t, String region) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (region != null) headers.put("X-TC-Region", region);
+        try (OcrTransport.Response r = t.post(headers, 1, out -> out.write('x'))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[64];
+            int n;
+            while ((n = r.body.read(buf)) != -1) out.write(buf, 0, n);
+            return out.toString("UTF-8");
+        }
+    }
+
+    @Test
+    public void fastPrimaryIsNotHedged() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        HedgingTransport t = new HedgingTransport(delegate, config("a", "b"));
+
+        assertEquals("a", post(t, "a"));
+        assertEquals(Collections.singletonList("a"), delegate.calls);
+        assertEquals(0, t.stats().hedged);
+    }
+
+    @Test
+    public void slowPrimaryIsHedgedAndLoserClosed() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        delegate.delayMs.put("slow", 400L);
+        HedgingTransport t = new HedgingTransport(delegate, config("slow", "fast"));
+
+        assertEquals("fast", post(t, "slow"));
+        assertEquals(Arrays.asList("slow", "fast"), delegate.calls);
+        HedgingTransport.Stats s = t.stats();
+        assertEquals(1, s.hedged);
+        assertEquals(1, s.hedgeWins);
+        // 后返回的 slow 响应被关闭（连接回到连接池）
+        assertTrue(delegate.slowClosed.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void bodyIsNotWrittenAfterPostReturns() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        delegate.delayMs.put("slow", 100L);
+        delegate.connectMs.put("fast", 200L);
+        HedgingTransport t = new HedgingTransport(delegate, config("slow", "fast"));
+
+        AtomicBoolean returned = new AtomicBoolean();
+        AtomicInteger lateWrites = new AtomicInteger();
+        try (OcrTransport.Response r = t.post(Collections.singletonMap("X-TC-Region", "slow"), 1, out -> {
+            if (returned.get()) lateWrites.incrementAndGet();
+            out.write('x');
+        })) {
+            returned.set(true);
+            assertEquals('s', r.body.read());
+        }
+        // fast 建连结束时 slow 早已返回：它不能再读调用方的请求体（缓冲区可能已还给 BytePool）
+        Thread.sleep(300);
+        assertEquals(0, lateWrites.get());
+    }
+
+    @Test
+    public void winnerStagesAreRecordedOnCallerTrace() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        delegate.delayMs.put("slow", 400L);
+        HedgingTransport t = new HedgingTransport(delegate, config("slow", "fast"));
+
+        ScanTrace trace = new ScanTrace();
+        trace.attach();
+        try {
+            assertEquals("fast", post(t, "slow"));
+        } finally {
+            ScanTrace.detach();
+        }
+        assertTrue(trace.has(ScanMetrics.Stage.TTFB));
+        // 只并入先返回的 fast，不含 slow 的等待
+        assertTrue(trace.toString(), trace.nanos(ScanMetrics.Stage.TTFB) < TimeUnit.MILLISECONDS.toNanos(300));
+    }
+
+    @Test
+    public void hedgeIsSkippedWithoutSchedulerToken() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        delegate.delayMs.put("slow", 200L);
+        HedgingTransport t = new HedgingTransport(delegate, config("slow", "fast"));
+        OcrScheduler.Config sc = new OcrScheduler.Config();
+        sc.qps = 0.01;
+        sc.burst = 1;
+        OcrScheduler scheduler = new OcrScheduler(sc);
+
+        String[] body = new String[1];
+        scheduler.call(OcrScheduler.Priority.INTERACTIVE, () -> {
+            body[0] = post(t, "slow");
+            return new IdentifyResult();
+        });
+        // 唯一的令牌已被第一份请求用掉：不对冲，等第一份返回
+        assertEquals("slow", body[0]);
+        assertEquals(Collections.singletonList("slow"), delegate.calls);
+        assertEquals(1, t.stats().skipped);
+        assertEquals(0, t.stats().hedged);
+        assertEquals(1, scheduler.stats().dispatched);
+    }
+
+    @Test
+    public void failedPrimaryFallsBackToAlternate() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        delegate.fails.put("down", true);
+        HedgingTransport t = new HedgingTransport(delegate, config("down", "up"));
+
+        assertEquals("up", post(t, "down"));
+        assertEquals("up", t.getRanking().best());
+    }
+
+    @Test
+    public void bothFailedThrows() {
+        RegionalTransport delegate = new RegionalTransport();
+        delegate.fails.put("a", true);
+        delegate.fails.put("b", true);
+        HedgingTransport t = new HedgingTransport(delegate, config("a", "b"));
+        try {
+            post(t, "a");
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("connect failed"));
+        }
+    }
+
+    @Test
+    public void missingRegionUsesFastest() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        HedgingTransport t = new HedgingTransport(delegate, config("a", "b"));
+        t.getRanking().record("a", 90_000);
+        t.getRanking().record("b", 30_000);
+
+        assertEquals("b", post(t, null));
+    }
+
+    @Test
+    public void requestedRegionIsOnlyAPreference() throws Exception {
+        RegionalTransport delegate = new RegionalTransport();
+        HedgingTransport t = new HedgingTransport(delegate, config("a", "b"));
+        t.getRanking().record("a", 90_000);
+        t.getRanking().record("b", 30_000);
+
+        // a 比最快的 b 慢得多，不在配置里的地域也交给排名决定
+        assertEquals("b", post(t, "a"));
+        assertEquals("b", post(t, "elsewhere"));
+    }
+
+    @Test
+    public void rankingKeepsPreferenceWithinTolerance() {
+        RegionRanking ranking = new RegionRanking(Arrays.asList("a", "b"));
+        assertEquals("b", ranking.bestPreferring("b", 0.2));
+        ranking.record("a", 100_000);
+        ranking.record("b", 115_000);
+        assertEquals("b", ranking.bestPreferring("b", 0.2));
+        assertEquals("a", ranking.bestPreferring("b", 0.1));
+        assertEquals("a", ranking.bestPreferring(null, 0.2));
+    }
+
+    @Test
+    public void delayFollowsObservedPercentile() {
+        HedgingTransport.Config c = config("a");
+        c.minSamples = 10;
+        c.minDelayMs = 1;
+        HedgingTransport t = new HedgingTransport(new RegionalTransport(), c);
+        assertEquals(50, t.hedgeDelayMs());
+
+        for (int i = 1; i <= 20; i++) t.recordLatency(i * 10_000L);
+        long delay = t.hedgeDelayMs();
+        assertTrue(String.valueOf(delay), delay >= 180 && delay <= 200);
+    }
+
+    @Test
+    public void rankingPrefersUntriedThenFastest() {
+        RegionRanking ranking = new RegionRanking(Arrays.asList("a", "b", "c"));
+        ranking.record("a", 200_000);
+        assertEquals(Arrays.asList("b", "c", "a"), ranking.ranked());
+
+        ranking.record("b", 100_000);
+        ranking.record("c", 50_000);
+        ranking.recordFailure("c");
+        assertEquals(Arrays.asList("b", "a", "c"), ranking.ranked());
+        assertEquals("a", ranking.bestExcluding("b"));
+    }
+}
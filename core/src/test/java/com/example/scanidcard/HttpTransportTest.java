@@ -0,0 +1,103 @@
+package com.example.scanidcard;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class HttpTransportTest {
+
+    private HttpServer server;
+
+    @After
+    public void tearDown() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test
+    public void warmUpLeavesAConnectionForTheFirstPost() throws Exception {
+        List<String> seen = new CopyOnWriteArrayList<>();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            seen.add(exchange.getRequestMethod() + " " + exchange.getRemoteAddress().getPort());
+            exchange.getRequestBody().readAllBytes();
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        HttpTransport.Config config = new HttpTransport.Config();
+        config.endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+        HttpTransport transport = new HttpTransport(config);
+
+        transport.warmUp();
+        byte[] payload = "{\"ImageBase64\":\"\"}".getBytes(StandardCharsets.UTF_8);
+        try (OcrTransport.Response response = transport.post(Collections.singletonMap("Content-Type", "application/json"),
+                payload.length, out -> out.write(payload))) {
+            assertEquals(200, response.code);
+            InputStream is = response.body;
+            assertEquals("{}", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        assertEquals(2, seen.size());
+        assertTrue(seen.get(0), seen.get(0).startsWith("HEAD "));
+        assertTrue(seen.get(1), seen.get(1).startsWith("POST "));
+        // 同一个客户端端口：POST 复用了预热的连接
+        assertEquals(seen.get(0).substring(5), seen.get(1).substring(5));
+    }
+
+    @Test
+    public void stalledUploadTimesOut() throws Exception {
+        // 接受连接但从不读取：发送缓冲区写满后上传卡住
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            socket.setReceiveBufferSize(4096);
+            Thread acceptor = new Thread(() -> {
+                try (Socket ignored = socket.accept()) {
+                    Thread.sleep(10_000);
+                } catch (Exception e) {
+                    // 测试结束
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            HttpTransport.Config config = new HttpTransport.Config();
+            config.endpoint = "http://127.0.0.1:" + socket.getLocalPort() + "/";
+            config.writeTimeoutMs = 300;
+            HttpTransport transport = new HttpTransport(config);
+
+            long length = 64L * 1024 * 1024;
+            byte[] chunk = new byte[64 * 1024];
+            long t0 = System.nanoTime();
+            try {
+                transport.post(Collections.emptyMap(), length, out -> {
+                    for (long n = 0; n < length; n += chunk.length) out.write(chunk);
+                }).close();
+                fail();
+            } catch (SocketTimeoutException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("上传超时"));
+            }
+            assertTrue(System.nanoTime() - t0 < 5_000_000_000L);
+            acceptor.interrupt();
+        }
+    }
+}
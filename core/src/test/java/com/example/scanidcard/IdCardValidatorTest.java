@@ -0,0 +1,82 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class IdCardValidatorTest {
+
+    // GB 11643 中的示例号码
+    private static final String VALID = "11010519491231002X";
+
+    @Test
+    public void validate_acceptsValidNumber() {
+        RegionIndex regions = RegionIndex.bundled();
+        assertEquals(0, IdCardValidator.validate(VALID, "1949/12/31", regions));
+        assertEquals(0, IdCardValidator.validate("11010519491231002x", "1949年12月31日", regions));
+        assertEquals(0, IdCardValidator.validate("440524198701010014", "1987-01-01", regions));
+        // 没有 Birth 时不比对
+        assertEquals(0, IdCardValidator.validate(VALID, "", regions));
+    }
+
+    @Test
+    public void validate_flagsEachProblem() {
+        RegionIndex regions = RegionIndex.bundled();
+        assertEquals(IdCardValidator.BAD_CHECKSUM, IdCardValidator.validate("110105194912310021", "1949/12/31", regions));
+        assertEquals(IdCardValidator.BIRTH_MISMATCH, IdCardValidator.validate(VALID, "1949/12/1", regions));
+        assertEquals(IdCardValidator.BAD_FORMAT, IdCardValidator.validate("1101051949123100", "", regions));
+        assertEquals(IdCardValidator.BAD_FORMAT, IdCardValidator.validate("11010519491231O02X", "", regions));
+        // 2 月 30 日：日期不存在（校验码也随之不对）
+        int flags = IdCardValidator.validate("110105194902300021", "", regions);
+        assertTrue((flags & IdCardValidator.BAD_FORMAT) != 0);
+        // 00 不是省级代码
+        flags = IdCardValidator.validate("000105194912310021", "", regions);
+        assertTrue((flags & IdCardValidator.UNKNOWN_REGION) != 0);
+        assertEquals("身份证号校验码不正确，身份证号与出生日期不一致",
+                IdCardValidator.describe(IdCardValidator.BAD_CHECKSUM | IdCardValidator.BIRTH_MISMATCH));
+    }
+
+    @Test
+    public void regionIndex_exactMatchOnceCountyCodesAreListed() throws Exception {
+        RegionIndex regions = RegionIndex.read(new StringReader(
+                "# 测试\n110000 北京市\n110105 朝阳区\n440000 广东省\n"));
+        assertEquals(3, regions.size());
+        assertTrue(regions.contains(110105));
+        assertFalse(regions.contains(110199));
+        // 广东只有省级代码：只看地级码是否合法
+        assertTrue(regions.contains(440524));
+        assertTrue(regions.contains(441900));
+        assertFalse(regions.contains(448101));
+        assertFalse(regions.contains(120101));
+    }
+
+    @Test
+    public void regionIndex_prefectureWithoutCountiesAcceptsAnyCounty() throws Exception {
+        RegionIndex regions = RegionIndex.read(new StringReader(
+                "320000,江苏省\n320100,南京市\n320200,无锡市\n320205,锡山区\n"));
+        assertTrue(regions.contains(320105));
+        assertTrue(regions.contains(320205));
+        assertFalse(regions.contains(320206));
+        assertFalse(regions.contains(320305));
+    }
+
+    @Test
+    public void parser_setsCheckFlagsAndTheyAreSerialized() throws Exception {
+        String json = "{\"Response\":{\"Name\":\"李明\",\"Birth\":\"1987/1/2\","
+                + "\"IdNum\":\"440524198701010014\",\"RequestId\":\"abc\"}}";
+        IdentifyResult r = IdentifyResultParser.parse(new ByteArrayInputStream(json.getBytes("UTF-8")), false);
+        assertEquals(0, r.getErrorcode());
+        assertEquals(IdCardValidator.BIRTH_MISMATCH, r.getCheckFlags());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        r.writeTo(new DataOutputStream(bytes));
+        IdentifyResult copy = IdentifyResult.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(IdCardValidator.BIRTH_MISMATCH, copy.getCheckFlags());
+    }
+}
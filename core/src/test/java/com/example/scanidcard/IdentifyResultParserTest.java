@@ -0,0 +1,80 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class IdentifyResultParserTest {
+
+    private static IdentifyResult parse(String json, boolean keepAdvancedInfo) {
+        return IdentifyResultParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                keepAdvancedInfo);
+    }
+
+    private static final String FRONT = "{\"Response\":{\"Name\":\"李明\",\"Sex\":\"男\",\"Nation\":\"汉\","
+            + "\"Birth\":\"1987/1/1\",\"Address\":\"北京市石景山区高新技术园腾讯大楼\","
+            + "\"IdNum\":\"440524198701010014\",\"Authority\":\"\",\"ValidDate\":\"\","
+            + "\"AdvancedInfo\":\"{\\\"IdCard\\\":\\\"/9j/4AAQ\\\",\\\"WarnInfos\\\":[]}\","
+            + "\"ReflectDetailInfos\":[{\"Position\":{\"X\":1}}],\"RequestId\":\"abc\"}}";
+
+    @Test
+    public void parse_frontSide() {
+        IdentifyResult r = parse(FRONT, false);
+        assertEquals(0, r.getErrorcode());
+        assertEquals("", r.getErrormsg());
+        assertEquals("李明", r.getName());
+        assertEquals("1987/1/1", r.getBirth());
+        assertEquals("440524198701010014", r.getIdNum());
+        assertEquals("abc", r.getRequestId());
+        assertEquals("", r.getAuthority());
+        // 默认跳过 AdvancedInfo
+        assertEquals("", r.getAdvancedInfo());
+        assertNull(r.getRawJson());
+    }
+
+    @Test
+    public void parse_keepsAdvancedInfoWhenAsked() {
+        IdentifyResult r = parse(FRONT, true);
+        assertEquals("{\"IdCard\":\"/9j/4AAQ\",\"WarnInfos\":[]}", r.getAdvancedInfo());
+    }
+
+    @Test
+    public void parse_backSideWithMissingFields() {
+        IdentifyResult r = parse("{\"Response\":{\"Authority\":\"某市公安局\",\"ValidDate\":\"2010.07.21-2020.07.21\","
+                + "\"Name\":null,\"RequestId\":\"r2\"}}", false);
+        assertEquals(0, r.getErrorcode());
+        assertEquals("某市公安局", r.getAuthority());
+        assertEquals("2010.07.21-2020.07.21", r.getValidDate());
+        assertEquals("", r.getName());
+        assertEquals("", r.getIdNum());
+    }
+
+    @Test
+    public void parse_errorResponse() {
+        IdentifyResult r = parse("{\"Response\":{\"Error\":{\"Code\":\"FailedOperation.OcrFailed\","
+                + "\"Message\":\"OCR识别失败\"},\"RequestId\":\"r3\"}}", false);
+        assertEquals(1, r.getErrorcode());
+        assertEquals("FailedOperation.OcrFailed: OCR识别失败", r.getErrormsg());
+        assertEquals("r3", r.getRequestId());
+        assertNull(r.getName());
+    }
+
+    @Test
+    public void parse_missingResponse() {
+        IdentifyResult r = parse("{\"Other\":{\"Name\":\"x\"}}", false);
+        assertEquals(1, r.getErrorcode());
+        assertEquals("返回数据中缺少 Response 字段", r.getErrormsg());
+    }
+
+    @Test
+    public void parse_malformedJson() {
+        IdentifyResult r = parse("<html>502 Bad Gateway</html>", false);
+        assertEquals(1, r.getErrorcode());
+        assertTrue(r.getErrormsg().startsWith("解析 JSON 失败："));
+
+        assertEquals(1, parse("", false).getErrorcode());
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.scanidcard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.*;
+
+public class JobQueueTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static SecretKey newKey() throws Exception {
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(256);
+        return gen.generateKey();
+    }
+
+    private static byte[] jpeg(int n) {
+        byte[] b = new byte[1000 + n];
+        for (int i = 0; i < b.length; i++) b[i] = (byte) (i * 31 + n);
+        return b;
+    }
+
+    private static IdentifyResult ok(String name) {
+        IdentifyResult r = new IdentifyResult();
+        r.setName(name);
+        return r;
+    }
+
+    private static File spool(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("spool-"));
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    @Test
+    public void jobsSurviveReopenInOrderWithoutRecompression() throws Exception {
+        File dir = tmp.newFolder();
+        SecretKey key = newKey();
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, key)) {
+            queue.enqueue(jpeg(1), "FRONT", "ap-beijing");
+            queue.enqueue(jpeg(2), null, null);
+            queue.enqueue(jpeg(3), "BACK", null);
+            queue.remove(queue.peek());
+        }
+
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, key)) {
+            assertEquals(2, queue.size());
+            JobQueue.Job job = queue.peek();
+            assertArrayEquals(jpeg(2), job.jpeg);
+            assertNull(job.cardSide);
+            assertNull(job.region);
+            queue.remove(job);
+
+            job = queue.peek();
+            assertArrayEquals(jpeg(3), job.jpeg);
+            assertEquals("BACK", job.cardSide);
+        }
+    }
+
+    @Test
+    public void tornTailIsTruncatedOnOpen() throws Exception {
+        File dir = tmp.newFolder();
+        SecretKey key = newKey();
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, key)) {
+            queue.enqueue(jpeg(1), "FRONT", null);
+            queue.enqueue(jpeg(2), "FRONT", null);
+        }
+        // 模拟写第二条时进程被杀：文件尾只剩半条记录
+        File file = spool(dir);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 300);
+        }
+
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, key)) {
+            assertEquals(1, queue.size());
+            assertArrayEquals(jpeg(1), queue.peek().jpeg);
+            // 截断后继续追加，新记录紧接在完整记录之后
+            queue.enqueue(jpeg(3), null, null);
+            assertEquals(2, queue.size());
+        }
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, key)) {
+            assertEquals(2, queue.size());
+        }
+    }
+
+    @Test
+    public void drainStopsOnNetworkErrorAndResumesLater() throws Exception {
+        File dir = tmp.newFolder();
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, newKey())) {
+            for (int i = 0; i < 4; i++) queue.enqueue(jpeg(i), null, null);
+
+            List<Integer> finished = new ArrayList<>();
+            int[] sent = {0};
+            JobQueue.Sender flaky = job -> {
+                if (++sent[0] == 3) throw new ConnectException("网络不可用");
+                return ok("n" + job.jpeg[0]);
+            };
+            assertEquals(2, queue.drain(flaky, (job, r) -> finished.add(job.jpeg.length)));
+            assertEquals(2, queue.size());
+
+            assertEquals(2, queue.drain(flaky, (job, r) -> finished.add(job.jpeg.length)));
+            assertEquals(0, queue.size());
+            assertEquals(List.of(1000, 1001, 1002, 1003), finished);
+        }
+    }
+
+    @Test
+    public void throttledJobsStayAndFinalErrorsAreRemoved() throws Exception {
+        File dir = tmp.newFolder();
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, newKey())) {
+            queue.enqueue(jpeg(1), null, null);
+            queue.enqueue(jpeg(2), null, null);
+
+            IdentifyResult throttled = new IdentifyResult();
+            throttled.setErrorcode(1);
+            throttled.setErrormsg("RequestLimitExceeded: too many");
+            assertEquals(0, queue.drain(job -> throttled, null));
+            assertEquals(2, queue.size());
+
+            List<IdentifyResult> results = new ArrayList<>();
+            queue.drain(job -> {
+                if (job.jpeg.length == 1001) throw new FrameQuality.RejectedException(FrameQuality.Reason.BLURRY, "图片模糊");
+                throw new IllegalStateException("坏图");
+            }, (job, r) -> results.add(r));
+            assertEquals(0, queue.size());
+            assertEquals("图片模糊", results.get(0).getErrormsg());
+            assertEquals("识别失败：坏图", results.get(1).getErrormsg());
+        }
+    }
+
+    @Test
+    public void emptiedQueueCompactsSpoolAndCapsSize() throws Exception {
+        File dir = tmp.newFolder();
+        JobQueue.Config config = new JobQueue.Config();
+        config.maxSpoolBytes = 2500;
+        try (JobQueue queue = new JobQueue(config, dir, newKey())) {
+            queue.enqueue(jpeg(1), null, null);
+            queue.enqueue(jpeg(2), null, null);
+            try {
+                queue.enqueue(jpeg(3), null, null);
+                fail();
+            } catch (IOException expected) {
+            }
+
+            queue.drain(job -> ok("x"), null);
+            assertEquals(0, queue.pendingBytes());
+            assertEquals(0, spool(dir).length());
+            queue.enqueue(jpeg(3), null, null);
+        }
+    }
+
+    @Test
+    public void compactionWaitsUntilLittleIsLeftToCopy() throws Exception {
+        File dir = tmp.newFolder();
+        JobQueue.Config config = new JobQueue.Config();
+        config.compactBytes = 1;
+        config.compactMaxCopyBytes = 1500;
+        try (JobQueue queue = new JobQueue(config, dir, newKey())) {
+            for (int i = 1; i <= 3; i++) queue.enqueue(jpeg(i), null, null);
+            long full = spool(dir).length();
+
+            // 还剩两条：超过可拷贝的大小，只前移队首
+            queue.remove(queue.peek());
+            assertEquals(full, spool(dir).length());
+            // 还剩一条：拷到新一代 spool
+            queue.remove(queue.peek());
+            assertEquals(queue.pendingBytes(), spool(dir).length());
+            assertEquals(1, queue.size());
+            assertEquals(1003, queue.peek().jpeg.length);
+        }
+    }
+
+    @Test
+    public void failedIndexWriteKeepsJobAtHead() throws Exception {
+        File dir = tmp.newFolder();
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, newKey())) {
+            queue.enqueue(jpeg(1), null, null);
+            JobQueue.Job job = queue.peek();
+
+            // 索引的临时文件无法创建：压缩和前移队首都失败
+            File blocker = new File(dir, "queue.idx.tmp");
+            assertTrue(blocker.mkdir());
+            try {
+                queue.remove(job);
+                fail();
+            } catch (IOException expected) {
+            }
+            assertEquals(1, queue.size());
+            assertEquals(job.offset, queue.peek().offset);
+            // 压缩失败时新一代 spool 已删除
+            spool(dir);
+
+            assertTrue(blocker.delete());
+            queue.remove(queue.peek());
+            assertEquals(0, queue.size());
+        }
+    }
+
+    @Test
+    public void recordsFromAnotherKeyAreDropped() throws Exception {
+        File dir = tmp.newFolder();
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, newKey())) {
+            queue.enqueue(jpeg(1), null, null);
+        }
+        try (JobQueue queue = new JobQueue(new JobQueue.Config(), dir, newKey())) {
+            assertEquals(1, queue.size());
+            assertNull(queue.peek());
+            assertEquals(1, queue.dropped());
+            assertEquals(0, queue.size());
+        }
+    }
+}
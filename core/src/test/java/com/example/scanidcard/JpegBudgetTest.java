@@ -0,0 +1,91 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JpegBudgetTest {
+
+    /**
+     * 模拟编码器：大小 ≈ 面积 × 质量系数，并记录当前缓冲区中的参数
+     */
+    private static class FakeEncoder implements JpegBudget.Encoder {
+        final int fullSize;
+        final List<String> calls = new ArrayList<>();
+        float lastScale;
+        int lastQuality;
+
+        FakeEncoder(int fullSize) {
+            this.fullSize = fullSize;
+        }
+
+        @Override
+        public int encode(float scale, int quality) {
+            calls.add(scale + "@" + quality);
+            lastScale = scale;
+            lastQuality = quality;
+            return size(scale, quality);
+        }
+
+        int size(float scale, int quality) {
+            return (int) (fullSize * scale * scale * (quality / 90.0) * (quality / 90.0));
+        }
+    }
+
+    @Test
+    public void search_keepsMaxQualityWhenAlreadyUnderBudget() throws Exception {
+        FakeEncoder enc = new FakeEncoder(200_000);
+        JpegBudget.Choice c = new JpegBudget(256 * 1024).search(960, enc);
+
+        assertTrue(c.fits);
+        assertEquals(90, c.quality);
+        assertEquals(1f, c.scale, 0f);
+        assertEquals(1, c.attempts);
+    }
+
+    @Test
+    public void search_findsHighestQualityThatFits() throws Exception {
+        FakeEncoder enc = new FakeEncoder(400_000);
+        JpegBudget budget = new JpegBudget(256 * 1024);
+        JpegBudget.Choice c = budget.search(960, enc);
+
+        assertTrue(c.fits);
+        assertEquals(1f, c.scale, 0f);
+        assertTrue(c.size <= budget.maxBytes);
+        // 高一档质量就放不下
+        assertTrue(enc.size(1f, c.quality + budget.qualityStep) > budget.maxBytes);
+        // 缓冲区中留下的是选中的结果
+        assertEquals(c.quality, enc.lastQuality);
+        assertTrue(c.attempts <= budget.maxAttempts + 1);
+    }
+
+    @Test
+    public void search_downscalesWhenMinQualityIsTooLarge() throws Exception {
+        FakeEncoder enc = new FakeEncoder(3_000_000);
+        JpegBudget budget = new JpegBudget(256 * 1024);
+        JpegBudget.Choice c = budget.search(1280, enc);
+
+        assertTrue(c.fits);
+        assertTrue(c.scale < 1f);
+        assertTrue(Math.round(1280 * c.scale) >= budget.minShortSide);
+        assertEquals(c.scale, enc.lastScale, 0f);
+        assertEquals(c.quality, enc.lastQuality);
+        assertTrue(c.attempts <= budget.maxAttempts + 1);
+    }
+
+    @Test
+    public void search_returnsSmallestWhenBudgetIsImpossible() throws Exception {
+        FakeEncoder enc = new FakeEncoder(50_000_000);
+        JpegBudget budget = new JpegBudget(10_000);
+        JpegBudget.Choice c = budget.search(1280, enc);
+
+        assertFalse(c.fits);
+        assertEquals(budget.minQuality, c.quality);
+        assertEquals((float) budget.minShortSide / 1280, c.scale, 1e-6f);
+        assertEquals(enc.size(c.scale, c.quality), c.size);
+        assertTrue(c.attempts <= budget.maxAttempts + 1);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.scanidcard;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class OcrCallTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        TencentOcrClient.setTransport(null);
+    }
+
+    @Test
+    public void asyncCallDeliversResult() throws Exception {
+        TencentOcrClient.setTransport((headers, contentLength, body) -> {
+            body.writeTo(new ByteArrayOutputStream());
+            return new OcrTransport.Response(200, new ByteArrayInputStream(
+                    "{\"Response\":{\"Name\":\"张三\",\"RequestId\":\"r\"}}".getBytes(StandardCharsets.UTF_8)), null);
+        });
+        CountDownLatch called = new CountDownLatch(1);
+
+        OcrCall call = TencentOcrClient.idCardOcrAsync("sid", "skey", null, new byte[]{1, 2, 3}, null,
+                executor, r -> called.countDown());
+
+        assertEquals("张三", call.get(2, TimeUnit.SECONDS).getName());
+        assertTrue(called.await(1, TimeUnit.SECONDS));
+        assertTrue(call.isDone());
+        assertFalse(call.isCancelled());
+    }
+
+    @Test
+    public void cancelDisconnectsBlockedReadAndFreesThread() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            // 接受连接后既不读也不回，模拟卡在读响应上的请求
+            CountDownLatch accepted = new CountDownLatch(1);
+            Thread acceptor = new Thread(() -> {
+                try {
+                    Socket s = server.accept();
+                    accepted.countDown();
+                    Thread.sleep(30_000);
+                    s.close();
+                } catch (Exception ignored) {
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            HttpTransport.Config config = new HttpTransport.Config();
+            config.endpoint = "http://127.0.0.1:" + server.getLocalPort() + "/";
+            TencentOcrClient.setTransport(new HttpTransport(config));
+
+            AtomicBoolean callbackCalled = new AtomicBoolean();
+            OcrCall call = TencentOcrClient.idCardOcrAsync("sid", "skey", null, new byte[16], null, executor,
+                    r -> callbackCalled.set(true));
+            assertTrue(accepted.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+
+            long start = System.nanoTime();
+            call.cancel();
+            // 同一个单线程 executor 上的下一个任务能马上执行，说明工作线程已经被释放
+            Future<?> next = executor.submit(() -> { });
+            next.get(2, TimeUnit.SECONDS);
+            assertTrue((System.nanoTime() - start) / 1_000_000L < 2000);
+
+            assertTrue(call.isCancelled());
+            assertFalse(callbackCalled.get());
+            try {
+                call.get();
+                fail();
+            } catch (CancellationException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void cancelBeforeStartSkipsTask() throws Exception {
+        CountDownLatch gate = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                gate.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        AtomicBoolean ran = new AtomicBoolean();
+        OcrCall call = OcrCall.submit(executor, c -> {
+            ran.set(true);
+            return new IdentifyResult();
+        }, null);
+        call.cancel();
+        gate.countDown();
+        executor.submit(() -> { }).get(1, TimeUnit.SECONDS);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void bodyStopsEncodingWhenCancelled() throws Exception {
+        OcrCall call = new OcrCall();
+        call.cancel();
+        call.attach();
+        try {
+            new OcrRequestBody(new byte[64 * 1024], null).writeTo(new ByteArrayOutputStream());
+            fail();
+        } catch (InterruptedIOException expected) {
+        } finally {
+            OcrCall.detach();
+        }
+    }
+
+    @Test
+    public void lateCancelDoesNotInterruptNextPoolTask() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch nextStarted = new CountDownLatch(1);
+        OcrCall call = OcrCall.submit(executor, c -> {
+            // 取消动作拖到本调用结束、线程池开始执行下一个任务之后才完成
+            c.onCancel(() -> {
+                try {
+                    nextStarted.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                }
+            });
+            running.countDown();
+            while (!c.isCancelled()) Thread.yield();
+            return new IdentifyResult();
+        }, null);
+        assertTrue(running.await(2, TimeUnit.SECONDS));
+
+        Thread canceller = new Thread(call::cancel);
+        canceller.start();
+        Future<Boolean> next = executor.submit(() -> {
+            nextStarted.countDown();
+            canceller.join();
+            return Thread.currentThread().isInterrupted();
+        });
+        assertFalse(next.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void childIsCancelledWithParent() {
+        OcrCall parent = new OcrCall();
+        OcrCall child = parent.newChild();
+        AtomicBoolean hook = new AtomicBoolean();
+        child.onCancel(() -> hook.set(true));
+
+        parent.cancel();
+        assertTrue(child.isCancelled());
+        assertTrue(hook.get());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OcrRequestBodyTest {
+
+    @Test
+    public void writeTo_matchesJsonPayload() throws Exception {
+        Random random = new Random(42);
+        // 覆盖 0/1/2 字节尾块以及跨越多个编码块的长度
+        for (int len : new int[]{0, 1, 2, 3, 3071, 3072, 3073, 10000}) {
+            byte[] jpeg = new byte[len];
+            random.nextBytes(jpeg);
+
+            String expected = "{\"ImageBase64\":\"" + Base64.getEncoder().encodeToString(jpeg)
+                    + "\",\"CardSide\":\"FRONT\"}";
+            OcrRequestBody body = new OcrRequestBody(jpeg, "FRONT");
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            body.writeTo(out);
+
+            assertEquals(expected, out.toString("UTF-8"));
+            assertEquals(expected.length(), body.contentLength());
+        }
+    }
+
+    @Test
+    public void writeTo_usesOnlyTheViewedPrefix() throws Exception {
+        byte[] buffer = new byte[8192];
+        new Random(3).nextBytes(buffer);
+        byte[] jpeg = Arrays.copyOf(buffer, 5000);
+
+        OcrRequestBody view = new OcrRequestBody(buffer, 5000, "BACK");
+        OcrRequestBody copy = new OcrRequestBody(jpeg, "BACK");
+        ByteArrayOutputStream a = new ByteArrayOutputStream();
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        view.writeTo(a);
+        copy.writeTo(b);
+
+        assertArrayEquals(b.toByteArray(), a.toByteArray());
+        assertEquals(copy.contentLength(), view.contentLength());
+        assertEquals(copy.sha256Hex(), view.sha256Hex());
+        assertEquals(ResultCache.key(jpeg, "BACK"), ResultCache.key(buffer, 5000, "BACK"));
+    }
+
+    @Test
+    public void writeTo_omitsEmptyCardSide() throws Exception {
+        byte[] jpeg = {1, 2, 3, 4};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new OcrRequestBody(jpeg, " ").writeTo(out);
+        assertEquals("{\"ImageBase64\":\"AQIDBA==\"}", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void sha256Hex_hashesWrittenBytes() throws Exception {
+        byte[] jpeg = new byte[5000];
+        new Random(7).nextBytes(jpeg);
+        OcrRequestBody body = new OcrRequestBody(jpeg, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(out.toByteArray());
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest) hex.append(String.format("%02x", b));
+        assertEquals(hex.toString(), body.sha256Hex());
+    }
+
+    @Test
+    public void signHashedPayload_matchesStringPayload() throws Exception {
+        byte[] jpeg = "not really a jpeg".getBytes(StandardCharsets.UTF_8);
+        OcrRequestBody body = new OcrRequestBody(jpeg, "BACK");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        Tc3Signer.SignResult a = Tc3Signer.sign("id", "key", "ocr", "ocr.tencentcloudapi.com",
+                "IDCardOCR", "2018-11-19", 1700000000L, out.toString("UTF-8"), "application/json");
+        Tc3Signer.SignResult b = Tc3Signer.signHashedPayload("id", "key", "ocr", "ocr.tencentcloudapi.com",
+                "IDCardOCR", "2018-11-19", 1700000000L, body.sha256Hex(), "application/json");
+
+        assertEquals(a.authorization, b.authorization);
+    }
+}
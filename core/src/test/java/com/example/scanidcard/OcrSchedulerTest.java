@@ -0,0 +1,133 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OcrSchedulerTest {
+
+    private static IdentifyResult ok() {
+        IdentifyResult r = new IdentifyResult();
+        r.setErrorcode(0);
+        return r;
+    }
+
+    private static IdentifyResult throttled() {
+        IdentifyResult r = new IdentifyResult();
+        r.setErrorcode(1);
+        r.setErrormsg("RequestLimitExceeded: 请求的次数超过了频率限制");
+        return r;
+    }
+
+    @Test
+    public void rateIsLimited() throws Exception {
+        OcrScheduler.Config c = new OcrScheduler.Config();
+        c.qps = 50;
+        c.burst = 1;
+        OcrScheduler scheduler = new OcrScheduler(c);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 11; i++) scheduler.call(OcrScheduler.Priority.BATCH, OcrSchedulerTest::ok);
+        long ms = (System.nanoTime() - start) / 1_000_000L;
+        // 第一个令牌立即可用，之后每 20ms 一个
+        assertTrue(String.valueOf(ms), ms >= 180);
+        assertEquals(11, scheduler.stats().dispatched);
+    }
+
+    @Test
+    public void interactiveGoesBeforeQueuedBatch() throws Exception {
+        OcrScheduler.Config c = new OcrScheduler.Config();
+        c.maxConcurrent = 1;
+        OcrScheduler scheduler = new OcrScheduler(c);
+
+        CountDownLatch blocking = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newCachedThreadPool();
+
+        // 占住唯一的并发名额
+        pool.execute(() -> call(scheduler, OcrScheduler.Priority.BATCH, () -> {
+            started.countDown();
+            blocking.await();
+            return ok();
+        }));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 3; i++) {
+            String name = "batch" + i;
+            pool.execute(() -> call(scheduler, OcrScheduler.Priority.BATCH, () -> {
+                order.add(name);
+                return ok();
+            }));
+        }
+        waitQueued(scheduler, 3);
+        pool.execute(() -> call(scheduler, OcrScheduler.Priority.INTERACTIVE, () -> {
+            order.add("interactive");
+            return ok();
+        }));
+        waitQueued(scheduler, 4);
+
+        blocking.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.SECONDS));
+        assertEquals("interactive", order.get(0));
+        assertEquals(4, order.size());
+    }
+
+    @Test
+    public void throttleIsRetriedAndSlowsDown() throws Exception {
+        OcrScheduler.Config c = new OcrScheduler.Config();
+        c.qps = 100;
+        c.initialBackoffMs = 50;
+        OcrScheduler scheduler = new OcrScheduler(c);
+
+        AtomicInteger calls = new AtomicInteger();
+        long start = System.nanoTime();
+        IdentifyResult r = scheduler.call(OcrScheduler.Priority.INTERACTIVE,
+                () -> calls.incrementAndGet() <= 2 ? throttled() : ok());
+        long ms = (System.nanoTime() - start) / 1_000_000L;
+
+        assertEquals(0, r.getErrorcode());
+        assertEquals(3, calls.get());
+        // 暂停 50ms + 100ms
+        assertTrue(String.valueOf(ms), ms >= 150);
+        OcrScheduler.Stats s = scheduler.stats();
+        assertEquals(2, s.throttled);
+        assertEquals(2, s.retried);
+        assertTrue(String.valueOf(s.rate), s.rate < 100);
+    }
+
+    @Test
+    public void givesUpAfterMaxRetries() throws Exception {
+        OcrScheduler.Config c = new OcrScheduler.Config();
+        c.maxRetries = 1;
+        c.initialBackoffMs = 1;
+        OcrScheduler scheduler = new OcrScheduler(c);
+
+        IdentifyResult r = scheduler.call(OcrScheduler.Priority.BATCH, OcrSchedulerTest::throttled);
+        assertTrue(OcrScheduler.isThrottled(r));
+        assertEquals(2, scheduler.stats().dispatched);
+    }
+
+    private static void call(OcrScheduler s, OcrScheduler.Priority p, OcrScheduler.Call c) {
+        try {
+            s.call(p, c);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void waitQueued(OcrScheduler s, int n) throws InterruptedException {
+        for (int i = 0; i < 200 && s.stats().queued < n; i++) Thread.sleep(5);
+        assertEquals(n, s.stats().queued);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.scanidcard;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private SecretKey key;
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(256);
+        key = gen.generateKey();
+        dir = tmp.newFolder("cache");
+    }
+
+    private static IdentifyResult success(String name) {
+        IdentifyResult r = new IdentifyResult();
+        r.setErrorcode(0);
+        r.setName(name);
+        r.setIdNum("110101199003070000");
+        r.setRawJson("{\"Response\":{}}");
+        return r;
+    }
+
+    @Test
+    public void key_dependsOnImageAndSide() throws Exception {
+        byte[] a = {1, 2, 3};
+        byte[] b = {1, 2, 4};
+        assertEquals(ResultCache.key(a, null), ResultCache.key(a, " "));
+        assertNotEquals(ResultCache.key(a, null), ResultCache.key(a, "FRONT"));
+        assertNotEquals(ResultCache.key(a, "FRONT"), ResultCache.key(b, "FRONT"));
+    }
+
+    @Test
+    public void get_hitsMemoryThenDisk() throws Exception {
+        ResultCache cache = new ResultCache(new ResultCache.Config(), dir, key);
+        String k = ResultCache.key(new byte[]{9}, "FRONT");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("张三", cache.get(k, () -> { calls.incrementAndGet(); return success("张三"); }).getName());
+        assertEquals("张三", cache.get(k, () -> { calls.incrementAndGet(); return success("李四"); }).getName());
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.stats().memoryHits);
+        assertEquals(1, cache.stats().misses);
+
+        // 新实例（模拟进程重启）：从加密磁盘层读回
+        ResultCache reopened = new ResultCache(new ResultCache.Config(), dir, key);
+        IdentifyResult r = reopened.peek(k);
+        assertNotNull(r);
+        assertEquals("张三", r.getName());
+        assertEquals("{\"Response\":{}}", r.getRawJson());
+        assertEquals(1, reopened.stats().diskHits);
+    }
+
+    @Test
+    public void hitsReturnCopies() throws Exception {
+        ResultCache cache = new ResultCache(new ResultCache.Config(), dir, key);
+        String k = ResultCache.key(new byte[]{5}, "FRONT");
+        IdentifyResult loaded = cache.get(k, () -> success("张三"));
+        loaded.setName("改过");
+
+        IdentifyResult hit = cache.peek(k);
+        assertEquals("张三", hit.getName());
+        hit.setCheckFlags(IdCardValidator.UNKNOWN_REGION);
+        assertEquals(0, cache.peek(k).getCheckFlags());
+        assertNotSame(cache.peek(k), cache.peek(k));
+    }
+
+    @Test
+    public void memoryTierRespectsTtl() throws Exception {
+        ResultCache.Config config = new ResultCache.Config();
+        config.ttlMs = 50;
+        ResultCache cache = new ResultCache(config, dir, key);
+        String k = ResultCache.key(new byte[]{6}, "FRONT");
+        cache.put(k, success("张三"));
+        assertNotNull(cache.peek(k));
+
+        Thread.sleep(100);
+        assertNull(cache.peek(k));
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("李四", cache.get(k, () -> { calls.incrementAndGet(); return success("李四"); }).getName());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void failuresAreNotCached() throws Exception {
+        ResultCache cache = new ResultCache(new ResultCache.Config(), dir, key);
+        String k = ResultCache.key(new byte[]{1}, null);
+        IdentifyResult failure = new IdentifyResult();
+        failure.setErrorcode(1);
+
+        cache.get(k, () -> failure);
+        assertNull(cache.peek(k));
+    }
+
+    @Test
+    public void diskEntriesAreEncryptedAndTamperChecked() throws Exception {
+        ResultCache cache = new ResultCache(new ResultCache.Config(), dir, key);
+        String k = ResultCache.key(new byte[]{2}, null);
+        cache.put(k, success("王五"));
+
+        File f = new File(dir, k + ".bin");
+        byte[] data = java.nio.file.Files.readAllBytes(f.toPath());
+        assertFalse(new String(data, "UTF-8").contains("王五"));
+
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            raf.seek(f.length() - 1);
+            raf.write(data[data.length - 1] ^ 0x01);
+        }
+        assertNull(new ResultCache(new ResultCache.Config(), dir, key).peek(k));
+        assertFalse(f.exists());
+    }
+
+    @Test
+    public void diskTierRespectsSizeLimit() throws Exception {
+        ResultCache.Config config = new ResultCache.Config();
+        config.diskMaxBytes = 1024;
+        ResultCache cache = new ResultCache(config, dir, key);
+        for (int i = 0; i < 50; i++) {
+            cache.put(ResultCache.key(new byte[]{(byte) i}, null), success("name-" + i));
+        }
+        long total = 0;
+        for (File f : dir.listFiles()) total += f.length();
+        assertTrue(total <= 1024);
+    }
+
+    @Test
+    public void concurrentRequestsAreCoalesced() throws Exception {
+        ResultCache cache = new ResultCache(new ResultCache.Config(), dir, key);
+        String k = ResultCache.key(new byte[]{3}, null);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = pool.submit(() -> cache.get(k, () -> {
+                    calls.incrementAndGet();
+                    release.await();
+                    return success("赵六");
+                }));
+            }
+            // 等其余请求都进入等待
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.stats().coalesced < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<?> f : futures) {
+                assertEquals("赵六", ((IdentifyResult) f.get(5, TimeUnit.SECONDS)).getName());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(3, cache.stats().coalesced);
+    }
+}
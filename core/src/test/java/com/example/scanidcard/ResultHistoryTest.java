@@ -0,0 +1,199 @@
+package com.example.scanidcard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.*;
+
+public class ResultHistoryTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static SecretKey newKey() throws Exception {
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(256);
+        return gen.generateKey();
+    }
+
+    private static IdentifyResult person(String name, String idNum, String address) {
+        IdentifyResult r = new IdentifyResult();
+        r.setName(name);
+        r.setIdNum(idNum);
+        r.setAddress(address);
+        r.setBirth("1990/1/1");
+        r.setRawJson("{\"Response\":{}}");
+        return r;
+    }
+
+    private static String names(ResultHistory.Page page) {
+        StringBuilder sb = new StringBuilder();
+        for (ResultHistory.Entry e : page.entries) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(e.name);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void queriesByPrefixAndTextNewestFirst() throws Exception {
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), tmp.newFolder(), newKey())) {
+            history.append(person("李明", "440524198701010014", "广东省汕头市潮阳区"));
+            history.append(person("王芳", "110105194912310021", "北京市朝阳区建国路"));
+            history.append(person("李华", "44010119900101000x", "广东省广州市越秀区"));
+            history.flush();
+            assertEquals(3, history.size());
+
+            assertEquals("李华,李明", names(history.query(ResultHistory.Match.ID_PREFIX, "440", -1, 10)));
+            assertEquals("李明", names(history.query(ResultHistory.Match.ID_PREFIX, "4405", -1, 10)));
+            // 末位 x 按 X 查
+            assertEquals("李华", names(history.query(ResultHistory.Match.ID_PREFIX, "44010119900101000x", -1, 10)));
+            assertEquals("李华,李明", names(history.query(ResultHistory.Match.NAME_PREFIX, "李", -1, 10)));
+            assertEquals("王芳", names(history.query(ResultHistory.Match.TEXT, "朝阳区建国", -1, 10)));
+            assertEquals("李华,李明", names(history.query(ResultHistory.Match.TEXT, "广东", -1, 10)));
+            // 单字查询没有 bigram 可用，顺序扫
+            assertEquals("李华,王芳,李明", names(history.query(ResultHistory.Match.TEXT, "区", -1, 10)));
+            assertEquals("", names(history.query(ResultHistory.Match.TEXT, "上海", -1, 10)));
+            assertEquals("李华,王芳,李明", names(history.query(ResultHistory.Match.TEXT, "", -1, 10)));
+        }
+    }
+
+    @Test
+    public void interruptedLoadDoesNotBreakLaterWrites() throws Exception {
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), tmp.newFolder(), newKey())) {
+            history.append(person("李明", "440524198701010014", "广东省汕头市潮阳区"));
+            history.flush();
+            ResultHistory.Entry entry = history.query(ResultHistory.Match.TEXT, "", -1, 10).entries.get(0);
+
+            Thread.currentThread().interrupt();
+            try {
+                assertEquals("李明", history.load(entry).getName());
+            } finally {
+                Thread.interrupted();
+            }
+
+            history.append(person("王芳", "110105194912310021", "北京市朝阳区建国路"));
+            history.flush();
+            assertEquals(2, history.size());
+            assertEquals(0, history.writeFailures());
+        }
+    }
+
+    @Test
+    public void pagesWithCursor() throws Exception {
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), tmp.newFolder(), newKey())) {
+            for (int i = 0; i < 25; i++) {
+                history.append(person("张" + i, String.format("3301061990%08d", i), "浙江省杭州市西湖区"));
+            }
+            history.flush();
+
+            int before = -1;
+            int seen = 0;
+            int pages = 0;
+            do {
+                ResultHistory.Page page = history.query(ResultHistory.Match.TEXT, "杭州", before, 10);
+                for (ResultHistory.Entry e : page.entries) {
+                    assertEquals("张" + (24 - seen), e.name);
+                    seen++;
+                }
+                before = page.next;
+                pages++;
+            } while (before >= 0);
+            assertEquals(25, seen);
+            assertEquals(3, pages);
+        }
+    }
+
+    @Test
+    public void encryptedOnDiskAndReloadedAfterReopen() throws Exception {
+        File dir = tmp.newFolder();
+        SecretKey key = newKey();
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, key)) {
+            history.append(person("李明", "440524198701010014", "广东省汕头市潮阳区"));
+            // 失败和校验未通过的结果不保存
+            IdentifyResult failed = new IdentifyResult();
+            failed.setErrorcode(1);
+            history.append(failed);
+            IdentifyResult flagged = person("李明", "440524198701010015", "");
+            flagged.setCheckFlags(IdCardValidator.BAD_CHECKSUM);
+            history.append(flagged);
+        }
+
+        byte[] onDisk = Files.readAllBytes(new File(dir, "history.log").toPath());
+        assertFalse(new String(onDisk, StandardCharsets.UTF_8).contains("440524"));
+
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, key)) {
+            assertEquals(1, history.size());
+            ResultHistory.Entry e = history.query(ResultHistory.Match.NAME_PREFIX, "李明", -1, 1).entries.get(0);
+            IdentifyResult r = history.load(e);
+            assertEquals("440524198701010014", r.getIdNum());
+            assertEquals("1990/1/1", r.getBirth());
+            // 原始 JSON 不进历史
+            assertNull(r.getRawJson());
+        }
+    }
+
+    @Test
+    public void truncatesTornTailAndKeepsAppending() throws Exception {
+        File dir = tmp.newFolder();
+        SecretKey key = newKey();
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, key)) {
+            history.append(person("李明", "440524198701010014", "广东省"));
+            history.append(person("王芳", "110105194912310021", "北京市"));
+        }
+        File log = new File(dir, "history.log");
+        try (RandomAccessFile f = new RandomAccessFile(log, "rw")) {
+            f.setLength(f.length() - 5);
+        }
+
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, key)) {
+            assertEquals(1, history.size());
+            history.append(person("赵强", "330106199001010011", "浙江省"));
+            history.flush();
+            assertEquals("赵强,李明", names(history.query(ResultHistory.Match.TEXT, "", -1, 10)));
+        }
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, key)) {
+            assertEquals(2, history.size());
+            history.clear();
+            assertEquals(0, history.size());
+        }
+        assertEquals(0, log.length());
+    }
+
+    @Test
+    public void dataKeyIsWrappedOnceAndOldLogIsReencrypted() throws Exception {
+        File dir = tmp.newFolder();
+        SecretKey wrapping = newKey();
+        // 旧版本：记录直接用 KeyStore 密钥加密
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, wrapping)) {
+            history.append(person("李明", "440524198701010014", "广东省"));
+            history.append(person("王芳", "110105194912310021", "北京市"));
+        }
+
+        SecretKey data = ResultHistory.dataKey(dir, wrapping);
+        assertFalse(new File(dir, "history.log.tmp").exists());
+        assertArrayEquals(data.getEncoded(), ResultHistory.dataKey(dir, wrapping).getEncoded());
+        try (ResultHistory history = new ResultHistory(new ResultHistory.Config(), dir, data)) {
+            assertEquals(2, history.size());
+            assertEquals(0, history.dropped());
+            ResultHistory.Entry e = history.query(ResultHistory.Match.NAME_PREFIX, "李", -1, 10).entries.get(0);
+            assertEquals("广东省", history.load(e).getAddress());
+        }
+        // 数据密钥只能用 KeyStore 密钥解开
+        try {
+            ResultHistory.dataKey(dir, newKey());
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.scanidcard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ScanMetricsTest {
+
+    @Test
+    public void histogramPercentilesWithinBucketError() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) h.record(i);
+
+        assertEquals(10000, h.count());
+        assertEquals(10000, h.max());
+        assertNear(5000, h.percentile(0.50));
+        assertNear(9500, h.percentile(0.95));
+        assertNear(9900, h.percentile(0.99));
+        assertEquals(10000, h.percentile(1.0));
+    }
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long v = 0; v < 1_000_000; v++) {
+            int b = LatencyHistogram.bucket(v);
+            assertTrue(v <= LatencyHistogram.upperBound(b));
+            if (b > 0) assertTrue(v > LatencyHistogram.upperBound(b - 1));
+        }
+    }
+
+    @Test
+    public void emptyHistogram() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentile(0.99));
+        assertEquals(0, h.mean(), 0);
+    }
+
+    @Test
+    public void skippedStagesAreNotRecorded() {
+        ScanMetrics metrics = new ScanMetrics();
+        List<ScanTrace> seen = new ArrayList<>();
+        metrics.addListener(seen::add);
+
+        ScanTrace trace = new ScanTrace();
+        trace.attach();
+        try {
+            ScanTrace.record(ScanMetrics.Stage.DECODE, System.nanoTime() - 2_000_000, 4096);
+            ScanTrace.record(ScanMetrics.Stage.COMPRESS, System.nanoTime() - 1_000_000, 200);
+            ScanTrace.record(ScanMetrics.Stage.COMPRESS, System.nanoTime() - 1_000_000, 100);
+        } finally {
+            ScanTrace.detach();
+        }
+        trace.finish(metrics);
+
+        assertEquals(1, seen.size());
+        assertSame(trace, seen.get(0));
+        assertEquals(300, trace.bytes(ScanMetrics.Stage.COMPRESS));
+        assertFalse(trace.has(ScanMetrics.Stage.TTFB));
+
+        assertEquals(1, metrics.histogram(ScanMetrics.Stage.DECODE).count());
+        assertEquals(1, metrics.histogram(ScanMetrics.Stage.TOTAL).count());
+        assertEquals(0, metrics.histogram(ScanMetrics.Stage.TTFB).count());
+        assertTrue(metrics.histogram(ScanMetrics.Stage.COMPRESS).max() >= 2000);
+        assertTrue(metrics.dump().contains("\"DECODE\":{\"count\":1,"));
+    }
+
+    @Test
+    public void recordWithoutTraceIsNoop() {
+        ScanTrace.record(ScanMetrics.Stage.SIGN, System.nanoTime(), 0);
+        assertNull(ScanTrace.current());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        assertTrue("expected ~" + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * 0.13);
+    }
+}
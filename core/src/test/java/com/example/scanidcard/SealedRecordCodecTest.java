@@ -0,0 +1,75 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+import static org.junit.Assert.*;
+
+public class SealedRecordCodecTest {
+
+    private static SecretKey newKey() throws Exception {
+        KeyGenerator gen = KeyGenerator.getInstance("AES");
+        gen.init(256);
+        return gen.generateKey();
+    }
+
+    private static DataInputStream in(byte[] b) {
+        return new DataInputStream(new ByteArrayInputStream(b));
+    }
+
+    @Test
+    public void framedRecordRoundTrips() throws Exception {
+        SealedRecordCodec codec = new SealedRecordCodec(0x4F435354, 1024, newKey());
+        byte[] plain = "李明 440524198701010014".getBytes(StandardCharsets.UTF_8);
+        byte[] record = codec.frame(plain);
+
+        byte[] sealed = codec.read(in(record), record.length);
+        assertNotNull(sealed);
+        assertEquals(record.length, SealedRecordCodec.recordBytes(sealed));
+        assertArrayEquals(plain, codec.open(sealed));
+        assertArrayEquals(plain, codec.openFramed(record));
+    }
+
+    @Test
+    public void tornOrCorruptRecordReadsAsNull() throws Exception {
+        SealedRecordCodec codec = new SealedRecordCodec(0x4F435354, 1024, newKey());
+        byte[] record = codec.frame(new byte[100]);
+
+        // 写了一半的尾部
+        byte[] torn = Arrays.copyOf(record, record.length - 1);
+        assertNull(codec.read(in(torn), torn.length));
+        // 加密部分有一位被改
+        byte[] flipped = record.clone();
+        flipped[SealedRecordCodec.HEADER_BYTES + 3] ^= 1;
+        assertNull(codec.read(in(flipped), flipped.length));
+        try {
+            codec.openFramed(flipped);
+            fail();
+        } catch (IOException expected) {
+        }
+        // 别的文件的记录（MAGIC 不同）
+        SealedRecordCodec other = new SealedRecordCodec(0x4F434848, 1024, newKey());
+        assertNull(other.read(in(record), record.length));
+    }
+
+    @Test
+    public void associatedDataMustMatch() throws Exception {
+        SecretKey key = newKey();
+        byte[] sealed = SealedRecordCodec.seal(key, new byte[]{1, 2, 3}, "a".getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(new byte[]{1, 2, 3},
+                SealedRecordCodec.open(key, sealed, 0, sealed.length, "a".getBytes(StandardCharsets.UTF_8)));
+        try {
+            SealedRecordCodec.open(key, sealed, 0, sealed.length, "b".getBytes(StandardCharsets.UTF_8));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.scanidcard;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.*;
+
+public class Tc3SignerTest {
+
+    private static final String HOST = "ocr.tencentcloudapi.com";
+
+    @Test
+    public void utcDate_matchesSimpleDateFormat() {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Random random = new Random(5);
+        long[] edges = {0L, 86399L, 86400L, 951782400L, 951868800L, 1709164800L, 4102444800L};
+        for (long ts : edges) {
+            assertEquals(sdf.format(new Date(ts * 1000L)), Tc3Signer.utcDate(ts));
+        }
+        for (int i = 0; i < 10000; i++) {
+            long ts = (random.nextLong() >>> 1) % 4102444800L;
+            assertEquals(sdf.format(new Date(ts * 1000L)), Tc3Signer.utcDate(ts));
+        }
+    }
+
+    @Test
+    public void sign_matchesReferenceAcrossDays() throws Exception {
+        // 跨越 UTC 日期边界，确保派生密钥缓存按天失效
+        long[] timestamps = {1700006399L, 1700006400L, 1700006401L, 1700092800L, 1700006400L};
+        for (String key : new String[]{"key-a", "key-b"}) {
+            for (long ts : timestamps) {
+                String payload = "{\"ImageBase64\":\"AAAA\",\"ts\":" + ts + "}";
+                Tc3Signer.SignResult r = Tc3Signer.sign("sid", key, "ocr", HOST,
+                        "IDCardOCR", "2018-11-19", ts, payload, "application/json");
+                assertEquals(referenceAuthorization("sid", key, "ocr", ts, payload), r.authorization);
+            }
+        }
+    }
+
+    @Test
+    public void sign_isThreadSafe() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final long ts = 1700000000L + i * 3600L;
+                final String key = "key-" + (i % 3);
+                futures.add(pool.submit(() -> {
+                    String payload = "payload-" + ts;
+                    String expected = referenceAuthorization("sid", key, "ocr", ts, payload);
+                    return expected.equals(Tc3Signer.sign("sid", key, "ocr", HOST,
+                            "IDCardOCR", "2018-11-19", ts, payload, "application/json").authorization);
+                }));
+            }
+            for (Future<Boolean> f : futures) {
+                assertTrue(f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ---- 改造前的签名实现，作为逐字节对照 ----
+
+    private static String referenceAuthorization(String secretId, String secretKey, String service,
+                                                 long timestamp, String payload) throws Exception {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String date = sdf.format(new Date(timestamp * 1000L));
+
+        String canonicalHeaders = "content-type:application/json\n" + "host:" + HOST + "\n" + "x-tc-action:idcardocr\n";
+        String signedHeaders = "content-type;host;x-tc-action";
+        String canonicalRequest = "POST\n/\n\n" + canonicalHeaders + "\n" + signedHeaders + "\n" + sha256Hex(payload);
+
+        String credentialScope = date + "/" + service + "/tc3_request";
+        String stringToSign = "TC3-HMAC-SHA256\n" + timestamp + "\n" + credentialScope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] secretDate = hmac(("TC3" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        byte[] secretService = hmac(secretDate, service);
+        byte[] secretSigning = hmac(secretService, "tc3_request");
+        String signature = hex(hmac(secretSigning, stringToSign));
+
+        return "TC3-HMAC-SHA256 Credential=" + secretId + "/" + credentialScope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    private static String sha256Hex(String s) throws Exception {
+        return hex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] hmac(byte[] key, String msg) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(msg.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.scanidcard;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class TencentOcrClientTest {
+
+    private static final String SUCCESS = "{\"Response\":{\"Name\":\"张三\",\"Sex\":\"男\",\"Nation\":\"汉\","
+            + "\"Birth\":\"1990/1/1\",\"Address\":\"广东省广州市\",\"IdNum\":\"440101199001010003\","
+            + "\"Authority\":\"\",\"ValidDate\":\"\",\"AdvancedInfo\":\"{}\",\"RequestId\":\"req-1\"}}";
+
+    private static final String ERROR = "{\"Response\":{\"Error\":{\"Code\":\"RequestLimitExceeded\","
+            + "\"Message\":\"too many\"},\"RequestId\":\"req-2\"}}";
+
+    /**
+     * 记录请求并返回固定响应的本地传输层
+     */
+    private static class FakeTransport implements OcrTransport {
+        final String response;
+        Map<String, String> headers;
+        byte[] body;
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        FakeTransport(String response) {
+            this.response = response;
+        }
+
+        @Override
+        public Response post(Map<String, String> headers, long contentLength, BodyWriter body) {
+            this.headers = headers;
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                body.writeTo(out);
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+            this.body = out.toByteArray();
+            assertEquals(contentLength, this.body.length);
+            return new Response(200, new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)),
+                    () -> closed.set(true));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TencentOcrClient.setTransport(null);
+        TencentOcrClient.setDebug(false);
+    }
+
+    @Test
+    public void idCardOcr_sendsSignedRequestThroughTransport() throws Exception {
+        FakeTransport transport = new FakeTransport(SUCCESS);
+        TencentOcrClient.setTransport(transport);
+
+        byte[] jpeg = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xD9};
+        IdentifyResult result = TencentOcrClient.idCardOcr("sid", "skey", " ap-beijing ", jpeg, "FRONT");
+
+        assertEquals(0, result.getErrorcode());
+        assertEquals("张三", result.getName());
+        assertEquals("440101199001010003", result.getIdNum());
+        assertEquals("req-1", result.getRequestId());
+        assertTrue(transport.closed.get());
+
+        assertEquals("ap-beijing", transport.headers.get("X-TC-Region"));
+        assertEquals(TencentOcrClient.ACTION, transport.headers.get("X-TC-Action"));
+        assertEquals("{\"ImageBase64\":\"/9j/2Q==\",\"CardSide\":\"FRONT\"}",
+                new String(transport.body, StandardCharsets.UTF_8));
+
+        long timestamp = Long.parseLong(transport.headers.get("X-TC-Timestamp"));
+        Tc3Signer.SignResult expected = Tc3Signer.sign("sid", "skey", TencentOcrClient.SERVICE,
+                TencentOcrClient.HOST, TencentOcrClient.ACTION, TencentOcrClient.VERSION, timestamp,
+                new String(transport.body, StandardCharsets.UTF_8), TencentOcrClient.CONTENT_TYPE);
+        assertEquals(expected.authorization, transport.headers.get("Authorization"));
+    }
+
+    @Test
+    public void idCardOcr_base64OverloadSendsSameBody() throws Exception {
+        FakeTransport transport = new FakeTransport(SUCCESS);
+        TencentOcrClient.setTransport(transport);
+
+        IdentifyResult result = TencentOcrClient.idCardOcr("sid", "skey", null, "/9j/2Q==", "FRONT");
+
+        assertEquals(0, result.getErrorcode());
+        assertEquals("{\"ImageBase64\":\"/9j/2Q==\",\"CardSide\":\"FRONT\"}",
+                new String(transport.body, StandardCharsets.UTF_8));
+        assertNull(transport.headers.get("X-TC-Region"));
+    }
+
+    @Test
+    public void idCardOcr_reportsApiError() throws Exception {
+        TencentOcrClient.setTransport(new FakeTransport(ERROR));
+
+        IdentifyResult result = TencentOcrClient.idCardOcr("sid", "skey", null, new byte[]{1}, null);
+
+        assertEquals(1, result.getErrorcode());
+        assertEquals("RequestLimitExceeded: too many", result.getErrormsg());
+        assertEquals("req-2", result.getRequestId());
+    }
+
+    @Test
+    public void idCardOcr_keepsRawBodyOnlyInDebug() throws Exception {
+        TencentOcrClient.setTransport(new FakeTransport(SUCCESS));
+        assertNull(TencentOcrClient.idCardOcr("sid", "skey", null, new byte[]{1}, null).getRawJson());
+
+        TencentOcrClient.setDebug(true);
+        assertEquals(SUCCESS, TencentOcrClient.idCardOcr("sid", "skey", null, new byte[]{1}, null).getRawJson());
+    }
+}
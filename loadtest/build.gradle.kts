@@ -0,0 +1,19 @@
+plugins {
+    application
+}
+
+// 本地压测：模拟 IDCardOCR 接口的替身服务 + 压测客户端，不消耗真实接口配额
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.example.scanidcard.LoadGenerator")
+}
+
+dependencies {
+    implementation(project(":core"))
+
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,183 @@
+package com.example.scanidcard;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测客户端：按给定并发数通过 {@link TencentOcrClient} 发送请求，统计吞吐与延迟分位数。
+ *
+ * 走的是完整的客户端路径（请求体 + 签名 + 当前传输层 + 解析），目标一般是 {@link OcrStandInServer}。
+ * 传输层由调用方事先通过 {@link TencentOcrClient#setTransport} 设置好。
+ */
+public class LoadGenerator {
+
+    public static class Config {
+        /** 并发请求数 */
+        public int concurrency = 16;
+        /** 总请求数 */
+        public int requests = 1000;
+        /** 模拟的 JPEG 大小 */
+        public int imageBytes = 200 * 1024;
+        public String secretId = "AKIDSTANDIN";
+        public String secretKey = "standin-secret";
+        public String region;
+        public String cardSide = "FRONT";
+        /** 可选：经过客户端限速调度器发送（null 表示不限速，直接发） */
+        public OcrScheduler scheduler;
+    }
+
+    public static class Report {
+        public int total;
+        public int succeeded;
+        public int failed;
+        public long elapsedMs;
+        /** 单个请求的延迟（微秒） */
+        public LatencyHistogram latency;
+        /** 失败原因（错误码）-> 次数 */
+        public Map<String, Integer> errors;
+
+        public double requestsPerSecond() {
+            return elapsedMs <= 0 ? 0 : total * 1000.0 / elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "请求 %d：成功 %d，失败 %d，耗时 %.1f s，吞吐 %.1f 次/秒；延迟 p50 %.1f ms，p95 %.1f ms，"
+                            + "p99 %.1f ms，最大 %.1f ms；错误 %s",
+                    total, succeeded, failed, elapsedMs / 1000.0, requestsPerSecond(),
+                    latency.percentile(0.50) / 1000.0, latency.percentile(0.95) / 1000.0,
+                    latency.percentile(0.99) / 1000.0, latency.max() / 1000.0, errors);
+        }
+    }
+
+    private final Config config;
+
+    public LoadGenerator(Config config) {
+        this.config = config;
+    }
+
+    public Report run() throws InterruptedException {
+        byte[] jpeg = new byte[config.imageBytes];
+        new Random(config.imageBytes).nextBytes(jpeg);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        ConcurrentHashMap<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong succeeded = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(config.concurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency);
+
+        long start = System.nanoTime();
+        for (int w = 0; w < config.concurrency; w++) {
+            workers.execute(() -> {
+                try {
+                    while (next.getAndIncrement() < config.requests) {
+                        long t0 = System.nanoTime();
+                        IdentifyResult r;
+                        try {
+                            OcrScheduler.Call call = () -> TencentOcrClient.idCardOcr(config.secretId,
+                                    config.secretKey, config.region, jpeg, config.cardSide);
+                            r = config.scheduler != null
+                                    ? config.scheduler.call(OcrScheduler.Priority.BATCH, call) : call.call();
+                        } catch (Exception e) {
+                            r = new IdentifyResult();
+                            r.setErrorcode(1);
+                            r.setErrormsg(e.getClass().getSimpleName());
+                        }
+                        latency.record((System.nanoTime() - t0) / 1000L);
+                        if (r.getErrorcode() == 0) {
+                            succeeded.incrementAndGet();
+                        } else {
+                            errors.computeIfAbsent(errorCode(r.getErrormsg()), k -> new AtomicInteger())
+                                    .incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+
+        Report report = new Report();
+        report.total = config.requests;
+        report.succeeded = (int) succeeded.get();
+        report.failed = report.total - report.succeeded;
+        report.elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        report.latency = latency;
+        report.errors = new TreeMap<>();
+        for (Map.Entry<String, AtomicInteger> e : errors.entrySet()) report.errors.put(e.getKey(), e.getValue().get());
+        return report;
+    }
+
+    /**
+     * "RequestLimitExceeded: ..." -> "RequestLimitExceeded"
+     */
+    private static String errorCode(String errormsg) {
+        if (errormsg == null) return "";
+        int i = errormsg.indexOf(':');
+        return i < 0 ? errormsg : errormsg.substring(0, i);
+    }
+
+    /**
+     * 启动本地替身接口并压测：
+     *
+     * <pre>
+     * loadtest [-c 16] [-n 1000] [--size 204800] [--latency 80] [--jitter 40] [--error-rate 0.01] [--qps 0]
+     *          [--client-qps 0]   # 大于 0 时经过客户端限速调度器
+     *          [--endpoint URL]   # 指定时不启动本地替身，直接压测该地址
+     * </pre>
+     */
+    public static void main(String[] args) throws Exception {
+        Config config = new Config();
+        OcrStandInServer.Config server = new OcrStandInServer.Config();
+        String endpoint = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) throw new IllegalArgumentException(args[i] + " 缺少参数值");
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "-c": config.concurrency = Integer.parseInt(v); break;
+                case "-n": config.requests = Integer.parseInt(v); break;
+                case "--size": config.imageBytes = Integer.parseInt(v); break;
+                case "--latency": server.latencyMs = Long.parseLong(v); break;
+                case "--jitter": server.latencyJitterMs = Long.parseLong(v); break;
+                case "--error-rate": server.errorRate = Double.parseDouble(v); break;
+                case "--qps": server.maxQps = Integer.parseInt(v); break;
+                case "--client-qps":
+                    OcrScheduler.Config sc = new OcrScheduler.Config();
+                    sc.qps = Double.parseDouble(v);
+                    sc.maxConcurrent = Integer.MAX_VALUE;
+                    config.scheduler = new OcrScheduler(sc);
+                    break;
+                case "--endpoint": endpoint = v; break;
+                default: throw new IllegalArgumentException("未知参数：" + args[i]);
+            }
+        }
+        server.threads = Math.max(server.threads, config.concurrency);
+
+        OcrStandInServer standIn = endpoint == null ? new OcrStandInServer(server).start() : null;
+        try {
+            HttpTransport.Config transport = new HttpTransport.Config();
+            transport.endpoint = standIn != null ? standIn.endpoint() : endpoint;
+            // 每个并发请求都能留住一条 keep-alive 连接（进程级，只在第一次请求前读取）
+            if (System.getProperty("http.maxConnections") == null) {
+                System.setProperty("http.maxConnections", String.valueOf(config.concurrency));
+            }
+            TencentOcrClient.setTransport(new HttpTransport(transport));
+
+            System.out.println(new LoadGenerator(config).run());
+        } finally {
+            if (standIn != null) standIn.close();
+        }
+    }
+}
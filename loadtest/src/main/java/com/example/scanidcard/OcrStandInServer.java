@@ -0,0 +1,257 @@
+package com.example.scanidcard;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地的 IDCardOCR 替身接口，用于离线压测 {@link TencentOcrClient}。
+ *
+ * 按 {@link Tc3Signer} 的算法重新计算签名并与 Authorization 逐字比较，
+ * 返回固定的成功 / 错误 Response。延迟、随机错误率和 QPS 限流（RequestLimitExceeded）可配置。
+ *
+ * 注意：HttpURLConnection 不允许改写 Host 头，实际收到的是本地地址，因此签名按 {@link TencentOcrClient#HOST} 校验。
+ */
+public class OcrStandInServer implements AutoCloseable {
+
+    public static class Config {
+        /** 监听端口，0 表示随机空闲端口 */
+        public int port = 0;
+        /** 用来校验签名的密钥对 */
+        public String secretId = "AKIDSTANDIN";
+        public String secretKey = "standin-secret";
+        /** 每个请求固定的处理延迟 */
+        public long latencyMs = 0;
+        /** 在固定延迟之上增加 [0, latencyJitterMs) 的随机延迟 */
+        public long latencyJitterMs = 0;
+        /** 随机返回 FailedOperation.OcrFailed 的比例，0 ~ 1 */
+        public double errorRate = 0;
+        /** 每秒最多处理的请求数，超出返回 RequestLimitExceeded；0 表示不限 */
+        public int maxQps = 0;
+        /** 时间戳与服务器时间相差超过该值返回 AuthFailure.SignatureExpire */
+        public long maxClockSkewSec = 300;
+        /** 处理请求的线程数 */
+        public int threads = 64;
+    }
+
+    /**
+     * 服务端计数
+     */
+    public static class Stats {
+        public long requests;
+        public long succeeded;
+        public long authFailures;
+        public long throttled;
+        public long injectedErrors;
+        public long badRequests;
+    }
+
+    private static final String FRONT = "\"Name\":\"张三\",\"Sex\":\"男\",\"Nation\":\"汉\",\"Birth\":\"1990/1/1\","
+            + "\"Address\":\"广东省广州市天河区\",\"IdNum\":\"440101199001010003\",\"Authority\":\"\",\"ValidDate\":\"\"";
+    private static final String BACK = "\"Name\":\"\",\"Sex\":\"\",\"Nation\":\"\",\"Birth\":\"\",\"Address\":\"\","
+            + "\"IdNum\":\"\",\"Authority\":\"广州市公安局天河分局\",\"ValidDate\":\"2015.01.01-2035.01.01\"";
+
+    static {
+        // 默认开启 Nagle：响应头和响应体分两次写出时，会与客户端的延迟 ACK 叠加出约 40ms 的假延迟。
+        // 该属性在 HttpServer 第一次创建时读取
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Config config;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong authFailures = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong badRequests = new AtomicLong();
+
+    // 限流用的固定窗口（按秒）
+    private long windowSecond;
+    private int windowCount;
+
+    public OcrStandInServer(Config config) throws IOException {
+        this.config = config;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.port), 0);
+        this.executor = Executors.newFixedThreadPool(config.threads);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public OcrStandInServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * 传给 {@link HttpTransport.Config#endpoint} 的地址
+     */
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    public Stats stats() {
+        Stats s = new Stats();
+        s.requests = requests.get();
+        s.succeeded = succeeded.get();
+        s.authFailures = authFailures.get();
+        s.throttled = throttled.get();
+        s.injectedErrors = injectedErrors.get();
+        s.badRequests = badRequests.get();
+        return s;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            byte[] body = readAll(exchange.getRequestBody());
+            String requestId = UUID.randomUUID().toString();
+
+            String auth = checkSignature(exchange, body);
+            if (auth != null) {
+                authFailures.incrementAndGet();
+                respond(exchange, error(auth, "签名校验失败", requestId));
+                return;
+            }
+            if (!tryAcquire()) {
+                throttled.incrementAndGet();
+                respond(exchange, error("RequestLimitExceeded", "请求的次数超过了频率限制", requestId));
+                return;
+            }
+
+            String cardSide = null;
+            try {
+                JsonObject payload = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+                JsonElement image = payload.get("ImageBase64");
+                if (image == null || image.getAsString().isEmpty()) throw new IllegalArgumentException();
+                JsonElement side = payload.get("CardSide");
+                cardSide = side != null ? side.getAsString() : null;
+            } catch (RuntimeException e) {
+                badRequests.incrementAndGet();
+                respond(exchange, error("InvalidParameter", "请求体格式不正确", requestId));
+                return;
+            }
+
+            sleep();
+            if (config.errorRate > 0 && ThreadLocalRandom.current().nextDouble() < config.errorRate) {
+                injectedErrors.incrementAndGet();
+                respond(exchange, error("FailedOperation.OcrFailed", "OCR识别失败", requestId));
+                return;
+            }
+
+            succeeded.incrementAndGet();
+            String fields = "BACK".equals(cardSide) ? BACK : FRONT;
+            respond(exchange, "{\"Response\":{" + fields + ",\"AdvancedInfo\":\"{}\",\"RequestId\":\""
+                    + requestId + "\"}}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * @return 校验失败时的错误码；通过返回 null
+     */
+    private String checkSignature(HttpExchange exchange, byte[] body) {
+        try {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            String timestamp = exchange.getRequestHeaders().getFirst("X-TC-Timestamp");
+            String action = exchange.getRequestHeaders().getFirst("X-TC-Action");
+            String version = exchange.getRequestHeaders().getFirst("X-TC-Version");
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (authorization == null || timestamp == null || action == null || version == null || contentType == null) {
+                return "AuthFailure.SignatureFailure";
+            }
+            if (!authorization.contains("Credential=" + config.secretId + "/")) {
+                return "AuthFailure.SecretIdNotFound";
+            }
+            long ts = Long.parseLong(timestamp);
+            if (Math.abs(System.currentTimeMillis() / 1000L - ts) > config.maxClockSkewSec) {
+                return "AuthFailure.SignatureExpire";
+            }
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            Tc3Signer.SignResult expected = Tc3Signer.signHashedPayload(config.secretId, config.secretKey,
+                    TencentOcrClient.SERVICE, TencentOcrClient.HOST, action, version, ts,
+                    Tc3Signer.bytesToHex(sha.digest(body)), contentType);
+            return expected.authorization.equals(authorization) ? null : "AuthFailure.SignatureFailure";
+        } catch (Exception e) {
+            return "AuthFailure.SignatureFailure";
+        }
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (config.maxQps <= 0) return true;
+        long second = System.currentTimeMillis() / 1000L;
+        if (second != windowSecond) {
+            windowSecond = second;
+            windowCount = 0;
+        }
+        return ++windowCount <= config.maxQps;
+    }
+
+    private void sleep() {
+        long delay = config.latencyMs;
+        if (config.latencyJitterMs > 0) delay += ThreadLocalRandom.current().nextLong(config.latencyJitterMs);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String error(String code, String message, String requestId) throws IOException {
+        StringWriter sw = new StringWriter();
+        JsonWriter w = new JsonWriter(sw);
+        w.beginObject().name("Response").beginObject()
+                .name("Error").beginObject().name("Code").value(code).name("Message").value(message).endObject()
+                .name("RequestId").value(requestId)
+                .endObject().endObject();
+        w.close();
+        return sw.toString();
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        // 与真实接口一致：业务错误也是 HTTP 200
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) != -1) out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.scanidcard;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OcrStandInServerTest {
+
+    private OcrStandInServer server;
+
+    private void start(OcrStandInServer.Config config) throws Exception {
+        server = new OcrStandInServer(config).start();
+        HttpTransport.Config transport = new HttpTransport.Config();
+        transport.endpoint = server.endpoint();
+        TencentOcrClient.setTransport(new HttpTransport(transport));
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) server.close();
+        TencentOcrClient.setTransport(null);
+    }
+
+    @Test
+    public void acceptsCorrectlySignedRequest() throws Exception {
+        OcrStandInServer.Config config = new OcrStandInServer.Config();
+        start(config);
+
+        IdentifyResult front = TencentOcrClient.idCardOcr(config.secretId, config.secretKey, null,
+                new byte[]{(byte) 0xFF, (byte) 0xD8}, "FRONT");
+        assertEquals(front.getErrormsg(), 0, front.getErrorcode());
+        assertEquals("440101199001010003", front.getIdNum());
+        assertEquals(0, front.getCheckFlags());
+
+        // String 重载（payload 由 JsonWriter 生成）也要通过校验
+        IdentifyResult back = TencentOcrClient.idCardOcr(config.secretId, config.secretKey, null, "/9g=", "BACK");
+        assertEquals(back.getErrormsg(), 0, back.getErrorcode());
+        assertEquals("2015.01.01-2035.01.01", back.getValidDate());
+        assertEquals(2, server.stats().succeeded);
+    }
+
+    @Test
+    public void rejectsWrongKey() throws Exception {
+        OcrStandInServer.Config config = new OcrStandInServer.Config();
+        start(config);
+
+        IdentifyResult r = TencentOcrClient.idCardOcr(config.secretId, "wrong", null, new byte[]{1}, null);
+        assertEquals(1, r.getErrorcode());
+        assertTrue(r.getErrormsg(), r.getErrormsg().startsWith("AuthFailure.SignatureFailure"));
+
+        r = TencentOcrClient.idCardOcr("AKIDOTHER", config.secretKey, null, new byte[]{1}, null);
+        assertTrue(r.getErrormsg(), r.getErrormsg().startsWith("AuthFailure.SecretIdNotFound"));
+        assertEquals(2, server.stats().authFailures);
+    }
+
+    @Test
+    public void throttlesAboveQps() throws Exception {
+        OcrStandInServer.Config config = new OcrStandInServer.Config();
+        config.maxQps = 1000;
+        start(config);
+
+        LoadGenerator.Config load = new LoadGenerator.Config();
+        load.concurrency = 4;
+        load.requests = 40;
+        load.imageBytes = 1024;
+        LoadGenerator.Report report = new LoadGenerator(load).run();
+        assertEquals(40, report.succeeded);
+        assertEquals(40, report.latency.count());
+
+        config.maxQps = 1;
+        load.requests = 5;
+        report = new LoadGenerator(load).run();
+        // 同一秒内最多放行 1 个（跨秒时可能是 2 个）
+        assertTrue(report.toString(), report.errors.get("RequestLimitExceeded") >= 3);
+    }
+
+    @Test
+    public void schedulerStaysUnderServerQps() throws Exception {
+        OcrStandInServer.Config config = new OcrStandInServer.Config();
+        config.maxQps = 20;
+        start(config);
+
+        OcrScheduler.Config sc = new OcrScheduler.Config();
+        sc.qps = 15;
+        sc.burst = 1;
+        LoadGenerator.Config load = new LoadGenerator.Config();
+        load.concurrency = 16;
+        load.requests = 30;
+        load.imageBytes = 1024;
+        load.scheduler = new OcrScheduler(sc);
+
+        LoadGenerator.Report report = new LoadGenerator(load).run();
+        assertEquals(report.toString(), 30, report.succeeded);
+        assertEquals(0, load.scheduler.stats().throttled);
+        assertEquals(0, server.stats().throttled);
+    }
+
+    @Test
+    public void injectsErrors() throws Exception {
+        OcrStandInServer.Config config = new OcrStandInServer.Config();
+        config.errorRate = 1;
+        start(config);
+
+        LoadGenerator.Config load = new LoadGenerator.Config();
+        load.concurrency = 2;
+        load.requests = 6;
+        load.imageBytes = 512;
+        LoadGenerator.Report report = new LoadGenerator(load).run();
+        assertEquals(6, report.failed);
+        assertEquals(Integer.valueOf(6), report.errors.get("FailedOperation.OcrFailed"));
+    }
+}
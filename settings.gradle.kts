@@ -21,4 +21,8 @@ dependencyResolutionManagement {
 
 rootProject.name = "scanidcard"
 include(":app")
+include(":core")
+include(":cli")
+include(":loadtest")
+include(":benchmark")
  
\ No newline at end of file